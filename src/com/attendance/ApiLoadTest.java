@@ -0,0 +1,188 @@
+package com.attendance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load generator for a running ApiServer — many concurrent clients each
+ * logging in once and then looping over a read-mostly mix (dashboard and
+ * leave-impact queries) until the time is up. Reports request latency
+ * percentiles and throughput.
+ *
+ * Usage: java com.attendance.ApiLoadTest BASE_URL USER:PASS[,USER:PASS...] [clients] [seconds]
+ *
+ * e.g. java com.attendance.ApiLoadTest http://localhost:8080 alice:secret,bob:secret 1000 30
+ *
+ * Clients are spread round-robin over the given accounts, so several
+ * clients share a server-side session, as with a student on phone and laptop.
+ */
+public class ApiLoadTest {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+
+    /**
+     * Status and body of one HTTP exchange.
+     */
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: ApiLoadTest BASE_URL USER:PASS[,USER:PASS...] [clients] [seconds]");
+            System.exit(2);
+        }
+        String baseUrl = args[0];
+        String[] accounts = args[1].split(",");
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        ExecutorService pool = ApiServer.newRequestExecutor();
+        long[][] latencies = new long[clients][];
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            String account = accounts[c % accounts.length];
+            pool.execute(() -> latencies[client] = runClient(baseUrl, account, deadline, errors));
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS)) {
+            System.err.println("WARNING: some clients did not finish");
+        }
+
+        int total = 0;
+        for (long[] l : latencies) {
+            total += (l != null) ? l.length : 0;
+        }
+        long[] all = new long[total];
+        int i = 0;
+        for (long[] l : latencies) {
+            if (l != null) {
+                System.arraycopy(l, 0, all, i, l.length);
+                i += l.length;
+            }
+        }
+        Arrays.sort(all);
+
+        System.out.printf("%d clients, %d requests in %d s (%.0f req/s), %d errors%n",
+                clients, total, seconds, (double) total / seconds, errors.get());
+        if (total > 0) {
+            System.out.printf("latency p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[total - 1] / 1e6);
+        }
+    }
+
+    /**
+     * One client: log in, then issue requests until the deadline.
+     *
+     * @return the latency of every successful request, in nanoseconds
+     */
+    private static long[] runClient(String baseUrl, String account, long deadline, AtomicLong errors) {
+        List<Long> samples = new ArrayList<>();
+        try {
+            int colon = account.indexOf(':');
+            String form = "username=" + URLEncoder.encode(account.substring(0, colon), "UTF-8")
+                    + "&password=" + URLEncoder.encode(account.substring(colon + 1), "UTF-8");
+            Response login = send("POST", baseUrl + "/api/login", null, form);
+            Matcher m = TOKEN.matcher(login.body);
+            if (login.status != 200 || !m.find()) {
+                errors.incrementAndGet();
+                System.err.println("Login failed for " + account.substring(0, colon) + ": " + login.body);
+                return new long[0];
+            }
+            String token = m.group(1);
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                String path;
+                if (random.nextInt(5) == 0) {
+                    LocalDate from = LocalDate.now().plusDays(1 + random.nextInt(30));
+                    path = "/api/leave-impact?from=" + from + "&to=" + from.plusDays(random.nextInt(7));
+                } else {
+                    path = "/api/dashboard";
+                }
+                long start = System.nanoTime();
+                Response response = send("GET", baseUrl + path, token, null);
+                long elapsed = System.nanoTime() - start;
+                if (response.status == 200) {
+                    samples.add(elapsed);
+                } else {
+                    errors.incrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            System.err.println("Client error: " + e);
+        }
+        long[] result = new long[samples.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = samples.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * One request; HttpURLConnection keeps the connection alive for the next.
+     *
+     * @param token bearer token, or null
+     * @param form  urlencoded request body, or null for none
+     */
+    private static Response send(String method, String url, String token, String form) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        conn.setRequestMethod(method);
+        if (token != null) {
+            conn.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        if (form != null) {
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(form.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = conn.getResponseCode();
+        InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] chunk = new byte[4096];
+                int n;
+                while ((n = stream.read(chunk)) != -1) {
+                    body.write(chunk, 0, n);
+                }
+            }
+        }
+        return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+}
@@ -0,0 +1,677 @@
+package com.attendance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Headless HTTP/JSON server over the attendance core, for mobile and web
+ * front ends — a third entry point alongside AttendanceApp and
+ * EligibilityReport. Built on the JDK's com.sun.net.httpserver with one
+ * virtual thread per request (Java 21+; older JVMs fall back to a cached
+ * thread pool).
+ *
+ * Usage: java com.attendance.ApiServer [port]
+ *
+ * Requests take query parameters or an application/x-www-form-urlencoded
+ * body; responses are JSON. Login credentials are accepted in the body only,
+ * so they don't end up in URLs and access logs. After POST /api/login, send
+ * the returned token as "Authorization: Bearer TOKEN".
+ *
+ * POST   /api/login         username, password (form body)
+ * POST   /api/logout
+ * GET    /api/dashboard     per-subject stats and overall percentage
+ * POST   /api/attendance    subjectId, present, [date] — mark (default today)
+ * DELETE /api/attendance    subjectId, [date] — unmark
+ * GET    /api/holidays
+ * POST   /api/holidays      from, [to], [description]
+ * DELETE /api/holidays      start, [calendarId] — remove own / hide shared
+ * GET    /api/leave-impact  from, to — like PredictionDialog
+ *
+ * Each logged-in student has one in-memory session (Student + schedule),
+ * shared by all their tokens, loaded like a desktop login. Requests for the
+ * same student are serialized by a per-session lock; attendance writes go
+ * through the same write-behind queue as the desktop app.
+ */
+public class ApiServer {
+
+    private final DatabaseManager db;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, Session> sessionsByToken = new ConcurrentHashMap<>();
+    private final Map<Integer, Session> sessionsByStudent = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Endpoint>> routes = new HashMap<>(); // Path -> method -> endpoint
+    private final SecureRandom random = new SecureRandom();
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DatabaseConfig.API_PORT;
+        DatabaseManager db = DatabaseManager.getInstance();
+        if (!db.testConnection() || !db.migrateSchema()) {
+            System.err.println("Cannot connect to MySQL at " + DatabaseConfig.DB_URL);
+            System.exit(1);
+        }
+        ApiServer api = new ApiServer(db, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(api::stop, "ApiServer-shutdown"));
+        api.start();
+        System.err.println("Attendance API listening on port " + port);
+    }
+
+    public ApiServer(DatabaseManager db, int port) throws IOException {
+        this.db = db;
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024); // Backlog for bursts of clients
+        server.setExecutor(executor);
+
+        route("/api/login", false, "POST", this::login);
+        route("/api/logout", true, "POST", this::logout);
+        route("/api/dashboard", true, "GET", this::dashboard);
+        route("/api/attendance", true, "POST", this::markAttendance);
+        route("/api/attendance", true, "DELETE", this::unmarkAttendance);
+        route("/api/holidays", true, "GET", this::listHolidays);
+        route("/api/holidays", true, "POST", this::addHoliday);
+        route("/api/holidays", true, "DELETE", this::removeHoliday);
+        route("/api/leave-impact", true, "GET", this::leaveImpact);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ApiServer-session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        server.start();
+        sweeper.scheduleAtFixedRate(this::expireIdleSessions, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stop accepting requests, give in-flight ones a second, then stop the workers.
+     */
+    public void stop() {
+        server.stop(1);
+        sweeper.shutdownNow();
+        executor.shutdown();
+    }
+
+    /**
+     * Virtual thread per request when the JVM has them (looked up reflectively
+     * so the project still builds on Java 17).
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Virtual threads unavailable (Java 21+ needed) — using a cached thread pool");
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "ApiServer-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // ───── Endpoints ─────
+
+    private String login(Request req) throws ApiException {
+        if (req.inQuery("username") || req.inQuery("password")) {
+            throw new ApiException(400, "Send username and password in the request body, not the URL.");
+        }
+        Student student = db.authenticateStudent(req.bodyParam("username"), req.bodyParam("password"));
+        if (student == null) {
+            throw new ApiException(401, "Invalid username or password.");
+        }
+        Session session = sessionsByStudent.get(student.getId());
+        if (session == null) {
+            // Load outside any map lock; if another login raced us, use its session
+            WeeklySchedule schedule = db.loadStudentData(student);
+            Session loaded = new Session(student, schedule, new DeltaSync(db, student)); // After the load sets the change position
+            session = sessionsByStudent.putIfAbsent(student.getId(), loaded);
+            if (session == null) {
+                session = loaded;
+            }
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        session.tokens.add(token);
+        session.touch();
+        sessionsByToken.put(token, session);
+        return new Json.Obj()
+                .put("token", token)
+                .putRaw("student", studentJson(session.student))
+                .toString();
+    }
+
+    private String logout(Request req) {
+        sessionsByToken.remove(req.token);
+        req.session.tokens.remove(req.token);
+        return new Json.Obj().put("ok", true).toString();
+    }
+
+    private String dashboard(Request req) {
+        Student student = req.session.student;
+        WeeklySchedule schedule = req.session.schedule;
+        AttendancePolicy policy = student.getAttendancePolicy();
+        LocalDate today = LocalDate.now();
+
+        int totalAttended = 0;
+        int totalConducted = 0;
+        Json.Arr subjects = new Json.Arr();
+        for (Subject s : student.getSubjects()) {
+            totalAttended += s.getClassesAttended();
+            totalConducted += s.getClassesConducted();
+            OptionalInt needed = policy.classesNeeded(s); // Empty: threshold unreachable, sent as null
+            subjects.add(new Json.Obj()
+                    .put("id", s.getId())
+                    .put("name", s.getName())
+                    .put("attended", s.getClassesAttended())
+                    .put("conducted", s.getClassesConducted())
+                    .put("percentage", s.getAttendancePercentage())
+                    .put("eligible", policy.meets(s))
+                    .put("safe_bunks", policy.safeBunks(s))
+                    .putRaw("classes_needed", needed.isPresent() ? Integer.toString(needed.getAsInt()) : "null")
+                    .put("remaining_classes", AttendanceCalculator.calculateRemainingClasses(
+                            s, schedule, student.getSemesterEndDate(), student))
+                    .put("scheduled_today", schedule.isScheduledOn(s, today.getDayOfWeek())));
+        }
+        double overall = (totalConducted == 0) ? 100.0 : totalAttended * 100.0 / totalConducted;
+        return new Json.Obj()
+                .putRaw("student", studentJson(student))
+                .put("date", today.toString())
+                .put("required_percentage", policy.getThresholdPercentage())
+                .put("overall_percentage", overall)
+                .put("overall_eligible", policy.meetsPercentage(overall))
+                .put("non_teaching_day", student.getHolidayCalendar().isNonTeachingDay(today))
+                .putRaw("subjects", subjects)
+                .toString();
+    }
+
+    private String markAttendance(Request req) throws ApiException {
+        Student student = req.session.student;
+        Subject subject = findSubject(student, req.intParam("subjectId"));
+        boolean present = req.booleanParam("present");
+        LocalDate date = req.dateParam("date", LocalDate.now());
+
+        // Same rules as marking from the dashboard
+        if (date.isAfter(LocalDate.now())) {
+            throw new ApiException(409, "Cannot mark attendance in the future.");
+        }
+        if (student.isSemesterConfigured()) {
+            LocalDate semStart = student.getSemesterStartDate();
+            LocalDate semEnd = student.getSemesterEndDate();
+            if ((semStart != null && date.isBefore(semStart)) || (semEnd != null && date.isAfter(semEnd))) {
+                throw new ApiException(409, date + " is outside the semester.");
+            }
+        }
+        if (student.isHoliday(date)) {
+            throw new ApiException(409, date + " is a holiday.");
+        }
+        if (student.isDuringMidsemExams(date)) {
+            throw new ApiException(409, date + " falls within the mid-sem exam period.");
+        }
+
+        boolean updated = subject.hasRecordForDate(date);
+        subject.addClass(date, present);
+        db.getAttendanceWriteQueue().save(subject.getId(), date, present)
+                .whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        System.err.println("API attendance write failed: " + ex.getMessage());
+                    }
+                });
+        return subjectResult(subject, date, updated);
+    }
+
+    private String unmarkAttendance(Request req) throws ApiException {
+        Subject subject = findSubject(req.session.student, req.intParam("subjectId"));
+        LocalDate date = req.dateParam("date", LocalDate.now());
+        if (!subject.hasRecordForDate(date)) {
+            throw new ApiException(404, "No attendance marked on " + date + ".");
+        }
+        subject.removeRecordForDate(date);
+        db.getAttendanceWriteQueue().delete(subject.getId(), date);
+        return subjectResult(subject, date, true);
+    }
+
+    private String listHolidays(Request req) {
+        Json.Arr holidays = new Json.Arr();
+        for (Holiday h : req.session.student.getHolidays()) {
+            holidays.add(holidayJson(h));
+        }
+        return new Json.Obj().putRaw("holidays", holidays).toString();
+    }
+
+    private String addHoliday(Request req) throws ApiException {
+        Student student = req.session.student;
+        LocalDate from = req.dateParam("from", null);
+        if (from == null) {
+            throw new ApiException(400, "Missing parameter: from");
+        }
+        LocalDate to = req.dateParam("to", from);
+        if (to.isBefore(from)) {
+            throw new ApiException(400, "'to' cannot be before 'from'.");
+        }
+        Holiday holiday = new Holiday(from, to, req.optionalParam("description"));
+        if (!student.addHoliday(holiday)) {
+            throw new ApiException(409, "This range overlaps one of your holidays.");
+        }
+
+        // Same cleanup as ManageHolidaysDialog: records inside the holiday go
+        // (the database's with the holiday itself)
+        int removed = 0;
+        for (Subject s : student.getSubjects()) {
+            if (!s.isHistoryLoaded()) {
+                continue;
+            }
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                if (s.hasRecordForDate(d)) {
+                    s.removeRecordForDate(d);
+                    removed++;
+                }
+            }
+        }
+        db.addHoliday(student.getId(), holiday);
+        List<Subject> fresh = db.loadSubjects(student.getId());
+        for (Subject s : student.getSubjects()) {
+            if (s.isHistoryLoaded()) {
+                continue;
+            }
+            for (Subject f : fresh) {
+                if (f.getId() == s.getId()) {
+                    removed += Math.max(s.getClassesConducted() - f.getClassesConducted(), 0);
+                    s.updateSummary(f.getClassesConducted(), f.getClassesAttended());
+                    break;
+                }
+            }
+        }
+        return new Json.Obj()
+                .putRaw("holiday", holidayJson(holiday))
+                .put("removed_records", removed)
+                .toString();
+    }
+
+    private String removeHoliday(Request req) throws ApiException {
+        Student student = req.session.student;
+        LocalDate start = req.dateParam("start", null);
+        if (start == null) {
+            throw new ApiException(400, "Missing parameter: start");
+        }
+        int calendarId = req.intParam("calendarId", 0);
+        for (Holiday h : student.getHolidays()) {
+            if (h.getStartDate().equals(start) && h.getCalendarId() == calendarId) {
+                student.removeHoliday(h);
+                if (h.isShared()) {
+                    db.excludeSharedHoliday(student.getId(), h); // Hidden for this student only
+                } else {
+                    db.removeHoliday(student.getId(), h);
+                }
+                return new Json.Obj().putRaw("removed", holidayJson(h)).toString();
+            }
+        }
+        throw new ApiException(404, "No holiday starts on " + start + ".");
+    }
+
+    private String leaveImpact(Request req) throws ApiException {
+        Student student = req.session.student;
+        WeeklySchedule schedule = req.session.schedule;
+        LocalDate from = req.dateParam("from", null);
+        LocalDate to = req.dateParam("to", null);
+        if (from == null || to == null) {
+            throw new ApiException(400, "Both 'from' and 'to' are required.");
+        }
+        if (to.isBefore(from)) {
+            throw new ApiException(400, "'to' cannot be before 'from'.");
+        }
+        AttendancePolicy policy = student.getAttendancePolicy();
+        TeachingCalendar teaching = student.getTeachingCalendar();
+        Map<Subject, Double> afterLeave = AttendanceCalculator.predictAttendanceAfterLeave(
+                student, schedule, from, to);
+
+        Json.Arr subjects = new Json.Arr();
+        boolean anyDanger = false;
+        for (Subject s : student.getSubjects()) {
+            double after = afterLeave.get(s);
+            boolean eligibleAfter = policy.meetsPercentage(after);
+            anyDanger |= !eligibleAfter;
+            subjects.add(new Json.Obj()
+                    .put("id", s.getId())
+                    .put("name", s.getName())
+                    .put("classes_missed", teaching.countClasses(s, schedule, from, to))
+                    .put("percentage_now", s.getAttendancePercentage())
+                    .put("percentage_after", after)
+                    .put("eligible_after", eligibleAfter));
+        }
+        return new Json.Obj()
+                .put("from", from.toString())
+                .put("to", to.toString())
+                .put("required_percentage", policy.getThresholdPercentage())
+                .put("safe", !anyDanger)
+                .putRaw("subjects", subjects)
+                .toString();
+    }
+
+    // ───── JSON helpers ─────
+
+    private static String studentJson(Student student) {
+        return new Json.Obj()
+                .put("id", student.getId())
+                .put("name", student.getName())
+                .put("username", student.getUsername())
+                .toString();
+    }
+
+    private static String holidayJson(Holiday h) {
+        return new Json.Obj()
+                .put("start", h.getStartDate().toString())
+                .put("end", h.getEndDate().toString())
+                .put("days", h.getDayCount())
+                .put("description", h.getDescription())
+                .put("calendar_id", h.getCalendarId())
+                .put("source", h.isShared() ? h.getCalendarName() : "Personal")
+                .toString();
+    }
+
+    private static String subjectResult(Subject subject, LocalDate date, boolean replaced) {
+        return new Json.Obj()
+                .put("subject_id", subject.getId())
+                .put("date", date.toString())
+                .put("replaced", replaced)
+                .put("attended", subject.getClassesAttended())
+                .put("conducted", subject.getClassesConducted())
+                .put("percentage", subject.getAttendancePercentage())
+                .toString();
+    }
+
+    private static Subject findSubject(Student student, int subjectId) throws ApiException {
+        for (Subject s : student.getSubjects()) {
+            if (s.getId() == subjectId) {
+                return s;
+            }
+        }
+        throw new ApiException(404, "No subject with id " + subjectId + ".");
+    }
+
+    // ───── Plumbing ─────
+
+    /**
+     * Serve one method of a path; the first call for a path creates its context.
+     */
+    private void route(String path, boolean authenticated, String method, Endpoint endpoint) {
+        routes.computeIfAbsent(path, p -> {
+            Map<String, Endpoint> byMethod = new HashMap<>();
+            server.createContext(p, exchange -> handle(exchange, authenticated, byMethod));
+            return byMethod;
+        }).put(method, endpoint);
+    }
+
+    private void handle(HttpExchange exchange, boolean authenticated, Map<String, Endpoint> byMethod)
+            throws IOException {
+        int status = 200;
+        String body;
+        try {
+            Endpoint endpoint = byMethod.get(exchange.getRequestMethod());
+            if (endpoint == null) {
+                throw new ApiException(405, "Method not allowed.");
+            }
+            Request req = parse(exchange);
+            if (!authenticated) {
+                body = endpoint.handle(req);
+            } else {
+                authenticate(exchange, req);
+                // ReentrantLock rather than synchronized, so a virtual thread
+                // waiting on the database doesn't pin its carrier thread
+                req.session.lock.lock();
+                try {
+                    req.session.catchUp(db);
+                    body = endpoint.handle(req);
+                } finally {
+                    req.session.lock.unlock();
+                }
+            }
+        } catch (ApiException e) {
+            status = e.status;
+            body = new Json.Obj().put("error", e.getMessage()).toString();
+        } catch (RuntimeException e) {
+            System.err.println("API error on " + exchange.getRequestURI().getPath() + ": " + e);
+            status = 500;
+            body = new Json.Obj().put("error", "Internal server error.").toString();
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void authenticate(HttpExchange exchange, Request req) throws ApiException {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new ApiException(401, "Missing bearer token.");
+        }
+        String token = header.substring("Bearer ".length()).trim();
+        Session session = sessionsByToken.get(token);
+        if (session == null) {
+            throw new ApiException(401, "Session expired. Please log in again.");
+        }
+        session.touch();
+        req.token = token;
+        req.session = session;
+    }
+
+    private static Request parse(HttpExchange exchange) throws IOException, ApiException {
+        Map<String, String> query = new HashMap<>();
+        Map<String, String> body = new HashMap<>();
+        decodeForm(exchange.getRequestURI().getRawQuery(), query);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+            decodeForm(readBody(exchange.getRequestBody()), body);
+        }
+        return new Request(query, body);
+    }
+
+    private static String readBody(InputStream in) throws IOException, ApiException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, n);
+            if (buffer.size() > DatabaseConfig.API_MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large.");
+            }
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void decodeForm(String raw, Map<String, String> into) {
+        if (raw == null || raw.isEmpty()) {
+            return;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            into.put(urlDecode(key), urlDecode(value));
+        }
+    }
+
+    private static String urlDecode(String s) {
+        try {
+            return URLDecoder.decode(s, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // Every JVM supports UTF-8
+        }
+    }
+
+    /**
+     * Log out sessions nobody has used for API_SESSION_IDLE_MS.
+     */
+    private void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - DatabaseConfig.API_SESSION_IDLE_MS;
+        for (Session session : sessionsByStudent.values()) {
+            if (session.lastUsed < cutoff) {
+                sessionsByStudent.remove(session.student.getId(), session);
+                for (String token : session.tokens) {
+                    sessionsByToken.remove(token);
+                }
+            }
+        }
+    }
+
+    // ───── Types ─────
+
+    @FunctionalInterface
+    private interface Endpoint {
+        String handle(Request req) throws ApiException;
+    }
+
+    /**
+     * A logged-in student's in-memory state, shared by all their tokens.
+     */
+    private static final class Session {
+        final Student student;
+        volatile WeeklySchedule schedule; // Replaced when subjects change elsewhere
+        final DeltaSync sync;
+        final Set<String> tokens = ConcurrentHashMap.newKeySet();
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long lastUsed = System.currentTimeMillis();
+        private long lastSynced = System.currentTimeMillis(); // Guarded by lock
+
+        Session(Student student, WeeklySchedule schedule, DeltaSync sync) {
+            this.student = student;
+            this.schedule = schedule;
+            this.sync = sync;
+        }
+
+        void touch() {
+            lastUsed = System.currentTimeMillis();
+        }
+
+        /**
+         * Apply changes made outside this session (the desktop app, a roll
+         * call), at most once per API_SYNC_INTERVAL_MS. Call under the lock.
+         */
+        void catchUp(DatabaseManager db) {
+            long now = System.currentTimeMillis();
+            if (now - lastSynced < DatabaseConfig.API_SYNC_INTERVAL_MS) {
+                return;
+            }
+            lastSynced = now;
+            if (sync.sync()) {
+                WeeklySchedule fresh = new WeeklySchedule();
+                db.loadSchedule(fresh, student.getId(), student.getSubjects());
+                schedule = fresh;
+            }
+        }
+    }
+
+    private static final class Request {
+        final Map<String, String> params; // Query and body; the body wins
+        final Set<String> queryNames;
+        final Map<String, String> body;
+        String token;
+        Session session;
+
+        Request(Map<String, String> query, Map<String, String> body) {
+            this.params = new HashMap<>(query);
+            this.params.putAll(body);
+            this.queryNames = query.keySet();
+            this.body = body;
+        }
+
+        String param(String name) throws ApiException {
+            return required(name, params.get(name));
+        }
+
+        /**
+         * A parameter that must come from the form body (credentials).
+         */
+        String bodyParam(String name) throws ApiException {
+            return required(name, body.get(name));
+        }
+
+        boolean inQuery(String name) {
+            return queryNames.contains(name);
+        }
+
+        private static String required(String name, String value) throws ApiException {
+            if (value == null || value.isEmpty()) {
+                throw new ApiException(400, "Missing parameter: " + name);
+            }
+            return value;
+        }
+
+        String optionalParam(String name) {
+            return params.get(name);
+        }
+
+        int intParam(String name) throws ApiException {
+            try {
+                return Integer.parseInt(param(name));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Parameter " + name + " must be a number.");
+            }
+        }
+
+        int intParam(String name, int defaultValue) throws ApiException {
+            return params.containsKey(name) ? intParam(name) : defaultValue;
+        }
+
+        boolean booleanParam(String name) throws ApiException {
+            String value = param(name);
+            if (!value.equals("true") && !value.equals("false")) {
+                throw new ApiException(400, "Parameter " + name + " must be true or false.");
+            }
+            return Boolean.parseBoolean(value);
+        }
+
+        LocalDate dateParam(String name, LocalDate defaultValue) throws ApiException {
+            String value = params.get(name);
+            if (value == null || value.isEmpty()) {
+                return defaultValue;
+            }
+            try {
+                return LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new ApiException(400, "Parameter " + name + " must be a date (YYYY-MM-DD).");
+            }
+        }
+    }
+
+    private static final class ApiException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
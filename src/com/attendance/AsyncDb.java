@@ -0,0 +1,220 @@
+package com.attendance;
+
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs DatabaseManager calls off the Event Dispatch Thread.
+ * Reads execute on a small dedicated DB pool, writes one at a time on a
+ * single writer thread, so dependent writes (add then remove a holiday,
+ * add then rename a subject) reach MySQL in the order they were made. The
+ * returned future is completed on the EDT, so thenAccept / whenComplete
+ * callbacks can touch Swing components directly.
+ *
+ * - While work is pending the owner's window shows a wait cursor
+ * - Closing (disposing) the owner's window cancels its pending futures, so
+ *   callbacks never run against a dead dialog. Queries that haven't started
+ *   yet are skipped; updates always run, since the in-memory model has
+ *   usually been changed already.
+ * - Work waits for DatabaseManager.startInBackground() to finish, so the
+ *   UI can come up before the database is reachable
+ *
+ * Call from the EDT.
+ */
+public class AsyncDb {
+
+    private static final ExecutorService READ_EXECUTOR = Executors.newFixedThreadPool(
+            DatabaseConfig.ASYNC_DB_THREADS, daemonThreads("AsyncDb-reader-"));
+    private static final ExecutorService WRITE_EXECUTOR = Executors.newSingleThreadExecutor(
+            daemonThreads("AsyncDb-writer-"));
+
+    // Pending-work count per window, for the busy cursor (EDT only)
+    private static final Map<Window, int[]> busyCounts = new WeakHashMap<>();
+
+    private AsyncDb() {
+        // Utility class
+    }
+
+    /**
+     * Run a read off the EDT. The future completes on the EDT.
+     *
+     * @param owner component whose window shows the busy cursor and whose
+     *              closing cancels the future (null for none)
+     */
+    public static <T> CompletableFuture<T> query(Component owner, Supplier<T> query) {
+        return submit(owner, query, true);
+    }
+
+    /**
+     * Run a write (optionally returning a result) off the EDT, after every
+     * write submitted before it. The write always runs; closing the owner
+     * only cancels the EDT callbacks.
+     */
+    public static <T> CompletableFuture<T> update(Component owner, Supplier<T> update) {
+        return submit(owner, update, false);
+    }
+
+    /**
+     * Run a write with no result off the EDT.
+     */
+    public static CompletableFuture<Void> run(Component owner, Runnable update) {
+        return submit(owner, () -> {
+            update.run();
+            return null;
+        }, false);
+    }
+
+    /**
+     * Make sure the subjects' attendance histories are in memory before a
+     * screen walks them: the missing ones are fetched in one query off the
+     * EDT. Completes immediately if all are already loaded. If the load
+     * fails the future completes exceptionally and the subjects keep their
+     * counters — callers should offer a retry rather than walk the history,
+     * which would load it again on the EDT.
+     */
+    public static CompletableFuture<Void> loadHistories(Component owner, Collection<Subject> subjects) {
+        List<Subject> missing = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (Subject s : subjects) {
+            if (!s.isHistoryLoaded()) {
+                missing.add(s);
+                ids.add(s.getId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return query(owner, () -> DatabaseManager.getInstance().loadAttendanceHistories(ids))
+                .thenAccept(histories -> {
+                    if (histories == null) {
+                        throw new IllegalStateException("The attendance history could not be loaded.");
+                    }
+                    for (Subject s : missing) {
+                        if (!s.isHistoryLoaded()) { // May have been loaded or replaced meanwhile
+                            s.loadHistory(histories.get(s.getId()));
+                        }
+                    }
+                });
+    }
+
+    private static <T> CompletableFuture<T> submit(Component owner, Supplier<T> work, boolean skipIfCancelled) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Window window = windowOf(owner);
+        WindowAdapter closeListener = null;
+
+        if (window != null) {
+            setBusy(window, true);
+            closeListener = new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    result.cancel(false);
+                }
+            };
+            window.addWindowListener(closeListener);
+        }
+
+        ExecutorService executor = skipIfCancelled ? READ_EXECUTOR : WRITE_EXECUTOR;
+        Future<?> task = executor.submit(() -> {
+            T value = null;
+            Throwable failure = null;
+            try {
+                DatabaseManager.getInstance().awaitStartup(); // Not before the schema is migrated
+                if (!skipIfCancelled || !result.isCancelled()) {
+                    value = work.get();
+                }
+            } catch (Throwable t) {
+                failure = t;
+            }
+            T finalValue = value;
+            Throwable finalFailure = failure;
+            SwingUtilities.invokeLater(() -> {
+                if (finalFailure != null) {
+                    System.err.println("Database task failed: " + finalFailure);
+                    result.completeExceptionally(finalFailure);
+                } else {
+                    result.complete(finalValue);
+                }
+            });
+        });
+
+        WindowAdapter listener = closeListener;
+        result.whenComplete((v, ex) -> {
+            if (result.isCancelled() && skipIfCancelled) {
+                task.cancel(false); // Drop the query if it hasn't started yet
+            }
+            if (window != null) {
+                window.removeWindowListener(listener);
+                if (SwingUtilities.isEventDispatchThread()) {
+                    setBusy(window, false);
+                } else {
+                    SwingUtilities.invokeLater(() -> setBusy(window, false));
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stop accepting work and wait (bounded) for submitted work to finish,
+     * so updates started just before exit still reach the database.
+     */
+    static void awaitPending(long timeoutMs) {
+        READ_EXECUTOR.shutdown();
+        WRITE_EXECUTOR.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            if (!WRITE_EXECUTOR.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)
+                    || !READ_EXECUTOR.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                System.err.println("Timed out waiting for background database work to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ───── Internals ─────
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static Window windowOf(Component owner) {
+        if (owner == null) {
+            return null;
+        }
+        return (owner instanceof Window) ? (Window) owner : SwingUtilities.getWindowAncestor(owner);
+    }
+
+    private static void setBusy(Window window, boolean busy) {
+        int[] count = busyCounts.computeIfAbsent(window, w -> new int[1]);
+        count[0] += busy ? 1 : -1;
+        if (count[0] <= 0) {
+            busyCounts.remove(window);
+            window.setCursor(Cursor.getDefaultCursor());
+        } else if (busy && count[0] == 1) {
+            window.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+}
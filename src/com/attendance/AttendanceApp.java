@@ -20,27 +20,30 @@ public class AttendanceApp {
             e.printStackTrace();
         }
 
-        SwingUtilities.invokeLater(() -> {
-            // Test database connection first
-            if (!DatabaseManager.getInstance().testConnection()) {
-                JOptionPane.showMessageDialog(null,
-                        "Cannot connect to MySQL database.\n"
-                                + "Please ensure MySQL is running and credentials are correct.\n\n"
+        // Test database connection and bring the schema up to date in the
+        // background, so a warm start can show its snapshot meanwhile.
+        // Not fatal: edits are journaled and replayed once MySQL is back
+        DatabaseManager db = DatabaseManager.getInstance();
+        db.startInBackground().thenAccept(connected -> {
+            if (!connected) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                        "Cannot connect to MySQL database — working offline.\n"
+                                + "Accounts used on this computer before can still sign in; changes are\n"
+                                + "saved locally and written to the database once it is reachable.\n\n"
                                 + "URL: " + DatabaseConfig.DB_URL + "\n"
                                 + "User: " + DatabaseConfig.DB_USER,
                         "Database Connection Error",
-                        JOptionPane.ERROR_MESSAGE);
-                System.exit(1);
+                        JOptionPane.WARNING_MESSAGE));
             }
+        });
 
+        SwingUtilities.invokeLater(() -> {
             // Show Login Dialog
             LoginDialog loginDialog = new LoginDialog(null);
             loginDialog.setVisible(true);
 
             if (loginDialog.isLoginSuccessful()) {
-                Student student = loginDialog.getAuthenticatedStudent();
-                MainWindow mainWindow = new MainWindow(student);
-                mainWindow.setVisible(true);
+                MainWindow.open(loginDialog);
             } else {
                 System.exit(0); // User closed login without logging in
             }
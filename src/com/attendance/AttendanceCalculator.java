@@ -3,48 +3,56 @@ package com.attendance;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.OptionalInt;
 
 /**
  * Attendance calculator engine.
  * Handles eligibility checks, safe bunk calculation, recovery classes,
  * leave prediction, and remaining class calculation (accounting for mid-sem
- * exams).
+ * exams). Thresholds come from an AttendancePolicy (75% by default).
  */
 public class AttendanceCalculator {
-    private static final double REQUIRED_PERCENTAGE = 75.0;
 
     /**
-     * Check if student is currently eligible (>= 75%).
+     * Check if the subject is currently eligible under the default 75% policy.
      */
     public static boolean isEligible(Subject subject) {
-        return subject.getAttendancePercentage() >= REQUIRED_PERCENTAGE;
+        return isEligible(subject, AttendancePolicy.DEFAULT);
+    }
+
+    public static boolean isEligible(Subject subject, AttendancePolicy policy) {
+        return policy.meets(subject);
     }
 
     /**
      * Calculate how many more classes can be missed while maintaining 75%.
-     * Formula: floor((Attended / 0.75) - Conducted)
      */
     public static int calculateSafeBunks(Subject subject) {
-        if (subject.getAttendancePercentage() < REQUIRED_PERCENTAGE) {
-            return 0;
-        }
-        int attended = subject.getClassesAttended();
-        int conducted = subject.getClassesConducted();
-        return (int) Math.floor((attended / (REQUIRED_PERCENTAGE / 100.0)) - conducted);
+        return calculateSafeBunks(subject, AttendancePolicy.DEFAULT);
+    }
+
+    /**
+     * Calculate how many more classes can be missed while staying at the policy threshold.
+     * Formula: floor(attended / threshold) - conducted, in exact integer arithmetic.
+     */
+    public static int calculateSafeBunks(Subject subject, AttendancePolicy policy) {
+        return policy.safeBunks(subject);
     }
 
     /**
      * Calculate how many consecutive classes must be attended to reach 75%.
-     * Formula: ceil(3 * conducted - 4 * attended) [simplified for 75%]
      */
-    public static int calculateRecoveryClasses(Subject subject) {
-        if (subject.getAttendancePercentage() >= REQUIRED_PERCENTAGE) {
-            return 0;
-        }
-        int attended = subject.getClassesAttended();
-        int conducted = subject.getClassesConducted();
-        int recovery = (int) Math.ceil((3.0 * conducted - 4.0 * attended));
-        return recovery > 0 ? recovery : 0;
+    public static OptionalInt calculateRecoveryClasses(Subject subject) {
+        return calculateRecoveryClasses(subject, AttendancePolicy.DEFAULT);
+    }
+
+    /**
+     * Calculate how many consecutive classes must be attended to reach the policy threshold.
+     * Formula: ceil((threshold * conducted - attended) / (1 - threshold)); 3c - 4a at 75%.
+     * Empty if the threshold can't be reached (a 100% policy after any absence).
+     */
+    public static OptionalInt calculateRecoveryClasses(Subject subject, AttendancePolicy policy) {
+        return policy.classesNeeded(subject);
     }
 
     /**
@@ -66,20 +74,18 @@ public class AttendanceCalculator {
             projectedAttended.put(s, s.getClassesAttended());
         }
 
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            // Skip holidays and mid-sem exam periods
-            if (!student.getHolidayDates().contains(current) && !student.isDuringMidsemExams(current)) {
-                DayOfWeek day = current.getDayOfWeek();
-                List<Subject> subjectsToday = schedule.getSubjectsOn(day);
-                if (subjectsToday != null) {
-                    for (Subject s : subjectsToday) {
-                        projectedConducted.put(s, projectedConducted.get(s) + 1);
-                        // Student is absent — attended stays same
-                    }
-                }
+        // Teaching days per weekday in the leave period (holidays and mid-sem excluded)
+        TeachingCalendar calendar = student.getTeachingCalendar();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<Subject> subjectsOnDay = schedule.getSubjectsOn(day);
+            if (subjectsOnDay == null || subjectsOnDay.isEmpty()) {
+                continue;
+            }
+            int missed = calendar.countTeachingDays(startDate, endDate, day);
+            for (Subject s : subjectsOnDay) {
+                // Student is absent — attended stays same
+                projectedConducted.merge(s, missed, Integer::sum);
             }
-            current = current.plusDays(1);
         }
 
         for (Subject s : student.getSubjects()) {
@@ -94,48 +100,18 @@ public class AttendanceCalculator {
 
     /**
      * Calculate remaining classes until end date.
-     * Excludes holidays AND mid-sem exam period.
+     * Excludes holidays AND mid-sem exam period (both from the student's HolidayCalendar).
      */
     public static int calculateRemainingClasses(
             Subject subject,
             WeeklySchedule schedule,
             LocalDate endDate,
-            List<LocalDate> holidays,
             Student student) {
-
         if (endDate == null || endDate.isBefore(LocalDate.now())) {
             return 0;
         }
-
-        int count = 0;
-        LocalDate current = LocalDate.now().plusDays(1);
-
-        while (!current.isAfter(endDate)) {
-            // Skip holidays
-            if (!holidays.contains(current)) {
-                // Skip mid-sem exam period
-                if (student == null || !student.isDuringMidsemExams(current)) {
-                    DayOfWeek day = current.getDayOfWeek();
-                    List<Subject> subjectsToday = schedule.getSubjectsOn(day);
-                    if (subjectsToday != null && subjectsToday.contains(subject)) {
-                        count++;
-                    }
-                }
-            }
-            current = current.plusDays(1);
-        }
-        return count;
-    }
-
-    /**
-     * Backward-compatible overload (without student for mid-sem check).
-     */
-    public static int calculateRemainingClasses(
-            Subject subject,
-            WeeklySchedule schedule,
-            LocalDate endDate,
-            List<LocalDate> holidays) {
-        return calculateRemainingClasses(subject, schedule, endDate, holidays, null);
+        return student.getTeachingCalendar().countClasses(
+                subject, schedule, LocalDate.now().plusDays(1), endDate);
     }
 
     /**
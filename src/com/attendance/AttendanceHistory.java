@@ -0,0 +1,149 @@
+package com.attendance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact per-subject attendance history.
+ * Days are stored as bit offsets (epoch day minus a base day) in two bitsets:
+ * "had class" and "was present". Attended/conducted counters are kept up to
+ * date on every change, so lookups, marks and percentage queries are O(1)
+ * and each record costs 2 bits instead of an AttendanceRecord object.
+ */
+public class AttendanceHistory {
+
+    // Extra room left before the earliest day when rebasing, so a run of
+    // back-dated entries doesn't shift the bitsets every time
+    private static final int REBASE_MARGIN_DAYS = 64;
+
+    private long baseDay; // Epoch day of bit 0 (only meaningful once a record exists)
+    private BitSet held = new BitSet();
+    private BitSet present = new BitSet();
+    private int conducted = 0;
+    private int attended = 0;
+
+    /**
+     * Record attendance for a date, replacing any existing record for it.
+     */
+    public void set(LocalDate date, boolean wasPresent) {
+        Objects.requireNonNull(date, "date");
+        long day = date.toEpochDay();
+        if (conducted == 0) {
+            baseDay = day; // Empty history — re-anchor on this date
+        } else if (day < baseDay) {
+            rebase(day - REBASE_MARGIN_DAYS);
+        }
+        int idx = toIndex(day);
+
+        if (held.get(idx)) {
+            if (present.get(idx) != wasPresent) {
+                attended += wasPresent ? 1 : -1;
+            }
+        } else {
+            held.set(idx);
+            conducted++;
+            if (wasPresent) {
+                attended++;
+            }
+        }
+        present.set(idx, wasPresent);
+    }
+
+    /**
+     * Remove the record for a date, if any.
+     */
+    public void remove(LocalDate date) {
+        int idx = indexOf(date);
+        if (idx < 0 || !held.get(idx)) {
+            return;
+        }
+        held.clear(idx);
+        conducted--;
+        if (present.get(idx)) {
+            attended--;
+            present.clear(idx);
+        }
+    }
+
+    public boolean contains(LocalDate date) {
+        int idx = indexOf(date);
+        return idx >= 0 && held.get(idx);
+    }
+
+    /**
+     * True if a record exists for the date and it is marked present.
+     */
+    public boolean isPresentOn(LocalDate date) {
+        int idx = indexOf(date);
+        return idx >= 0 && present.get(idx);
+    }
+
+    public void clear() {
+        held.clear();
+        present.clear();
+        conducted = 0;
+        attended = 0;
+    }
+
+    public int getConducted() {
+        return conducted;
+    }
+
+    public int getAttended() {
+        return attended;
+    }
+
+    /**
+     * Materialize the history as records, oldest first.
+     */
+    public List<AttendanceRecord> toRecords() {
+        List<AttendanceRecord> records = new ArrayList<>(conducted);
+        for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+            records.add(new AttendanceRecord(LocalDate.ofEpochDay(baseDay + i), present.get(i)));
+        }
+        return records;
+    }
+
+    // ───── Internals ─────
+
+    /**
+     * Bit index for a date, or -1 if it falls outside the stored range.
+     */
+    private int indexOf(LocalDate date) {
+        if (date == null || conducted == 0) {
+            return -1;
+        }
+        long offset = date.toEpochDay() - baseDay;
+        return (offset < 0 || offset > Integer.MAX_VALUE) ? -1 : (int) offset;
+    }
+
+    private int toIndex(long day) {
+        long offset = day - baseDay;
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Date too far from the first record: " + LocalDate.ofEpochDay(day));
+        }
+        return (int) offset;
+    }
+
+    /**
+     * Move bit 0 to an earlier epoch day, shifting existing bits up.
+     */
+    private void rebase(long newBaseDay) {
+        long shift = baseDay - newBaseDay;
+        BitSet newHeld = new BitSet();
+        BitSet newPresent = new BitSet();
+        for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+            int j = Math.toIntExact(i + shift);
+            newHeld.set(j);
+            if (present.get(i)) {
+                newPresent.set(j);
+            }
+        }
+        held = newHeld;
+        present = newPresent;
+        baseDay = newBaseDay;
+    }
+}
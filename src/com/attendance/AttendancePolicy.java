@@ -0,0 +1,136 @@
+package com.attendance;
+
+import java.util.OptionalInt;
+
+/**
+ * Attendance eligibility policy — the minimum percentage a student must keep.
+ * The threshold is held in basis points (75% = 7500) so every check and solver
+ * is exact integer arithmetic; no floating-point boundary surprises and no
+ * one-class-at-a-time loops.
+ */
+public final class AttendancePolicy {
+
+    public static final int FULL_BASIS_POINTS = 10_000; // 100%
+    public static final double DEFAULT_PERCENTAGE = 75.0;
+    public static final AttendancePolicy DEFAULT = new AttendancePolicy(7_500);
+    public static final String UNREACHABLE = "Cannot reach threshold";
+
+    private final int thresholdBp;
+
+    private AttendancePolicy(int thresholdBp) {
+        this.thresholdBp = thresholdBp;
+    }
+
+    /**
+     * Policy for a percentage such as 75 or 66.67 (rounded to 0.01%).
+     */
+    public static AttendancePolicy ofPercentage(double percentage) {
+        if (Double.isNaN(percentage) || percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Required percentage must be between 0 and 100: " + percentage);
+        }
+        int bp = (int) Math.round(percentage * 100);
+        return bp == DEFAULT.thresholdBp ? DEFAULT : new AttendancePolicy(bp);
+    }
+
+    public int getThresholdBasisPoints() {
+        return thresholdBp;
+    }
+
+    public double getThresholdPercentage() {
+        return thresholdBp / 100.0;
+    }
+
+    /**
+     * Threshold for display, e.g. "75%" or "66.67%".
+     */
+    public String getThresholdLabel() {
+        return (thresholdBp % 100 == 0)
+                ? (thresholdBp / 100) + "%"
+                : String.format("%.2f%%", getThresholdPercentage());
+    }
+
+    // ───── Checks ─────
+
+    /**
+     * True if attended / conducted meets the threshold (no classes yet counts as 100%).
+     */
+    public boolean meets(int attended, int conducted) {
+        return conducted == 0 || (long) attended * FULL_BASIS_POINTS >= (long) thresholdBp * conducted;
+    }
+
+    public boolean meets(Subject subject) {
+        return meets(subject.getClassesAttended(), subject.getClassesConducted());
+    }
+
+    /**
+     * For already-computed percentages (projections, overall averages).
+     */
+    public boolean meetsPercentage(double percentage) {
+        return percentage >= getThresholdPercentage();
+    }
+
+    // ───── Solvers ─────
+
+    /**
+     * Largest k such that missing the next k classes keeps attended / (conducted + k)
+     * at or above the threshold. 0 if already below it or nothing is conducted yet;
+     * Integer.MAX_VALUE for a 0% policy.
+     *
+     * Closed form: floor(attended * 10000 / bp) - conducted.
+     */
+    public int safeBunks(int attended, int conducted) {
+        if (conducted == 0) {
+            return 0;
+        }
+        if (thresholdBp == 0) {
+            return Integer.MAX_VALUE;
+        }
+        long k = (long) attended * FULL_BASIS_POINTS / thresholdBp - conducted;
+        return (int) Math.max(0, Math.min(k, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Smallest n such that attending the next n classes brings
+     * (attended + n) / (conducted + n) up to the threshold. 0 if already met;
+     * empty if no number of classes will do (a 100% policy after any absence).
+     *
+     * Closed form: ceil((bp * conducted - 10000 * attended) / (10000 - bp)).
+     */
+    public OptionalInt classesNeeded(int attended, int conducted) {
+        long deficit = (long) thresholdBp * conducted - (long) attended * FULL_BASIS_POINTS;
+        if (conducted == 0 || deficit <= 0) {
+            return OptionalInt.of(0);
+        }
+        long gainPerClass = FULL_BASIS_POINTS - thresholdBp;
+        if (gainPerClass <= 0) {
+            return OptionalInt.empty();
+        }
+        long n = (deficit + gainPerClass - 1) / gainPerClass;
+        return n <= Integer.MAX_VALUE ? OptionalInt.of((int) n) : OptionalInt.empty();
+    }
+
+    public int safeBunks(Subject subject) {
+        return safeBunks(subject.getClassesAttended(), subject.getClassesConducted());
+    }
+
+    public OptionalInt classesNeeded(Subject subject) {
+        return classesNeeded(subject.getClassesAttended(), subject.getClassesConducted());
+    }
+
+    /**
+     * What to tell a student below the threshold, e.g. "Attend next 4 classes"
+     * or "Cannot reach threshold" when no number of classes will do.
+     */
+    public String recoveryAdvice(int attended, int conducted) {
+        OptionalInt needed = classesNeeded(attended, conducted);
+        if (!needed.isPresent()) {
+            return UNREACHABLE;
+        }
+        int n = needed.getAsInt();
+        return "Attend next " + n + (n == 1 ? " class" : " classes");
+    }
+
+    public String recoveryAdvice(Subject subject) {
+        return recoveryAdvice(subject.getClassesAttended(), subject.getClassesConducted());
+    }
+}
@@ -0,0 +1,110 @@
+package com.attendance;
+
+import java.util.OptionalInt;
+import java.util.Random;
+
+/**
+ * Property check of AttendancePolicy's closed-form solvers against a
+ * brute-force search over random (attended, conducted, threshold) triples.
+ * Thresholds are drawn from the edges (0%, 100%, 99.99%, 75%, 66.67%) as well
+ * as uniformly, so both the unreachable and the unlimited cases come up.
+ *
+ * Usage: java com.attendance.AttendancePolicyCheck [trials] [seed]
+ *
+ * Needs no database. Prints the seed so a failure can be replayed; exits
+ * with status 1 if a check fails.
+ */
+public class AttendancePolicyCheck {
+
+    private static final int MAX_CONDUCTED = 200;
+    private static final int[] EDGE_THRESHOLDS = { 0, 1, 6_667, 7_500, 9_999, AttendancePolicy.FULL_BASIS_POINTS };
+
+    public static void main(String[] args) {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        Random random = new Random(seed);
+        System.out.println("seed " + seed + ", " + trials + " trials");
+
+        int meetsWrong = 0;
+        int safeBunksWrong = 0;
+        int classesNeededWrong = 0;
+        for (int i = 0; i < trials; i++) {
+            int conducted = random.nextInt(MAX_CONDUCTED + 1);
+            int attended = conducted == 0 ? 0 : random.nextInt(conducted + 1);
+            int bp = random.nextBoolean()
+                    ? EDGE_THRESHOLDS[random.nextInt(EDGE_THRESHOLDS.length)]
+                    : random.nextInt(AttendancePolicy.FULL_BASIS_POINTS + 1);
+            AttendancePolicy policy = AttendancePolicy.ofPercentage(bp / 100.0);
+
+            if (policy.meets(attended, conducted) != bruteMeets(attended, conducted, bp)) {
+                meetsWrong += report("meets", attended, conducted, bp, policy.meets(attended, conducted));
+            }
+            int safeBunks = policy.safeBunks(attended, conducted);
+            if (safeBunks != bruteSafeBunks(attended, conducted, bp)) {
+                safeBunksWrong += report("safeBunks", attended, conducted, bp, safeBunks);
+            }
+            OptionalInt needed = policy.classesNeeded(attended, conducted);
+            if (!needed.equals(bruteClassesNeeded(attended, conducted, bp))) {
+                classesNeededWrong += report("classesNeeded", attended, conducted, bp, needed);
+            }
+        }
+        Checks.check(meetsWrong == 0, "meets agrees with the exact ratio (" + meetsWrong + " mismatches)");
+        Checks.check(safeBunksWrong == 0, "safeBunks agrees with brute force (" + safeBunksWrong + " mismatches)");
+        Checks.check(classesNeededWrong == 0, "classesNeeded agrees with brute force (" + classesNeededWrong + " mismatches)");
+        Checks.check(!AttendancePolicy.ofPercentage(100).classesNeeded(9, 10).isPresent(),
+                "classesNeeded is empty when 100% is required after an absence");
+        Checks.check(AttendancePolicy.DEFAULT.recoveryAdvice(0, 1).equals("Attend next 3 classes")
+                && AttendancePolicy.ofPercentage(100).recoveryAdvice(0, 1).equals(AttendancePolicy.UNREACHABLE),
+                "recoveryAdvice names the count, or says the threshold can't be reached");
+
+        Checks.exit();
+    }
+
+    // ───── Brute force ─────
+
+    /**
+     * attended / conducted >= bp / 10000, with no classes counting as 100%.
+     */
+    private static boolean bruteMeets(long attended, long conducted, int bp) {
+        return conducted == 0 || attended * AttendancePolicy.FULL_BASIS_POINTS >= bp * conducted;
+    }
+
+    /**
+     * Count how many more absences keep the ratio at the threshold.
+     */
+    private static int bruteSafeBunks(int attended, int conducted, int bp) {
+        if (conducted == 0) {
+            return 0;
+        }
+        if (bp == 0) {
+            return Integer.MAX_VALUE;
+        }
+        int k = 0;
+        while (bruteMeets(attended, conducted + k + 1L, bp)) {
+            k++;
+        }
+        return bruteMeets(attended, conducted, bp) ? k : 0;
+    }
+
+    /**
+     * Attend one class at a time until the threshold is met. Past
+     * 10000 * conducted more classes it never will be (the closed form's
+     * bound at 99.99%), so stop there and call it unreachable.
+     */
+    private static OptionalInt bruteClassesNeeded(int attended, int conducted, int bp) {
+        long limit = (long) AttendancePolicy.FULL_BASIS_POINTS * conducted;
+        for (int n = 0; n <= limit; n++) {
+            if (bruteMeets(attended + n, conducted + n, bp)) {
+                return OptionalInt.of(n);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    // ───── Reporting ─────
+
+    private static int report(String what, int attended, int conducted, int bp, Object got) {
+        System.out.println("  " + what + "(" + attended + ", " + conducted + ") at " + bp + " bp returned " + got);
+        return 1;
+    }
+}
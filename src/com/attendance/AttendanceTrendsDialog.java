@@ -14,7 +14,7 @@ import javax.swing.*;
  * - Interactive legend for subject highlighting
  * - Rounded bars with vertical gradients
  * - Subject initials for easy identification
- * - Glow effect on 75% threshold and overall trend lines
+ * - Glow effect on the student's threshold (their AttendancePolicy) and overall trend lines
  * - Premium dark/light theme support
  */
 public class AttendanceTrendsDialog extends JDialog {
@@ -43,12 +43,14 @@ public class AttendanceTrendsDialog extends JDialog {
     };
 
     private Subject highlightedSubject = null;
+    private final AttendancePolicy policy;
     private final ChartPanel chartPanel;
 
     public AttendanceTrendsDialog(Frame owner, Student student) {
         super(owner, "📊 Attendance Trends", true);
         setSize(950, 650);
         setLocationRelativeTo(owner);
+        policy = student.getAttendancePolicy();
 
         JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.setBackground(BG_COLOR);
@@ -116,7 +118,7 @@ public class AttendanceTrendsDialog extends JDialog {
             legendWrapper.add(createLegendItem(s.getName(), color, s, true));
         }
 
-        legendWrapper.add(createLegendItem("75% Goal", RED, null, false));
+        legendWrapper.add(createLegendItem(policy.getThresholdLabel() + " Goal", RED, null, false));
 
         mainPanel.add(legendWrapper, BorderLayout.SOUTH);
 
@@ -164,21 +166,26 @@ public class AttendanceTrendsDialog extends JDialog {
         Map<Subject, List<double[]>> result = new LinkedHashMap<>();
         for (Subject subject : subjects) {
             List<AttendanceRecord> records = subject.getAttendanceHistory();
-            if (records.isEmpty()) {
-                result.put(subject, new ArrayList<>());
-                continue;
-            }
+            OpeningBalance balance = subject.getOpeningBalance();
             List<AttendanceRecord> sorted = new ArrayList<>(records);
             sorted.sort(Comparator.comparing(r -> r.getDate() != null ? r.getDate() : LocalDate.MIN));
             sorted.removeIf(r -> r.getDate() == null);
             if (sorted.isEmpty()) {
-                result.put(subject, new ArrayList<>());
+                // Nothing recorded yet — the opening balance alone is the first point
+                List<double[]> start = new ArrayList<>();
+                if (balance != null && balance.getConducted() > 0) {
+                    start.add(new double[] { 0, (double) balance.getAttended() / balance.getConducted() * 100.0 });
+                }
+                result.put(subject, start);
                 continue;
             }
 
             LocalDate firstDate = sorted.get(0).getDate();
             List<double[]> weekPoints = new ArrayList<>();
-            int cumAttended = 0, cumConducted = 0, currentWeek = 0;
+            // Cumulative percentages start from the opening balance, if any
+            int cumAttended = balance != null ? balance.getAttended() : 0;
+            int cumConducted = balance != null ? balance.getConducted() : 0;
+            int currentWeek = 0;
 
             for (AttendanceRecord record : sorted) {
                 int weekNum = (int) ChronoUnit.WEEKS.between(firstDate, record.getDate());
@@ -246,7 +253,7 @@ public class AttendanceTrendsDialog extends JDialog {
             }
 
             // ── Threshold ──
-            int threshY = chartBottom - (int) (0.75 * chartHeight);
+            int threshY = chartBottom - (int) (policy.getThresholdPercentage() / 100.0 * chartHeight);
             g2.setColor(new Color(RED.getRed(), RED.getGreen(), RED.getBlue(), 40));
             g2.setStroke(new BasicStroke(5f));
             g2.drawLine(chartLeft, threshY, chartRight, threshY);
@@ -358,7 +365,7 @@ public class AttendanceTrendsDialog extends JDialog {
                     double d = Math.sqrt(Math.pow(mx - x, 2) + Math.pow(my - y, 2));
                     if (d < minDist) {
                         minDist = d;
-                        String status = p[1] >= 75 ? "ELIGIBLE ✓" : "LOW ATTENDANCE ⚠";
+                        String status = policy.meetsPercentage(p[1]) ? "ELIGIBLE ✓" : "LOW ATTENDANCE ⚠";
                         best = String.format("%s\nWeek %d\n%.1f%% - %s", s.getName(), (int)p[0] + 1, p[1], status);
                     }
                 }
@@ -368,13 +375,26 @@ public class AttendanceTrendsDialog extends JDialog {
         }
 
         private List<double[]> computeOverallTrend() {
+            int cA = 0, cC = 0;
+            for (Subject s : subjects) {
+                OpeningBalance balance = s.getOpeningBalance();
+                if (balance != null) {
+                    cA += balance.getAttended();
+                    cC += balance.getConducted();
+                }
+            }
             LocalDate refDate = null;
             for (Subject s : subjects) {
                 for (AttendanceRecord r : s.getAttendanceHistory()) {
                     if (r.getDate() != null && (refDate == null || r.getDate().isBefore(refDate))) refDate = r.getDate();
                 }
             }
-            if (refDate == null) return new ArrayList<>();
+            List<double[]> res = new ArrayList<>();
+            if (refDate == null) {
+                // No records yet — start from the opening balances, if any
+                if (cC > 0) res.add(new double[]{0, (double) cA / cC * 100.0});
+                return res;
+            }
             TreeMap<Integer, int[]> weekMap = new TreeMap<>();
             for (Subject s : subjects) {
                 for (AttendanceRecord r : s.getAttendanceHistory()) {
@@ -385,8 +405,6 @@ public class AttendanceTrendsDialog extends JDialog {
                     if (r.isPresent()) weekMap.get(week)[0]++;
                 }
             }
-            List<double[]> res = new ArrayList<>();
-            int cA = 0, cC = 0;
             for (Map.Entry<Integer, int[]> e : weekMap.entrySet()) {
                 cA += e.getValue()[0]; cC += e.getValue()[1];
                 res.add(new double[]{e.getKey(), (double) cA / cC * 100.0});
@@ -0,0 +1,396 @@
+package com.attendance;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for attendance marks.
+ * The UI updates the in-memory Subject immediately and enqueues the write here;
+ * a background thread flushes pending writes to MySQL in JDBC batches.
+ *
+ * - Writes are coalesced per (subject, date): the last write wins
+ * - Every enqueue returns a future that completes once the value is committed
+ * - A pending-write counter is published to listeners (e.g. the dashboard)
+ * - DatabaseManager flushes the queue before reads and bulk edits, and on exit
+ * - At most one background flush is queued at a time; a failed flush is
+ *   retried with DbResilience's exponential backoff
+ * - Every write is journaled (WriteJournal) before it is queued, so marks
+ *   made while MySQL is unreachable survive a restart and are replayed
+ */
+public class AttendanceWriteQueue {
+
+    /**
+     * Notified whenever the number of unflushed writes changes.
+     * Called from arbitrary threads — Swing listeners must hop to the EDT.
+     */
+    public interface PendingWritesListener {
+        void onPendingWritesChanged(int pendingCount);
+    }
+
+    private final DatabaseManager db;
+    private final WriteJournal journal;
+    private final Map<Key, PendingWrite> pending = new LinkedHashMap<>(); // guarded by this
+    private final Object flushLock = new Object(); // serializes flushes so batches commit in order
+    private final List<PendingWritesListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService flusher;
+    private ScheduledFuture<?> scheduledFlush; // Queued and not yet started, else null; guarded by this
+    private boolean retrying; // The last flush failed; the queued flush is its backoff retry; guarded by this
+    private int consecutiveFailures = 0; // guarded by flushLock
+
+    AttendanceWriteQueue(DatabaseManager db, WriteJournal journal) {
+        this.db = db;
+        this.journal = journal;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AttendanceWriteQueue-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ───── Enqueue ─────
+
+    /**
+     * Queue an upsert of a single attendance record.
+     */
+    public CompletableFuture<Void> save(int subjectId, LocalDate date, boolean present) {
+        return enqueue(subjectId, date, present);
+    }
+
+    /**
+     * Queue deletion of the record for a date (e.g. undo).
+     */
+    public CompletableFuture<Void> delete(int subjectId, LocalDate date) {
+        return enqueue(subjectId, date, null);
+    }
+
+    private CompletableFuture<Void> enqueue(int subjectId, LocalDate date, Boolean present) {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        int size;
+        synchronized (this) {
+            WriteJournal.Entry entry = (present != null)
+                    ? journal.append(WriteJournal.Kind.MARK, subjectId, date, present)
+                    : journal.append(WriteJournal.Kind.UNMARK, subjectId, date);
+            PendingWrite write = new PendingWrite(subjectId, date, present);
+            write.acks.add(ack);
+            size = put(write, entry.seq);
+        }
+        notifyListeners(size);
+        return ack;
+    }
+
+    /**
+     * Queue the marks left in the journal by the last session (at startup).
+     * They are already journaled, so they aren't appended again.
+     */
+    void resume(List<WriteJournal.Entry> entries) {
+        int size = 0;
+        synchronized (this) {
+            for (WriteJournal.Entry e : entries) {
+                if (e.kind == WriteJournal.Kind.MARK) {
+                    size = put(new PendingWrite(e.intArg(0), e.dateArg(1), e.booleanArg(2)), e.seq);
+                } else if (e.kind == WriteJournal.Kind.UNMARK) {
+                    size = put(new PendingWrite(e.intArg(0), e.dateArg(1), null), e.seq);
+                }
+            }
+        }
+        if (size > 0) {
+            notifyListeners(size);
+        }
+    }
+
+    /**
+     * Add a write, superseding any pending one for the same record, and
+     * schedule a flush. Caller holds this.
+     *
+     * @return the new pending count
+     */
+    private int put(PendingWrite write, long journalSeq) {
+        Key key = new Key(write.subjectId, write.date);
+        write.journalSeqs.add(journalSeq);
+        PendingWrite superseded = pending.remove(key);
+        if (superseded != null) {
+            // Older callers (and journal entries) are settled once the newer value is durable
+            write.acks.addAll(0, superseded.acks);
+            write.journalSeqs.addAll(superseded.journalSeqs);
+        }
+        pending.put(key, write);
+        int size = pending.size();
+
+        boolean full = size >= DatabaseConfig.WRITE_BATCH_MAX;
+        if (scheduledFlush == null) {
+            scheduleFlush(full ? 0 : DatabaseConfig.WRITE_FLUSH_INTERVAL_MS);
+        } else if (full && !retrying && scheduledFlush.getDelay(TimeUnit.MILLISECONDS) > 0
+                && scheduledFlush.cancel(false)) {
+            scheduleFlush(0); // Bring the coalescing flush forward, once
+        }
+        return size;
+    }
+
+    /**
+     * Drop queued writes for a subject that is being deleted.
+     * Their futures complete normally — the rows are going away anyway.
+     */
+    public void discardSubject(int subjectId) {
+        List<PendingWrite> dropped = new ArrayList<>();
+        int size;
+        synchronized (this) {
+            Iterator<PendingWrite> it = pending.values().iterator();
+            while (it.hasNext()) {
+                PendingWrite w = it.next();
+                if (w.subjectId == subjectId) {
+                    dropped.add(w);
+                    it.remove();
+                }
+            }
+            size = pending.size();
+        }
+        for (PendingWrite w : dropped) {
+            settle(w, null);
+        }
+        notifyListeners(size);
+    }
+
+    // ───── Flushing ─────
+
+    /**
+     * Flush everything queued so far on the calling thread.
+     *
+     * @throws SQLException if the batch could not be written; the writes stay
+     *                      queued and a background retry is scheduled
+     */
+    public void flush() throws SQLException {
+        synchronized (flushLock) {
+            List<PendingWrite> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+
+            try {
+                if (consecutiveFailures >= DatabaseConfig.MAX_RETRIES) {
+                    writeIndividually(batch); // Isolate rows that keep failing the whole batch
+                } else {
+                    db.writeAttendanceBatch(batch);
+                    for (PendingWrite w : batch) {
+                        settle(w, null);
+                    }
+                }
+                consecutiveFailures = 0;
+                synchronized (this) {
+                    retrying = false;
+                }
+            } catch (SQLException e) {
+                consecutiveFailures++;
+                requeue(batch);
+                scheduleRetry(DbResilience.backoffMillis(consecutiveFailures));
+                throw e;
+            } finally {
+                notifyListeners(getPendingCount());
+            }
+        }
+    }
+
+    /**
+     * Flush, logging instead of throwing. Failed writes stay queued and are
+     * retried in the background with exponential backoff.
+     */
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.err.println("Error flushing attendance writes (will retry): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replace any queued flush with a retry after delayMs. Until a flush
+     * succeeds, new writes don't bring it forward.
+     */
+    private synchronized void scheduleRetry(long delayMs) {
+        retrying = true;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduleFlush(delayMs);
+    }
+
+    /**
+     * Queue the background flush. Caller holds this.
+     */
+    private void scheduleFlush(long delayMs) {
+        scheduledFlush = flusher.isShutdown()
+                ? null
+                : flusher.schedule(this::runScheduledFlush, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runScheduledFlush() {
+        synchronized (this) {
+            scheduledFlush = null; // Writes queued from now on are in this flush's batch or schedule the next
+        }
+        flushQuietly();
+    }
+
+    /**
+     * Stop the background thread after a final flush (called on exit).
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    /**
+     * True if a write for this record is queued and not yet flushed.
+     */
+    public synchronized boolean isPending(int subjectId, LocalDate date) {
+        return pending.containsKey(new Key(subjectId, date));
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public void addPendingWritesListener(PendingWritesListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removePendingWritesListener(PendingWritesListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Fallback after repeated batch failures: write rows one by one so a single
+     * permanently failing row (e.g. its subject was deleted elsewhere) is
+     * reported to its caller instead of blocking every other write.
+     */
+    private void writeIndividually(List<PendingWrite> batch) throws SQLException {
+        for (PendingWrite w : batch) {
+            try {
+                db.writeAttendanceBatch(Collections.singletonList(w));
+                settle(w, null);
+            } catch (SQLException e) {
+                if (!db.testConnection()) {
+                    throw e; // Database is down, not a bad row — requeue everything
+                }
+                System.err.println("Dropping attendance write for subject " + w.subjectId
+                        + " on " + w.date + ": " + e.getMessage());
+                settle(w, e);
+            }
+        }
+    }
+
+    /**
+     * Put a failed batch back, unless a newer write for the same key arrived
+     * meanwhile — in that case the newer write also acknowledges the old callers.
+     */
+    private void requeue(List<PendingWrite> batch) {
+        synchronized (this) {
+            for (PendingWrite w : batch) {
+                if (w.isAcknowledged()) {
+                    continue;
+                }
+                Key key = new Key(w.subjectId, w.date);
+                PendingWrite newer = pending.get(key);
+                if (newer != null) {
+                    newer.acks.addAll(0, w.acks);
+                    newer.journalSeqs.addAll(w.journalSeqs);
+                } else {
+                    pending.put(key, w);
+                }
+            }
+        }
+    }
+
+    /**
+     * Acknowledge a write's callers and retire its journal entries.
+     */
+    private void settle(PendingWrite w, Throwable failure) {
+        w.acknowledge(failure);
+        for (long seq : w.journalSeqs) {
+            journal.markDone(seq);
+        }
+    }
+
+    private void notifyListeners(int size) {
+        for (PendingWritesListener l : listeners) {
+            l.onPendingWritesChanged(size);
+        }
+    }
+
+    // ───── Queue entries ─────
+
+    /**
+     * A queued write. present == null means "delete the record".
+     */
+    static final class PendingWrite {
+        final int subjectId;
+        final LocalDate date;
+        final Boolean present;
+        private final List<CompletableFuture<Void>> acks = new ArrayList<>();
+        private final List<Long> journalSeqs = new ArrayList<>(); // Journal entries this write settles
+
+        PendingWrite(int subjectId, LocalDate date, Boolean present) {
+            this.subjectId = subjectId;
+            this.date = date;
+            this.present = present;
+        }
+
+        boolean isDelete() {
+            return present == null;
+        }
+
+        private boolean isAcknowledged() {
+            return !acks.isEmpty() && acks.get(acks.size() - 1).isDone();
+        }
+
+        private void acknowledge(Throwable failure) {
+            for (CompletableFuture<Void> ack : acks) {
+                if (failure == null) {
+                    ack.complete(null);
+                } else {
+                    ack.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    private static final class Key {
+        final int subjectId;
+        final LocalDate date;
+
+        Key(int subjectId, LocalDate date) {
+            this.subjectId = subjectId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return subjectId == other.subjectId && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subjectId, date);
+        }
+    }
+}
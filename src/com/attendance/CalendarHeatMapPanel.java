@@ -21,6 +21,8 @@ import java.util.Map;
  * - Red (#f38ba8) = Absent
  * - Gray (#585b70) = No class / Holiday
  * - Current day gets a highlighted border
+ * - The opening-balance date (if any) gets a dashed border; earlier unmarked
+ *   days are covered by the balance rather than shown as fake records
  * 
  * Navigable by month with prev/next buttons.
  */
@@ -44,15 +46,17 @@ public class CalendarHeatMapPanel extends JPanel {
 
     private YearMonth currentMonth;
     private final Map<LocalDate, Boolean> attendanceMap; // true=present, false=absent
-    private final List<LocalDate> holidayDates;
+    private final HolidayCalendar holidayCalendar;
+    private final OpeningBalance openingBalance; // null if the subject has none
     private String tooltipText = null;
     private int tooltipX = -1;
     private int tooltipY = -1;
 
-    public CalendarHeatMapPanel(Subject subject, List<LocalDate> holidayDates) {
+    public CalendarHeatMapPanel(Subject subject, HolidayCalendar holidayCalendar) {
         this.currentMonth = YearMonth.now();
-        this.holidayDates = holidayDates;
+        this.holidayCalendar = holidayCalendar;
         this.attendanceMap = new HashMap<>();
+        this.openingBalance = subject.getOpeningBalance();
 
         // Build attendance map from subject history
         for (AttendanceRecord record : subject.getAttendanceHistory()) {
@@ -157,7 +161,7 @@ public class CalendarHeatMapPanel extends JPanel {
                     cellColor = darken(RED, 0.4f);
                     textColor = RED;
                 }
-            } else if (holidayDates.contains(date)) {
+            } else if (holidayCalendar.isHoliday(date)) {
                 cellColor = darken(YELLOW, 0.5f);
                 textColor = YELLOW;
             } else {
@@ -175,6 +179,12 @@ public class CalendarHeatMapPanel extends JPanel {
                 g2.setStroke(new BasicStroke(2.5f));
                 g2.drawRoundRect(x, y, CELL_SIZE, CELL_SIZE, 8, 8);
                 g2.setStroke(new BasicStroke(1f));
+            } else if (openingBalance != null && date.equals(openingBalance.getAsOf())) {
+                g2.setColor(SUBTEXT_COLOR);
+                g2.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND,
+                        10f, new float[] { 4f, 3f }, 0f));
+                g2.drawRoundRect(x, y, CELL_SIZE, CELL_SIZE, 8, 8);
+                g2.setStroke(new BasicStroke(1f));
             }
 
             // Draw day number
@@ -234,11 +244,17 @@ public class CalendarHeatMapPanel extends JPanel {
         String status;
         if (attendanceMap.containsKey(date)) {
             status = attendanceMap.get(date) ? "✅ Present" : "❌ Absent";
-        } else if (holidayDates.contains(date)) {
+        } else if (holidayCalendar.isHoliday(date)) {
             status = "🏖️ Holiday";
+        } else if (openingBalance != null && date.isBefore(openingBalance.getAsOf())) {
+            status = "— Before tracking (in opening balance)";
         } else {
             status = "— No class";
         }
+        if (openingBalance != null && date.equals(openingBalance.getAsOf())) {
+            status += "  |  📌 Opening balance: " + openingBalance.getAttended() + "/"
+                    + openingBalance.getConducted();
+        }
 
         tooltipText = date + " : " + status;
         tooltipX = mx;
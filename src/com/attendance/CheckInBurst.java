@@ -0,0 +1,94 @@
+package com.attendance;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic check-in burst for exercising CheckInIngestor headlessly —
+ * many producer threads checking students in as fast as they can. Every
+ * check-in is a distinct (section, student) pair, so each one has to reach
+ * the writer; 1 in DOUBLE_TAP_EVERY is followed by a double tap, which the
+ * ingestor deduplicates in memory. Throughput is reported separately for
+ * offers (including double taps) and for check-ins written.
+ *
+ * Usage: java com.attendance.CheckInBurst [checkIns] [producers] [--mysql]
+ *
+ * Without --mysql, batches go to an in-memory stand-in that sleeps
+ * BATCH_COST_MS per batch to mimic a round trip. With --mysql they go to the
+ * configured database (sections 1..SECTIONS must exist, each with students
+ * 1..checkIns/SECTIONS enrolled).
+ */
+public class CheckInBurst {
+
+    private static final int SECTIONS = 20;
+    private static final int DOUBLE_TAP_EVERY = 20;
+    private static final long BATCH_COST_MS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        boolean mysql = args.length > 2 && args[2].equals("--mysql");
+
+        Map<CheckInIngestor.CheckIn, Boolean> store = new ConcurrentHashMap<>();
+        CheckInIngestor ingestor = mysql
+                ? new CheckInIngestor(DatabaseManager.getInstance())
+                : new CheckInIngestor(batch -> {
+                    try {
+                        Thread.sleep(BATCH_COST_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (CheckInIngestor.CheckIn c : batch) {
+                        store.put(c, Boolean.TRUE);
+                    }
+                }, DatabaseConfig.CHECKIN_QUEUE_CAPACITY, DatabaseConfig.CHECKIN_BATCH_MAX);
+
+        LocalDate today = LocalDate.now();
+        Thread[] threads = new Thread[producers];
+        long start = System.nanoTime();
+        for (int p = 0; p < producers; p++) {
+            int first = p;
+            threads[p] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                // Producer p takes check-ins p, p + producers, ... — one per (section, student)
+                for (int i = first; i < total; i += producers) {
+                    int section = 1 + i % SECTIONS;
+                    int student = 1 + i / SECTIONS;
+                    offer(ingestor, section, student, today);
+                    if (random.nextInt(DOUBLE_TAP_EVERY) == 0) {
+                        offer(ingestor, section, student, today);
+                    }
+                }
+            }, "CheckInBurst-producer-" + p);
+            threads[p].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        double offerSeconds = (System.nanoTime() - start) / 1e9;
+        boolean drained = ingestor.shutdown(30, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long offers = ingestor.getAcceptedCount() + ingestor.getDuplicateCount();
+        System.out.printf("%d offers (%d double taps deduplicated) from %d producers in %.2f s (%.0f offers/s)%n",
+                offers, ingestor.getDuplicateCount(), producers, offerSeconds, offers / offerSeconds);
+        System.out.printf("%d distinct check-ins written in %.2f s (%.0f written/s)%n",
+                ingestor.getWrittenCount(), seconds, ingestor.getWrittenCount() / seconds);
+        System.out.println(ingestor);
+        if (!mysql) {
+            System.out.println("distinct stored: " + store.size());
+        }
+        if (!drained) {
+            System.out.println("WARNING: queue not fully drained");
+        }
+    }
+
+    private static void offer(CheckInIngestor ingestor, int section, int student, LocalDate date) {
+        while (ingestor.offer(section, student, date) == CheckInIngestor.Result.REJECTED) {
+            Thread.yield(); // Backpressure — a real client would back off
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.attendance;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ingestion pipeline for student self check-ins (e.g. a code entered at the
+ * door during a short window). A burst of check-ins is absorbed in memory and
+ * written to MySQL in micro-batches, instead of one saveAttendanceRecord
+ * round trip each.
+ *
+ * - Bounded, lock-free: a ConcurrentLinkedQueue plus an atomic slot counter
+ * - Deduplicated per (section, student, date) while queued — a student
+ *   tapping twice costs nothing
+ * - Backpressure: offer() never blocks; it answers REJECTED when the queue is
+ *   full, and isUnderPressure() turns true above CHECKIN_HIGH_WATER so the
+ *   front end can slow down before that
+ * - One daemon thread drains up to CHECKIN_BATCH_MAX check-ins at a time and
+ *   hands them to a BatchWriter (DatabaseManager.writeCheckIns by default,
+ *   one multi-row upsert per batch)
+ * - Failures are classified with DbResilience.isTransient: a transient one
+ *   (database down, deadlock) is retried; a permanent one, or MAX_RETRIES
+ *   failures in a row, splits the batch into single rows so a bad check-in
+ *   (e.g. an unknown section) is dropped and counted instead of blocking
+ *   every later one. After shutdown() a batch is given up once it has
+ *   failed MAX_RETRIES times, so the drainer always stops
+ * - Metrics: accepted / duplicate / rejected / written / dropped counts, batch count,
+ *   and average and max batch write and end-to-end latency
+ */
+public class CheckInIngestor {
+
+    /**
+     * Outcome of offer().
+     */
+    public enum Result {
+        ACCEPTED,
+        DUPLICATE, // Same check-in is already queued
+        REJECTED // Queue full — the caller should retry later
+    }
+
+    /**
+     * Persists one batch; must be all-or-nothing. Swappable so the pipeline
+     * can run headlessly against an in-memory stand-in.
+     */
+    public interface BatchWriter {
+        void write(List<CheckIn> batch) throws SQLException;
+    }
+
+    private final BatchWriter writer;
+    private final int capacity;
+    private final int batchMax;
+    private final ConcurrentLinkedQueue<CheckIn> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(); // Reserved slots, >= queue.size()
+    private final Set<CheckIn> queued = ConcurrentHashMap.newKeySet(); // For deduplication
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    // Metrics
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder(); // Rejected by the database for good
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final LongAccumulator maxBatchNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Ingest into the database with the configured limits.
+     */
+    public CheckInIngestor(DatabaseManager db) {
+        this(db::writeCheckIns, DatabaseConfig.CHECKIN_QUEUE_CAPACITY, DatabaseConfig.CHECKIN_BATCH_MAX);
+    }
+
+    public CheckInIngestor(BatchWriter writer, int capacity, int batchMax) {
+        if (capacity < 1 || batchMax < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        this.writer = writer;
+        this.capacity = capacity;
+        this.batchMax = batchMax;
+        this.drainer = new Thread(this::drainLoop, "CheckInIngestor-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    // ───── Intake ─────
+
+    /**
+     * Queue a check-in of a student into a section's class on a date.
+     * Never blocks.
+     */
+    public Result offer(int sectionId, int studentId, LocalDate date) {
+        if (!running) {
+            rejected.increment();
+            return Result.REJECTED;
+        }
+        CheckIn checkIn = new CheckIn(sectionId, studentId, date, System.nanoTime());
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            rejected.increment();
+            return Result.REJECTED;
+        }
+        if (!queued.add(checkIn)) {
+            size.decrementAndGet();
+            duplicates.increment();
+            return Result.DUPLICATE;
+        }
+        queue.offer(checkIn);
+        accepted.increment();
+        if (size.get() >= batchMax) {
+            LockSupport.unpark(drainer); // A full batch is ready — don't wait for the interval
+        }
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * True once the queue is past its high-water mark; callers should slow
+     * down (e.g. show "please wait") before check-ins start being rejected.
+     */
+    public boolean isUnderPressure() {
+        return size.get() >= capacity * DatabaseConfig.CHECKIN_HIGH_WATER;
+    }
+
+    public int getQueueDepth() {
+        return size.get();
+    }
+
+    /**
+     * Stop accepting check-ins, write everything still queued, and stop the
+     * drainer. Waits up to the given time.
+     *
+     * @return true if the queue was fully drained
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(unit.toMillis(timeout));
+        return size.get() == 0;
+    }
+
+    // ───── Draining ─────
+
+    private void drainLoop() {
+        List<CheckIn> batch = new ArrayList<>(batchMax);
+        int failures = 0; // Failed attempts at the current batch, in a row
+        while (running || size.get() > 0) {
+            if (batch.isEmpty()) {
+                if (size.get() < batchMax && running) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(DatabaseConfig.CHECKIN_FLUSH_INTERVAL_MS));
+                }
+                CheckIn c;
+                while (batch.size() < batchMax && (c = queue.poll()) != null) {
+                    batch.add(c);
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            SQLException failure = writeBatch(batch);
+            if (failure == null) {
+                release(batch);
+                batch.clear();
+                failures = 0;
+                continue;
+            }
+            failures++;
+            if (!DbResilience.isTransient(failure) || failures >= DatabaseConfig.MAX_RETRIES) {
+                writeIndividually(batch); // Leaves only the rows that failed transiently
+                if (batch.isEmpty()) {
+                    failures = 0;
+                    continue;
+                }
+            }
+            if (!running && failures >= DatabaseConfig.MAX_RETRIES) {
+                System.err.println("Giving up on " + size.get() + " check-ins not written at shutdown");
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(DatabaseConfig.RETRY_DELAY_MS));
+        }
+    }
+
+    /**
+     * Write a failing batch row by row: rows that succeed are done, rows the
+     * database rejects for good are dropped, and rows that fail transiently
+     * stay in the batch — as do the rest, once one has (the database is
+     * likely down, not the row bad).
+     */
+    private void writeIndividually(List<CheckIn> batch) {
+        Iterator<CheckIn> it = batch.iterator();
+        while (it.hasNext()) {
+            List<CheckIn> one = Collections.singletonList(it.next());
+            SQLException failure = writeBatch(one);
+            if (failure != null && DbResilience.isTransient(failure)) {
+                return;
+            }
+            if (failure != null) {
+                dropped.increment();
+                CheckIn c = one.get(0);
+                System.err.println("Dropping check-in of student " + c.studentId + " into section "
+                        + c.sectionId + " on " + c.date + ": " + failure.getMessage());
+            }
+            release(one);
+            it.remove();
+        }
+    }
+
+    /**
+     * Free the queue slots of check-ins that are written or dropped.
+     */
+    private void release(List<CheckIn> done) {
+        for (CheckIn c : done) {
+            queued.remove(c); // Only now can the same check-in be queued again
+        }
+        size.addAndGet(-done.size());
+    }
+
+    /**
+     * Write one batch and record metrics.
+     *
+     * @return null if it was written, else the failure
+     */
+    private SQLException writeBatch(List<CheckIn> batch) {
+        long start = System.nanoTime();
+        try {
+            writer.write(batch);
+        } catch (SQLException e) {
+            failedBatches.increment();
+            System.err.println("Error writing " + batch.size() + " check-ins: " + e.getMessage());
+            return e;
+        }
+        long end = System.nanoTime();
+        batches.increment();
+        written.add(batch.size());
+        batchNanos.add(end - start);
+        maxBatchNanos.accumulate(end - start);
+        for (CheckIn c : batch) {
+            long latency = end - c.enqueuedNanos;
+            latencyNanos.add(latency);
+            maxLatencyNanos.accumulate(latency);
+        }
+        return null;
+    }
+
+    // ───── Metrics ─────
+
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * Check-ins the database rejected for good (never written).
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.sum();
+    }
+
+    /**
+     * Average time to write one batch, in milliseconds.
+     */
+    public double getAverageBatchMillis() {
+        long n = batches.sum();
+        return n == 0 ? 0 : batchNanos.sum() / 1e6 / n;
+    }
+
+    public double getMaxBatchMillis() {
+        return maxBatchNanos.get() / 1e6;
+    }
+
+    /**
+     * Average time from offer() to the check-in being committed, in milliseconds.
+     */
+    public double getAverageLatencyMillis() {
+        long n = written.sum();
+        return n == 0 ? 0 : latencyNanos.sum() / 1e6 / n;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("accepted=%d duplicate=%d rejected=%d written=%d dropped=%d batches=%d failed=%d "
+                + "batch avg/max=%.2f/%.2f ms latency avg/max=%.2f/%.2f ms",
+                getAcceptedCount(), getDuplicateCount(), getRejectedCount(), getWrittenCount(), getDroppedCount(),
+                getBatchCount(), getFailedBatchCount(), getAverageBatchMillis(), getMaxBatchMillis(),
+                getAverageLatencyMillis(), getMaxLatencyMillis());
+    }
+
+    // ───── Queue entries ─────
+
+    /**
+     * One check-in. Equality ignores the enqueue time, so it is the
+     * deduplication key.
+     */
+    public static final class CheckIn {
+        final int sectionId;
+        final int studentId;
+        final LocalDate date;
+        final long enqueuedNanos;
+
+        CheckIn(int sectionId, int studentId, LocalDate date, long enqueuedNanos) {
+            this.sectionId = sectionId;
+            this.studentId = studentId;
+            this.date = date;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        public int getSectionId() {
+            return sectionId;
+        }
+
+        public int getStudentId() {
+            return studentId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof CheckIn))
+                return false;
+            CheckIn other = (CheckIn) o;
+            return sectionId == other.sectionId && studentId == other.studentId && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sectionId, studentId, date);
+        }
+    }
+}
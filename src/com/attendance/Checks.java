@@ -0,0 +1,82 @@
+package com.attendance;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Scaffolding shared by the main-based checks (AttendancePolicyCheck,
+ * DbResilienceCheck, QueryPlanCheck, DeltaSyncCheck, ...): PASS/FAIL lines,
+ * the exit status, and the throwaway student the database checks work on.
+ *
+ * Exit statuses: 0 if every check passed, 1 if one failed, 2 if the
+ * database (or the test student) could not be set up.
+ */
+final class Checks {
+
+    private static int failures;
+
+    private Checks() {
+    }
+
+    static void check(boolean ok, String what) {
+        System.out.println((ok ? "PASS " : "FAIL ") + what);
+        if (!ok) {
+            failures++;
+        }
+    }
+
+    /**
+     * Print the summary and exit with status 0 or 1.
+     */
+    static void exit() {
+        System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * The configured database, migrated to the latest version; exits with
+     * status 2 if it can't be reached.
+     */
+    static DatabaseManager connect() {
+        DatabaseManager db = DatabaseManager.getInstance();
+        if (!db.testConnection() || !db.migrateSchema()) {
+            System.err.println("Database not reachable");
+            System.exit(2);
+        }
+        return db;
+    }
+
+    /**
+     * Register a throwaway student (password "x"); exits with status 2 on
+     * failure. Remove it again with deleteStudent.
+     */
+    static int registerStudent(DatabaseManager db, String name, String username) {
+        int studentId = db.registerStudent(name, username, PasswordValidator.hashPassword("x"));
+        if (studentId < 0) {
+            System.err.println("Could not register a test student");
+            System.exit(2);
+        }
+        return studentId;
+    }
+
+    /**
+     * Delete a throwaway student. Subjects, records and holidays cascade;
+     * change_log has no foreign key, so its rows are deleted first.
+     */
+    static void deleteStudent(int studentId) {
+        try (Connection conn = DriverManager.getConnection(
+                DatabaseConfig.DB_URL, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD)) {
+            for (String sql : new String[] { "DELETE FROM change_log WHERE student_id = ?",
+                    "DELETE FROM students WHERE id = ?" }) {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, studentId);
+                    pstmt.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not delete test student " + studentId + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.attendance;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small bounded JDBC connection pool used by DatabaseManager.
+ * Hands out proxies whose close() returns the physical connection to the pool,
+ * so callers keep using the usual try-with-resources pattern.
+ *
+ * - At most POOL_MAX_SIZE physical connections exist at once
+ * - Borrowing waits up to POOL_BORROW_TIMEOUT_MS, then fails with SQLTimeoutException
+ * - A failed connect is not retried here — DatabaseManager borrows through
+ *   DbResilience, so the permit is released while it backs off
+ * - Idle connections are re-validated after POOL_VALIDATE_AFTER_IDLE_MS and
+ *   closed after POOL_MAX_IDLE_MS
+ * - Connections held longer than POOL_LEAK_THRESHOLD_MS are reported once,
+ *   with the stack trace of the code that borrowed them
+ */
+public class ConnectionPool {
+
+    private static final long HOUSEKEEPING_INTERVAL_MS = 15_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final Semaphore permits;
+
+    // Most recently returned connection sits at the head (LIFO keeps hot connections warm)
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+    private final Timer housekeeper;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = new Timer("ConnectionPool-housekeeper", true); // daemon thread
+        housekeeper.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                evictIdle();
+                reportLeaks();
+            }
+        }, HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS);
+    }
+
+    /**
+     * Borrow a connection. Closing the returned connection gives it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(DatabaseConfig.POOL_BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + DatabaseConfig.POOL_BORROW_TIMEOUT_MS
+                        + " ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            Connection physical = takeIdle();
+            if (physical == null) {
+                physical = DriverManager.getConnection(url, user, password);
+            }
+            return lease(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close all idle connections and stop accepting borrows.
+     * Connections still in use are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.cancel();
+        synchronized (idle) {
+            for (IdleConnection ic : idle) {
+                closeQuietly(ic.connection);
+            }
+            idle.clear();
+        }
+    }
+
+    public int getActiveCount() {
+        return leased.size();
+    }
+
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    // ───── Internals ─────
+
+    /**
+     * Pop the most recently used idle connection, validating it if it has been
+     * idle for a while. Returns null if no usable idle connection exists.
+     */
+    private Connection takeIdle() {
+        while (true) {
+            IdleConnection ic;
+            synchronized (idle) {
+                ic = idle.pollFirst();
+            }
+            if (ic == null) {
+                return null;
+            }
+            long idleFor = System.currentTimeMillis() - ic.returnedAt;
+            if (idleFor < DatabaseConfig.POOL_VALIDATE_AFTER_IDLE_MS || isUsable(ic.connection)) {
+                return ic.connection;
+            }
+            closeQuietly(ic.connection); // Stale (e.g. server-side wait_timeout) — drop and try the next
+        }
+    }
+
+    private boolean isUsable(Connection conn) {
+        try {
+            return conn.isValid(DatabaseConfig.POOL_VALIDATION_TIMEOUT_SEC);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lease(Connection physical) {
+        Lease lease = new Lease(physical);
+        Connection proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, lease);
+        leased.put(proxy, lease);
+        return proxy;
+    }
+
+    /**
+     * Return a physical connection to the idle list after resetting per-use
+     * state. Broken connections are discarded instead.
+     */
+    private void giveBack(Connection proxy, Lease lease) {
+        leased.remove(proxy);
+        Connection physical = lease.physical;
+        try {
+            boolean reusable = !closed && !physical.isClosed();
+            if (reusable && !physical.getAutoCommit()) {
+                physical.rollback(); // Discard anything left uncommitted by the borrower
+                physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                physical.clearWarnings();
+                synchronized (idle) {
+                    idle.addFirst(new IdleConnection(physical));
+                }
+            } else {
+                closeQuietly(physical);
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<IdleConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                IdleConnection ic = it.next();
+                if (now - ic.returnedAt > DatabaseConfig.POOL_MAX_IDLE_MS) {
+                    it.remove();
+                    closeQuietly(ic.connection);
+                }
+            }
+        }
+    }
+
+    private void reportLeaks() {
+        if (DatabaseConfig.POOL_LEAK_THRESHOLD_MS <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Lease lease : leased.values()) {
+            if (!lease.leakReported && now - lease.borrowedAt > DatabaseConfig.POOL_LEAK_THRESHOLD_MS) {
+                lease.leakReported = true;
+                System.err.println("Possible connection leak: connection held for "
+                        + (now - lease.borrowedAt) + " ms, borrowed at:");
+                lease.borrowSite.printStackTrace();
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // Already broken — nothing else to do
+        }
+    }
+
+    private static final class IdleConnection {
+        final Connection connection;
+        final long returnedAt = System.currentTimeMillis();
+
+        IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Invocation handler behind each borrowed connection proxy.
+     * Intercepts close() and forwards everything else to the physical connection.
+     */
+    private final class Lease implements InvocationHandler {
+        final Connection physical;
+        final long borrowedAt = System.currentTimeMillis();
+        final Throwable borrowSite = new Throwable("Connection borrowed here");
+        volatile boolean leakReported = false;
+        private volatile boolean returned = false;
+
+        Lease(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (returned) {
+                            return null;
+                        }
+                        returned = true;
+                    }
+                    giveBack((Connection) proxy, this);
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
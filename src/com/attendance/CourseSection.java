@@ -0,0 +1,55 @@
+package com.attendance;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A course section (e.g. "CS301-A DBMS") with one shared timetable and a
+ * roster of enrolled students. Each enrolment is the student's Subject row,
+ * which holds only their attendance; the name, classes per week and class
+ * days are projected from the section, so a timetable is stored once per
+ * section rather than once per student.
+ */
+public class CourseSection {
+    private final int id;
+    private final String code;
+    private final String name;
+    private final List<DayOfWeek> classDays;
+
+    public CourseSection(int id, String code, String name, List<DayOfWeek> classDays) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.classDays = Collections.unmodifiableList(new ArrayList<>(classDays));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Short unique code students enter to enrol.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<DayOfWeek> getClassDays() {
+        return classDays;
+    }
+
+    public int getClassesPerWeek() {
+        return classDays.size();
+    }
+
+    @Override
+    public String toString() {
+        return code + " " + name;
+    }
+}
@@ -6,13 +6,64 @@ package com.attendance;
  */
 public class DatabaseConfig {
     // JDBC Connection Parameters
-    public static final String DB_URL = "jdbc:mysql://localhost:3306/attendance_system";
+    // rewriteBatchedStatements lets the driver send JDBC batches as multi-row statements
+    public static final String DB_URL = "jdbc:mysql://localhost:3306/attendance_system"
+            + "?rewriteBatchedStatements=true";
     public static final String DB_USER = "root";
     public static final String DB_PASSWORD = "";
 
+    // Retries and circuit breaker (DbResilience)
+    public static final int MAX_RETRIES = 3; // Attempts per call, including the first
+    public static final int RETRY_DELAY_MS = 1000; // First backoff; doubles per attempt, with jitter
+    public static final int RETRY_MAX_DELAY_MS = 8000; // Backoff cap
+    public static final int BREAKER_FAILURE_THRESHOLD = 5; // Connection failures in a row that open the breaker
+    public static final int BREAKER_OPEN_MS = 10_000; // Calls fail fast this long before a probe is let through
+
     // Connection Pool Settings
-    public static final int MAX_RETRIES = 3;
-    public static final int RETRY_DELAY_MS = 1000;
+    public static final int POOL_MAX_SIZE = 8; // Max physical connections open at once
+    public static final int POOL_BORROW_TIMEOUT_MS = 5000; // Wait for a free connection before failing
+    public static final int POOL_VALIDATION_TIMEOUT_SEC = 2; // Connection.isValid() timeout
+    public static final int POOL_VALIDATE_AFTER_IDLE_MS = 30_000; // Only re-validate connections idle this long
+    public static final int POOL_MAX_IDLE_MS = 10 * 60 * 1000; // Close connections idle longer than this
+    public static final int POOL_LEAK_THRESHOLD_MS = 60_000; // Warn if a connection is held this long
+
+    // Background DB reads for the UI (AsyncDb; writes run on one more thread) — kept below POOL_MAX_SIZE
+    public static final int ASYNC_DB_THREADS = 4;
+
+    // Write-behind Settings (attendance marks)
+    public static final int WRITE_FLUSH_INTERVAL_MS = 500; // Coalescing window before a batch is flushed
+    public static final int WRITE_BATCH_MAX = 500; // Flush immediately once this many writes are pending
+
+    // Self check-in ingestion (CheckInIngestor)
+    public static final int CHECKIN_QUEUE_CAPACITY = 50_000; // Check-ins held in memory before rejecting
+    public static final int CHECKIN_BATCH_MAX = 1000; // Check-ins per multi-row upsert
+    public static final int CHECKIN_FLUSH_INTERVAL_MS = 50; // Max wait before a partial batch is written
+    public static final double CHECKIN_HIGH_WATER = 0.8; // Queue fill ratio that signals backpressure
+
+    // Headless HTTP API (ApiServer)
+    public static final int API_PORT = 8080;
+    public static final long API_SESSION_IDLE_MS = 30 * 60 * 1000L; // Log out sessions idle this long
+    public static final int API_MAX_BODY_BYTES = 16 * 1024; // Larger request bodies are rejected
+
+    // Read-through cache of per-student data (StudentCache)
+    public static final int STUDENT_CACHE_CAPACITY = 1000; // Students kept, least recently used evicted
+
+    // Change log and incremental sync (DeltaSync)
+    public static final int SYNC_POLL_INTERVAL_MS = 15_000; // Desktop dashboard polls for remote changes this often
+    public static final int API_SYNC_INTERVAL_MS = 1000; // API sessions sync at most this often
+    public static final int CHANGE_SYNC_MAX_ROWS = 1000; // More changes than this → full reload instead
+    public static final int CHANGE_SYNC_SETTLE_SEC = 5; // Changes younger than this are re-read on the next poll
+    public static final int CHANGE_LOG_RETENTION_HOURS = 7 * 24; // Older change_log rows are pruned
+
+    // Local snapshot of the last loaded student, for instant warm starts (StudentSnapshot)
+    public static final String SNAPSHOT_DIR = System.getProperty("user.home") + "/.attendance/snapshots";
+
+    // Local journal of writes not yet committed to MySQL (WriteJournal)
+    public static final String JOURNAL_FILE = System.getProperty("user.home") + "/.attendance/journal.log";
+    public static final int JOURNAL_RETRY_INTERVAL_MS = 5000; // Replay is retried this often while MySQL is down
+
+    // Subject attended/conducted counters — repaired against attendance_records this often
+    public static final long COUNTER_RECONCILE_INTERVAL_MS = 60 * 60 * 1000L;
 
     private DatabaseConfig() {
         // Prevent instantiation — utility class
@@ -1,10 +1,24 @@
 package com.attendance;
 
+import java.nio.file.Paths;
 import java.sql.*;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Singleton Database Manager for all JDBC operations.
@@ -12,14 +26,102 @@ import java.util.List;
  * schedule.
  * Uses PreparedStatements to prevent SQL injection.
  * Uses try-with-resources for automatic resource management.
+ * The hot queries are package-private *_SQL constants so QueryPlanCheck can
+ * EXPLAIN exactly what runs.
  */
 public class DatabaseManager {
 
     // ───── Singleton Pattern ─────
     private static DatabaseManager instance;
 
+    private final ConnectionPool pool;
+    private final DbResilience resilience = new DbResilience();
+    private final WriteJournal journal;
+    private final Object journalDrainLock = new Object(); // Journaled writes are applied in order
+    private final AtomicBoolean journalRetryScheduled = new AtomicBoolean(); // Set while the database is unreachable
+    private final AttendanceWriteQueue attendanceWrites;
+    private final StudentCache cache;
+    private final Timer maintenance;
+    private volatile CompletableFuture<Boolean> startup = CompletableFuture.completedFuture(true); // See startInBackground
+    private volatile boolean started = true; // False until startInBackground has succeeded
+
     private DatabaseManager() {
-        initializeTables();
+        pool = new ConnectionPool(
+                DatabaseConfig.DB_URL,
+                DatabaseConfig.DB_USER,
+                DatabaseConfig.DB_PASSWORD,
+                DatabaseConfig.POOL_MAX_SIZE);
+        journal = WriteJournal.open(Paths.get(DatabaseConfig.JOURNAL_FILE));
+        attendanceWrites = new AttendanceWriteQueue(this, journal);
+        attendanceWrites.resume(journal.outstanding()); // Marks left unsaved by the last session
+        cache = new StudentCache(DatabaseConfig.STUDENT_CACHE_CAPACITY);
+
+        // Periodically repair subject counters that drifted (e.g. rows edited outside the app)
+        // and drop change_log rows past their retention
+        maintenance = new Timer("DatabaseManager-maintenance", true); // daemon thread
+        maintenance.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                reconcileSubjectCounters();
+                pruneChangeLog();
+            }
+        }, DatabaseConfig.COUNTER_RECONCILE_INTERVAL_MS, DatabaseConfig.COUNTER_RECONCILE_INTERVAL_MS);
+        if (journal.hasOutstandingNonAttendance()) {
+            scheduleJournalRetry(); // Holiday and settings edits left unsaved by the last session
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "DatabaseManager-shutdown"));
+    }
+
+    /**
+     * Test the connection and bring the schema up to date on a background
+     * thread, so the desktop UI (and a warm start from a snapshot) can come
+     * up meanwhile. AsyncDb work waits for it via awaitStartup().
+     *
+     * If the database is unreachable the future completes with false and
+     * startup is retried in the background; the app keeps working from the
+     * journal meanwhile, and replays it once a retry succeeds.
+     */
+    public CompletableFuture<Boolean> startInBackground() {
+        started = false;
+        startup = CompletableFuture.supplyAsync(this::start);
+        return startup;
+    }
+
+    private boolean start() {
+        if (!testConnection() || !migrateSchema()) {
+            try {
+                maintenance.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        start();
+                    }
+                }, DatabaseConfig.JOURNAL_RETRY_INTERVAL_MS);
+            } catch (IllegalStateException e) {
+                // Shutting down
+            }
+            return false;
+        }
+        started = true;
+        drainJournal();
+        attendanceWrites.flushQuietly();
+        return true;
+    }
+
+    /**
+     * False while startInBackground() hasn't reached the database yet.
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Block until startInBackground() has finished (immediately if it was
+     * never called, as in the API server and the report).
+     *
+     * @return false if the database is unreachable or couldn't be migrated
+     */
+    public boolean awaitStartup() {
+        return startup.join();
     }
 
     public static synchronized DatabaseManager getInstance() {
@@ -29,13 +131,55 @@ public class DatabaseManager {
         return instance;
     }
 
+    /**
+     * A second, independent instance — its own pool and cache, and an
+     * in-memory journal while the singleton holds the file. Stands in for
+     * another process writing to the same database in harnesses.
+     */
+    static DatabaseManager openSeparate() {
+        return new DatabaseManager();
+    }
+
     // ───── Connection Management ─────
 
+    /**
+     * Borrow a pooled connection. Closing it returns it to the pool.
+     * A failed connect is retried with backoff, and fails at once while
+     * the database is known to be down (see DbResilience).
+     */
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-                DatabaseConfig.DB_URL,
-                DatabaseConfig.DB_USER,
-                DatabaseConfig.DB_PASSWORD);
+        return resilience.call(pool::borrow);
+    }
+
+    /**
+     * Retry and circuit-breaker state and counters.
+     */
+    public DbResilience getResilience() {
+        return resilience;
+    }
+
+    /**
+     * Log a failed operation that falls back to a default (empty list, -1,
+     * false, ...) and count it.
+     */
+    private void logFailure(String action, SQLException e) {
+        resilience.recordFallback();
+        System.err.println("Error " + action + ": " + e.getMessage());
+    }
+
+    /**
+     * Let in-flight UI updates finish, flush queued attendance writes and
+     * journaled edits, then close pooled connections. Called from a JVM
+     * shutdown hook. Whatever can't be written stays in the journal for the
+     * next start.
+     */
+    public void shutdown() {
+        maintenance.cancel();
+        AsyncDb.awaitPending(DatabaseConfig.POOL_BORROW_TIMEOUT_MS);
+        attendanceWrites.shutdown();
+        drainJournalIfOnline();
+        journal.close();
+        pool.close();
     }
 
     /**
@@ -51,79 +195,18 @@ public class DatabaseManager {
     }
 
     /**
-     * Auto-create tables if they don't exist (first run safety).
-     */
-    private void initializeTables() {
-        String[] createStatements = {
-                "CREATE TABLE IF NOT EXISTS students ("
-                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                        + "name VARCHAR(100) NOT NULL, "
-                        + "username VARCHAR(50) NOT NULL UNIQUE, "
-                        + "password_hash VARCHAR(255) NOT NULL, "
-                        + "semester_start_date DATE, "
-                        + "midsem_exam_start_date DATE, "
-                        + "midsem_exam_end_date DATE, "
-                        + "last_teaching_day DATE, "
-                        + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
-                        + ")",
-                "CREATE TABLE IF NOT EXISTS subjects ("
-                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                        + "student_id INT NOT NULL, "
-                        + "name VARCHAR(100) NOT NULL, "
-                        + "classes_per_week INT DEFAULT 0, "
-                        + "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE"
-                        + ")",
-                "CREATE TABLE IF NOT EXISTS attendance_records ("
-                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                        + "subject_id INT NOT NULL, "
-                        + "record_date DATE NOT NULL, "
-                        + "is_present BOOLEAN NOT NULL, "
-                        + "FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE, "
-                        + "UNIQUE KEY unique_record (subject_id, record_date)"
-                        + ")",
-                "CREATE TABLE IF NOT EXISTS holidays ("
-                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                        + "student_id INT NOT NULL, "
-                        + "holiday_date DATE NOT NULL, "
-                        + "description VARCHAR(200) DEFAULT 'Official Holiday', "
-                        + "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE, "
-                        + "UNIQUE KEY unique_holiday (student_id, holiday_date)"
-                        + ")",
-                "CREATE TABLE IF NOT EXISTS weekly_schedule ("
-                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                        + "subject_id INT NOT NULL, "
-                        + "day_of_week VARCHAR(10) NOT NULL, "
-                        + "FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE"
-                        + ")"
-        };
-
-        try (Connection conn = getConnection();
-                Statement stmt = conn.createStatement()) {
-            for (String sql : createStatements) {
-                stmt.executeUpdate(sql);
-            }
-            // Add theme column if it doesn't exist (migration for existing DBs)
-            try {
-                stmt.executeUpdate(
-                        "ALTER TABLE students ADD COLUMN theme VARCHAR(10) DEFAULT 'dark'");
-            } catch (SQLException ignored) {
-                // Column already exists — safe to ignore
-            }
-            // Add email columns (migration for existing DBs)
-            try {
-                stmt.executeUpdate(
-                        "ALTER TABLE students ADD COLUMN email VARCHAR(200) DEFAULT NULL");
-            } catch (SQLException ignored) {}
-            try {
-                stmt.executeUpdate(
-                        "ALTER TABLE students ADD COLUMN email_frequency VARCHAR(10) DEFAULT 'off'");
-            } catch (SQLException ignored) {}
-            try {
-                stmt.executeUpdate(
-                        "ALTER TABLE students ADD COLUMN last_email_sent DATE DEFAULT NULL");
-            } catch (SQLException ignored) {}
+     * Create or upgrade the schema (see SchemaMigrator). On an up-to-date
+     * database this is a single version query.
+     *
+     * @return false if the schema could not be brought up to date
+     */
+    public boolean migrateSchema() {
+        try (Connection conn = getConnection()) {
+            SchemaMigrator.migrate(conn);
+            return true;
         } catch (SQLException e) {
-            System.err.println("Error initializing tables: " + e.getMessage());
+            logFailure("migrating schema", e);
+            return false;
         }
     }
 
@@ -150,11 +233,14 @@ public class DatabaseManager {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error registering student: " + e.getMessage());
+            logFailure("registering student", e);
         }
         return -1;
     }
 
+    // authenticateStudent
+    static final String STUDENT_BY_USERNAME_SQL = "SELECT * FROM students WHERE username = ?";
+
     /**
      * Authenticate a student by username and plaintext password.
      * Fetches the stored hash, then verifies in Java (supports salted hashes).
@@ -165,9 +251,8 @@ public class DatabaseManager {
      * @return a fully loaded Student object, or null if login fails
      */
     public Student authenticateStudent(String username, String password) {
-        String sql = "SELECT * FROM students WHERE username = ?";
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                PreparedStatement pstmt = conn.prepareStatement(STUDENT_BY_USERNAME_SQL)) {
             pstmt.setString(1, username);
 
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -179,31 +264,7 @@ public class DatabaseManager {
                         return null; // Wrong password
                     }
 
-                    Student student = new Student(rs.getString("name"));
-                    student.setId(rs.getInt("id"));
-                    student.setUsername(rs.getString("username"));
-
-                    // Load semester dates
-                    Date d = rs.getDate("semester_start_date");
-                    if (d != null)
-                        student.setSemesterStartDate(d.toLocalDate());
-                    d = rs.getDate("midsem_exam_start_date");
-                    if (d != null)
-                        student.setMidsemExamStartDate(d.toLocalDate());
-                    d = rs.getDate("midsem_exam_end_date");
-                    if (d != null)
-                        student.setMidsemExamEndDate(d.toLocalDate());
-                    d = rs.getDate("last_teaching_day");
-                    if (d != null)
-                        student.setSemesterEndDate(d.toLocalDate());
-
-                    // Load email settings
-                    student.setEmail(rs.getString("email"));
-                    String freq = rs.getString("email_frequency");
-                    student.setEmailFrequency(freq != null ? freq : "off");
-                    Date lastEmail = rs.getDate("last_email_sent");
-                    if (lastEmail != null)
-                        student.setLastEmailSent(lastEmail.toLocalDate());
+                    Student student = readStudent(rs);
 
                     // Auto-upgrade legacy unsalted hash to salted
                     if (PasswordValidator.isLegacyHash(storedHash)) {
@@ -215,11 +276,97 @@ public class DatabaseManager {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error authenticating: " + e.getMessage());
+            logFailure("authenticating", e);
+        }
+        return null;
+    }
+
+    /**
+     * Re-read an already authenticated student's account row — name,
+     * semester dates, policy and email settings, no subjects.
+     *
+     * @return the student, or null if not found or the read failed
+     */
+    public Student loadStudentAccount(int studentId) {
+        String sql = "SELECT * FROM students WHERE id = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readStudent(rs);
+                }
+            }
+        } catch (SQLException e) {
+            logFailure("loading student", e);
         }
         return null;
     }
 
+    private static Student readStudent(ResultSet rs) throws SQLException {
+        Student student = new Student(rs.getString("name"));
+        student.setId(rs.getInt("id"));
+        student.setUsername(rs.getString("username"));
+
+        // Load semester dates
+        Date d = rs.getDate("semester_start_date");
+        if (d != null)
+            student.setSemesterStartDate(d.toLocalDate());
+        d = rs.getDate("midsem_exam_start_date");
+        if (d != null)
+            student.setMidsemExamStartDate(d.toLocalDate());
+        d = rs.getDate("midsem_exam_end_date");
+        if (d != null)
+            student.setMidsemExamEndDate(d.toLocalDate());
+        d = rs.getDate("last_teaching_day");
+        if (d != null)
+            student.setSemesterEndDate(d.toLocalDate());
+
+        // Load attendance policy
+        java.math.BigDecimal required = rs.getBigDecimal("required_percentage");
+        if (required != null) {
+            try {
+                student.setAttendancePolicy(AttendancePolicy.ofPercentage(required.doubleValue()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring invalid required percentage: " + required);
+            }
+        }
+
+        // Load email settings
+        student.setEmail(rs.getString("email"));
+        String freq = rs.getString("email_frequency");
+        student.setEmailFrequency(freq != null ? freq : "off");
+        Date lastEmail = rs.getDate("last_email_sent");
+        if (lastEmail != null)
+            student.setLastEmailSent(lastEmail.toLocalDate());
+        return student;
+    }
+
+    /**
+     * Load what a session needs for an authenticated student: subjects
+     * (counters only), holidays (own and shared) and the weekly schedule.
+     * Used by the desktop login and the API server. The change_log position
+     * is read first, so DeltaSync picks up anything written during the load.
+     * The student's own newest change is read with it, so cached data that
+     * another process has since changed is not served (see StudentCache).
+     *
+     * @return the student's weekly schedule
+     */
+    public WeeklySchedule loadStudentData(Student student) {
+        long[] seqs = latestChangeSeqs(student.getId());
+        student.setChangeSeq(Math.max(seqs[0], 0)); // 0 on failure: replay (or reload) from the start
+        cache.validate(student.getId(), seqs[1]);
+        for (Subject s : loadSubjects(student.getId())) {
+            student.addSubject(s);
+        }
+        // The student's own holidays, then those of subscribed shared calendars
+        student.setHolidays(loadHolidays(student.getId()));
+        student.setSharedHolidays(loadSharedHolidays(student.getId()));
+        WeeklySchedule schedule = new WeeklySchedule();
+        loadSchedule(schedule, student.getId(), student.getSubjects());
+        return schedule;
+    }
+
     /**
      * Update a student's password hash (used for hash upgrades and password
      * changes).
@@ -232,7 +379,7 @@ public class DatabaseManager {
             pstmt.setInt(2, studentId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
-            System.err.println("Error updating password hash: " + e.getMessage());
+            logFailure("updating password hash", e);
         }
     }
 
@@ -250,7 +397,7 @@ public class DatabaseManager {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error checking username: " + e.getMessage());
+            logFailure("checking username", e);
         }
         return false;
     }
@@ -269,7 +416,7 @@ public class DatabaseManager {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting password hash: " + e.getMessage());
+            logFailure("getting password hash", e);
         }
         return null;
     }
@@ -278,26 +425,25 @@ public class DatabaseManager {
      * Save semester settings for a student.
      */
     public void saveSemesterSettings(Student student) {
+        journaled(WriteJournal.Kind.SEMESTER_SETTINGS, student.getId(),
+                student.getSemesterStartDate(), student.getMidsemExamStartDate(),
+                student.getMidsemExamEndDate(), student.getSemesterEndDate(),
+                student.getAttendancePolicy().getThresholdBasisPoints());
+    }
+
+    private void writeSemesterSettings(int studentId, LocalDate start, LocalDate midsemStart,
+            LocalDate midsemEnd, LocalDate end, int thresholdBasisPoints) throws SQLException {
         String sql = "UPDATE students SET semester_start_date = ?, midsem_exam_start_date = ?, "
-                + "midsem_exam_end_date = ?, last_teaching_day = ? WHERE id = ?";
+                + "midsem_exam_end_date = ?, last_teaching_day = ?, required_percentage = ? WHERE id = ?";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDate(1, student.getSemesterStartDate() != null
-                    ? Date.valueOf(student.getSemesterStartDate())
-                    : null);
-            pstmt.setDate(2, student.getMidsemExamStartDate() != null
-                    ? Date.valueOf(student.getMidsemExamStartDate())
-                    : null);
-            pstmt.setDate(3, student.getMidsemExamEndDate() != null
-                    ? Date.valueOf(student.getMidsemExamEndDate())
-                    : null);
-            pstmt.setDate(4, student.getSemesterEndDate() != null
-                    ? Date.valueOf(student.getSemesterEndDate())
-                    : null);
-            pstmt.setInt(5, student.getId());
+            pstmt.setDate(1, start != null ? Date.valueOf(start) : null);
+            pstmt.setDate(2, midsemStart != null ? Date.valueOf(midsemStart) : null);
+            pstmt.setDate(3, midsemEnd != null ? Date.valueOf(midsemEnd) : null);
+            pstmt.setDate(4, end != null ? Date.valueOf(end) : null);
+            pstmt.setBigDecimal(5, java.math.BigDecimal.valueOf(thresholdBasisPoints, 2));
+            pstmt.setInt(6, studentId);
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error saving semester settings: " + e.getMessage());
         }
     }
 
@@ -310,20 +456,29 @@ public class DatabaseManager {
      */
     public int addSubject(int studentId, String name, int classesPerWeek) {
         String sql = "INSERT INTO subjects (student_id, name, classes_per_week) VALUES (?, ?, ?)";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, studentId);
-            pstmt.setString(2, name);
-            pstmt.setInt(3, classesPerWeek);
-            pstmt.executeUpdate();
-
-            try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            int subjectId;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, studentId);
+                pstmt.setString(2, name);
+                pstmt.setInt(3, classesPerWeek);
+                pstmt.executeUpdate();
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return -1;
+                    }
+                    subjectId = rs.getInt(1);
                 }
             }
+            logChange(conn, studentId, DeltaSync.Kind.SUBJECT, subjectId, null, null);
+            conn.commit();
+            cache.setOwner(subjectId, studentId);
+            cache.invalidate(studentId);
+            return subjectId;
         } catch (SQLException e) {
-            System.err.println("Error adding subject: " + e.getMessage());
+            logFailure("adding subject", e);
         }
         return -1;
     }
@@ -333,14 +488,19 @@ public class DatabaseManager {
      */
     public void updateSubject(int subjectId, String newName, int classesPerWeek) {
         String sql = "UPDATE subjects SET name = ?, classes_per_week = ? WHERE id = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, newName);
-            pstmt.setInt(2, classesPerWeek);
-            pstmt.setInt(3, subjectId);
-            pstmt.executeUpdate();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, newName);
+                pstmt.setInt(2, classesPerWeek);
+                pstmt.setInt(3, subjectId);
+                pstmt.executeUpdate();
+            }
+            logSubjectChange(conn, DeltaSync.Kind.SUBJECT, subjectId);
+            conn.commit();
+            cache.invalidateSubject(subjectId);
         } catch (SQLException e) {
-            System.err.println("Error updating subject: " + e.getMessage());
+            logFailure("updating subject", e);
         }
     }
 
@@ -348,321 +508,876 @@ public class DatabaseManager {
      * Delete a subject (cascades to attendance records and schedule).
      */
     public void deleteSubject(int subjectId) {
+        attendanceWrites.discardSubject(subjectId);
         String sql = "DELETE FROM subjects WHERE id = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, subjectId);
-            pstmt.executeUpdate();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            logSubjectChange(conn, DeltaSync.Kind.SUBJECT, subjectId); // While the owner can still be looked up
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, subjectId);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            cache.forgetSubject(subjectId);
         } catch (SQLException e) {
-            System.err.println("Error deleting subject: " + e.getMessage());
+            logFailure("deleting subject", e);
         }
     }
 
     /**
-     * Load all subjects for a student (with their attendance records).
+     * Load all subjects for a student with their attended/conducted counters
+     * and opening balances.
+     * Attendance histories are not read here — each Subject fetches its own
+     * on first use, or callers preload several with loadAttendanceHistories —
+     * so login cost depends on the number of subjects, not on history length.
+     * Served from the StudentCache while the student's data is unchanged.
      */
     public List<Subject> loadSubjects(int studentId) {
-        List<Subject> subjects = new ArrayList<>();
-        String sql = "SELECT * FROM subjects WHERE student_id = ?";
+        List<Subject> subjects = tryLoadSubjects(studentId);
+        return (subjects != null) ? subjects : new ArrayList<>();
+    }
+
+    /**
+     * loadSubjects, but null if the database couldn't be read — for callers
+     * that must not mistake a failure for "no subjects".
+     */
+    List<Subject> tryLoadSubjects(int studentId) {
+        flushPendingWrites();
+        List<StudentCache.SubjectRow> rows;
+        try {
+            rows = cache.read(studentId, a -> a.subjects, (a, v) -> a.subjects = v,
+                    () -> resilience.call(() -> querySubjectRows(studentId)));
+        } catch (SQLException e) {
+            logFailure("loading subjects", e);
+            return null;
+        }
+        List<Subject> subjects = new ArrayList<>(rows.size());
+        for (StudentCache.SubjectRow row : rows) {
+            subjects.add(toSubject(row));
+        }
+        return subjects;
+    }
+
+    /**
+     * A Subject holding a row's counters, its history loaded from here on first use.
+     */
+    Subject toSubject(StudentCache.SubjectRow row) {
+        int subjectId = row.id;
+        Subject subject = new Subject(row.name, row.classesPerWeek);
+        subject.setId(subjectId);
+        subject.setSectionId(row.sectionId);
+        subject.setSummary(row.conducted, row.attended, row.balance, () -> {
+            Map<Integer, List<AttendanceRecord>> loaded = loadAttendanceHistories(Collections.singletonList(subjectId));
+            return loaded != null ? loaded.get(subjectId) : null;
+        });
+        return subject;
+    }
+
+    // querySubjectRows — section subjects project their name and class count from the section
+    static final String SUBJECT_ROWS_SQL = "SELECT s.id, COALESCE(cs.name, s.name), "
+            + "CASE WHEN s.section_id IS NULL THEN s.classes_per_week "
+            + "ELSE (SELECT COUNT(*) FROM section_schedule ss WHERE ss.section_id = s.section_id) END, "
+            + "s.classes_conducted, s.classes_attended, "
+            + "ob.as_of_date, ob.classes_conducted, ob.classes_attended, s.section_id "
+            + "FROM subjects s LEFT JOIN opening_balances ob ON ob.subject_id = s.id "
+            + "LEFT JOIN course_sections cs ON cs.id = s.section_id "
+            + "WHERE s.student_id = ? ORDER BY s.id";
+
+    private List<StudentCache.SubjectRow> querySubjectRows(int studentId) throws SQLException {
+        List<StudentCache.SubjectRow> rows = new ArrayList<>();
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                PreparedStatement pstmt = conn.prepareStatement(SUBJECT_ROWS_SQL)) {
             pstmt.setInt(1, studentId);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Subject subject = new Subject(rs.getString("name"), rs.getInt("classes_per_week"));
-                    subject.setId(rs.getInt("id"));
-
-                    // Load attendance records for this subject
-                    loadAttendanceRecords(conn, subject);
-
-                    subjects.add(subject);
+                    int subjectId = rs.getInt(1);
+                    Date asOf = rs.getDate(6);
+                    OpeningBalance balance = (asOf != null) // NULL when the subject has no opening balance
+                            ? new OpeningBalance(asOf.toLocalDate(), rs.getInt(7), rs.getInt(8))
+                            : null;
+                    // section_id NULL reads as 0 — the student's own subject
+                    rows.add(new StudentCache.SubjectRow(subjectId, rs.getInt(9), rs.getString(2), rs.getInt(3),
+                            rs.getInt(4), rs.getInt(5), balance));
+                    cache.setOwner(subjectId, studentId);
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error loading subjects: " + e.getMessage());
         }
-        return subjects;
+        return Collections.unmodifiableList(rows);
     }
 
-    // ══════════════════════════════════════════════
-    // ATTENDANCE RECORDS
-    // ══════════════════════════════════════════════
+    // loadAttendanceHistories, for count subject ids
+    static String historiesSql(int count) {
+        return "SELECT subject_id, record_date, is_present FROM attendance_records "
+                + "WHERE subject_id IN (" + placeholders(count) + ") "
+                + "ORDER BY subject_id, record_date";
+    }
 
     /**
-     * Save a single attendance record.
-     * Uses INSERT ... ON DUPLICATE KEY UPDATE to handle re-marking.
+     * Load the attendance histories of several subjects in one query.
+     * Every requested id gets a read-only list (empty if it has no records),
+     * oldest first. Histories still in the StudentCache aren't re-read.
+     *
+     * @return the histories by subject id, or null if the query failed
      */
-    public void saveAttendanceRecord(int subjectId, LocalDate date, boolean present) {
-        String sql = "INSERT INTO attendance_records (subject_id, record_date, is_present) "
-                + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE is_present = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, subjectId);
-            pstmt.setDate(2, Date.valueOf(date));
-            pstmt.setBoolean(3, present);
-            pstmt.setBoolean(4, present); // for the UPDATE part
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error saving attendance: " + e.getMessage());
+    public Map<Integer, List<AttendanceRecord>> loadAttendanceHistories(Collection<Integer> subjectIds) {
+        Map<Integer, List<AttendanceRecord>> histories = new HashMap<>();
+        if (subjectIds.isEmpty()) {
+            return histories;
+        }
+        flushPendingWrites();
+        // Subject id -> its owner's current aggregate (null if not known), for the ones to read
+        Map<Integer, StudentCache.Aggregate> missing = new HashMap<>();
+        for (int id : subjectIds) {
+            StudentCache.Aggregate owner = cache.currentForSubject(id);
+            List<AttendanceRecord> cached = (owner != null) ? owner.histories.get(id) : null;
+            if (cached != null) {
+                cache.recordHit();
+                histories.put(id, cached);
+            } else if (!missing.containsKey(id)) {
+                cache.recordMiss();
+                missing.put(id, owner);
+            }
+        }
+        if (missing.isEmpty()) {
+            return histories;
         }
-    }
 
-    /**
-     * Load attendance records for a subject (called internally).
-     */
-    private void loadAttendanceRecords(Connection conn, Subject subject) throws SQLException {
-        String sql = "SELECT * FROM attendance_records WHERE subject_id = ? ORDER BY record_date";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, subject.getId());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    LocalDate date = rs.getDate("record_date").toLocalDate();
-                    boolean present = rs.getBoolean("is_present");
-                    subject.addClass(date, present);
+        Map<Integer, List<AttendanceRecord>> loaded = new HashMap<>();
+        for (int id : missing.keySet()) {
+            loaded.put(id, new ArrayList<>());
+        }
+        String sql = historiesSql(loaded.size());
+        try {
+            resilience.call(() -> {
+                loaded.values().forEach(List::clear); // Rows from a failed attempt
+                try (Connection conn = getConnection();
+                        PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (int id : loaded.keySet()) {
+                        pstmt.setInt(i++, id);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            loaded.get(rs.getInt(1)).add(
+                                    new AttendanceRecord(rs.getDate(2).toLocalDate(), rs.getBoolean(3)));
+                        }
+                    }
                 }
+                return null;
+            });
+        } catch (SQLException e) {
+            logFailure("loading attendance history", e);
+            return null;
+        }
+        for (Map.Entry<Integer, List<AttendanceRecord>> e : loaded.entrySet()) {
+            List<AttendanceRecord> records = Collections.unmodifiableList(e.getValue());
+            StudentCache.Aggregate owner = missing.get(e.getKey());
+            if (owner != null) {
+                owner.histories.put(e.getKey(), records);
             }
+            histories.put(e.getKey(), records);
         }
+        return histories;
     }
 
+    // ══════════════════════════════════════════════
+    // ATTENDANCE RECORDS
+    // ══════════════════════════════════════════════
+
     /**
-     * Delete attendance record for a specific date.
+     * Write-behind queue for attendance marks made from the UI.
+     * Prefer this over saveAttendanceRecord/deleteAttendanceRecord on the EDT.
      */
-    public void deleteAttendanceRecord(int subjectId, LocalDate date) {
-        String sql = "DELETE FROM attendance_records WHERE subject_id = ? AND record_date = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, subjectId);
-            pstmt.setDate(2, Date.valueOf(date));
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error deleting attendance record: " + e.getMessage());
-        }
+    public AttendanceWriteQueue getAttendanceWriteQueue() {
+        return attendanceWrites;
     }
 
     /**
-     * Delete ALL attendance records for a student on a specific date.
-     * Used when a holiday is added retroactively — clears conflicting records.
-     * Returns the number of records deleted.
+     * The read-through cache behind the load methods (for metrics).
      */
-    public int deleteAttendanceOnDate(int studentId, LocalDate date) {
-        String sql = "DELETE ar FROM attendance_records ar "
-                + "JOIN subjects s ON ar.subject_id = s.id "
-                + "WHERE s.student_id = ? AND ar.record_date = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, studentId);
-            pstmt.setDate(2, Date.valueOf(date));
-            return pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error deleting attendance on holiday: " + e.getMessage());
-        }
-        return 0;
+    public StudentCache getStudentCache() {
+        return cache;
     }
 
     /**
-     * Delete ALL attendance records for a student within a date range.
-     * Used when a group holiday is added retroactively.
-     * Returns the number of records deleted.
+     * Flush queued attendance writes (and journaled edits) so reads and bulk
+     * edits see them.
      */
-    public int deleteAttendanceInRange(int studentId, LocalDate fromDate, LocalDate toDate) {
-        String sql = "DELETE ar FROM attendance_records ar "
-                + "JOIN subjects s ON ar.subject_id = s.id "
-                + "WHERE s.student_id = ? AND ar.record_date BETWEEN ? AND ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, studentId);
-            pstmt.setDate(2, Date.valueOf(fromDate));
-            pstmt.setDate(3, Date.valueOf(toDate));
-            return pstmt.executeUpdate();
+    private void flushPendingWrites() {
+        try {
+            attendanceWrites.flush();
         } catch (SQLException e) {
-            System.err.println("Error deleting attendance in range: " + e.getMessage());
+            logFailure("flushing pending attendance writes", e);
         }
-        return 0;
+        drainJournalIfOnline();
     }
 
     /**
-     * Bulk save attendance records (for setting initial data).
-     * Places records ONLY on scheduled weekdays, starting from semester start
-     * date,
-     * skipping holidays and mid-sem exam periods.
+     * Write a batch of queued attendance changes in one transaction:
+     * one JDBC batch of upserts, one of deletes, then a recount of the
+     * touched subjects' counters. Called by AttendanceWriteQueue.
      */
-    public void saveInitialAttendance(int subjectId, int conducted, int attended,
-            List<java.time.DayOfWeek> scheduledDays, Student student) {
-        // Clear existing records first
-        String deleteSql = "DELETE FROM attendance_records WHERE subject_id = ?";
-        String insertSql = "INSERT INTO attendance_records (subject_id, record_date, is_present) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE is_present = VALUES(is_present)";
+    void writeAttendanceBatch(List<AttendanceWriteQueue.PendingWrite> batch) throws SQLException {
+        String upsertSql = "INSERT INTO attendance_records (subject_id, record_date, is_present) "
+                + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE is_present = VALUES(is_present)";
+        String deleteSql = "DELETE FROM attendance_records WHERE subject_id = ? AND record_date = ?";
 
-        // Determine start date: semester start or fallback to today minus a safe window
-        LocalDate startDate;
-        if (student != null && student.getSemesterStartDate() != null) {
-            startDate = student.getSemesterStartDate();
-        } else {
-            // Fallback: go back enough days to fit all conducted classes
-            startDate = LocalDate.now().minusDays((long) conducted * 7 / Math.max(scheduledDays.size(), 1) + 14);
-        }
-
-        // Collect valid class dates from startDate to today on scheduled weekdays only
-        List<LocalDate> validDates = new ArrayList<>();
-        LocalDate cursor = startDate;
-        LocalDate today = LocalDate.now();
-        List<LocalDate> holidayDates = (student != null) ? student.getHolidayDates() : new ArrayList<>();
-
-        while (!cursor.isAfter(today) && validDates.size() < conducted) {
-            // Only on scheduled weekdays
-            if (scheduledDays.contains(cursor.getDayOfWeek())) {
-                // Skip holidays
-                if (!holidayDates.contains(cursor)) {
-                    // Skip mid-sem exam period
-                    if (student == null || !student.isDuringMidsemExams(cursor)) {
-                        validDates.add(cursor);
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement upsertStmt = conn.prepareStatement(upsertSql);
+                    PreparedStatement deleteStmt = conn.prepareStatement(deleteSql);
+                    PreparedStatement logStmt = conn.prepareStatement(LOG_SUBJECT_CHANGE)) {
+                int upserts = 0;
+                int deletes = 0;
+                Set<Integer> touched = new LinkedHashSet<>();
+                for (AttendanceWriteQueue.PendingWrite w : batch) {
+                    touched.add(w.subjectId);
+                    bindSubjectChange(logStmt, w.isDelete() ? DeltaSync.Kind.UNMARK : DeltaSync.Kind.MARK,
+                            w.subjectId, w.date, w.present);
+                    logStmt.addBatch();
+                    if (w.isDelete()) {
+                        deleteStmt.setInt(1, w.subjectId);
+                        deleteStmt.setDate(2, Date.valueOf(w.date));
+                        deleteStmt.addBatch();
+                        deletes++;
+                    } else {
+                        upsertStmt.setInt(1, w.subjectId);
+                        upsertStmt.setDate(2, Date.valueOf(w.date));
+                        upsertStmt.setBoolean(3, w.present);
+                        upsertStmt.addBatch();
+                        upserts++;
                     }
                 }
+                // Keys are unique within a batch, so statement order doesn't matter
+                if (upserts > 0)
+                    upsertStmt.executeBatch();
+                if (deletes > 0)
+                    deleteStmt.executeBatch();
+                logStmt.executeBatch();
+                recountSubjects(conn, touched);
             }
-            cursor = cursor.plusDays(1);
+            conn.commit();
         }
+        for (AttendanceWriteQueue.PendingWrite w : batch) {
+            cache.invalidateSubject(w.subjectId);
+        }
+    }
 
-        try (Connection conn = getConnection()) {
-            conn.setAutoCommit(false); // Transaction
-
-            try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
-                deleteStmt.setInt(1, subjectId);
-                deleteStmt.executeUpdate();
-            }
-
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                // First 'attended' dates are present, rest are absent
-                for (int i = 0; i < validDates.size(); i++) {
-                    insertStmt.setInt(1, subjectId);
-                    insertStmt.setDate(2, Date.valueOf(validDates.get(i)));
-                    insertStmt.setBoolean(3, i < attended); // first N are present
-                    insertStmt.addBatch();
+    /**
+     * Save a single attendance record.
+     * Uses INSERT ... ON DUPLICATE KEY UPDATE to handle re-marking, so a
+     * transient failure is retried.
+     */
+    public void saveAttendanceRecord(int subjectId, LocalDate date, boolean present) {
+        flushPendingWrites(); // Keep ordering with queued writes for the same date
+        String sql = "INSERT INTO attendance_records (subject_id, record_date, is_present) "
+                + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE is_present = ?";
+        try {
+            resilience.call(() -> {
+                try (Connection conn = getConnection()) {
+                    conn.setAutoCommit(false); // Record and counters change together
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setInt(1, subjectId);
+                        pstmt.setDate(2, Date.valueOf(date));
+                        pstmt.setBoolean(3, present);
+                        pstmt.setBoolean(4, present); // for the UPDATE part
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(LOG_SUBJECT_CHANGE)) {
+                        bindSubjectChange(pstmt, DeltaSync.Kind.MARK, subjectId, date, present);
+                        pstmt.executeUpdate();
+                    }
+                    recountSubjects(conn, Collections.singletonList(subjectId));
+                    conn.commit();
                 }
-                insertStmt.executeBatch();
-            }
-
-            conn.commit();
+                return null;
+            });
+            cache.invalidateSubject(subjectId);
         } catch (SQLException e) {
-            System.err.println("Error saving initial attendance: " + e.getMessage());
+            logFailure("saving attendance", e);
         }
     }
 
-    // ══════════════════════════════════════════════
-    // HOLIDAYS
-    // ══════════════════════════════════════════════
-
     /**
-     * Add a holiday for a student.
+     * Delete attendance record for a specific date (retried like
+     * saveAttendanceRecord — deleting twice is harmless).
      */
-    public void addHoliday(int studentId, LocalDate date, String description) {
-        String sql = "INSERT INTO holidays (student_id, holiday_date, description) VALUES (?, ?, ?) "
-                + "ON DUPLICATE KEY UPDATE description = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, studentId);
-            pstmt.setDate(2, Date.valueOf(date));
-            pstmt.setString(3, description);
-            pstmt.setString(4, description);
-            pstmt.executeUpdate();
+    public void deleteAttendanceRecord(int subjectId, LocalDate date) {
+        flushPendingWrites();
+        String sql = "DELETE FROM attendance_records WHERE subject_id = ? AND record_date = ?";
+        try {
+            resilience.call(() -> {
+                try (Connection conn = getConnection()) {
+                    conn.setAutoCommit(false);
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setInt(1, subjectId);
+                        pstmt.setDate(2, Date.valueOf(date));
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(LOG_SUBJECT_CHANGE)) {
+                        bindSubjectChange(pstmt, DeltaSync.Kind.UNMARK, subjectId, date, null);
+                        pstmt.executeUpdate();
+                    }
+                    recountSubjects(conn, Collections.singletonList(subjectId));
+                    conn.commit();
+                }
+                return null;
+            });
+            cache.invalidateSubject(subjectId);
         } catch (SQLException e) {
-            System.err.println("Error adding holiday: " + e.getMessage());
+            logFailure("deleting attendance record", e);
         }
     }
 
     /**
-     * Add a group holiday (date range) for a student.
-     * Inserts one row per date from 'fromDate' to 'toDate' (inclusive) with the
-     * same description.
+     * Save (or, with null, remove) a subject's opening balance — the counts
+     * it had before tracking started. One upsert instead of fabricating a
+     * record per conducted class; the subject's counters follow in the same
+     * transaction.
      */
-    public void addHolidayRange(int studentId, LocalDate fromDate, LocalDate toDate, String description) {
-        String sql = "INSERT INTO holidays (student_id, holiday_date, description) VALUES (?, ?, ?) "
-                + "ON DUPLICATE KEY UPDATE description = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    public void saveOpeningBalance(int subjectId, OpeningBalance balance) {
+        String upsertSql = "INSERT INTO opening_balances (subject_id, as_of_date, classes_conducted, classes_attended) "
+                + "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE as_of_date = VALUES(as_of_date), "
+                + "classes_conducted = VALUES(classes_conducted), classes_attended = VALUES(classes_attended)";
+        String deleteSql = "DELETE FROM opening_balances WHERE subject_id = ?";
+        try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
-            LocalDate current = fromDate;
-            while (!current.isAfter(toDate)) {
-                pstmt.setInt(1, studentId);
-                pstmt.setDate(2, Date.valueOf(current));
-                pstmt.setString(3, description);
-                pstmt.setString(4, description);
-                pstmt.addBatch();
-                current = current.plusDays(1);
+            try (PreparedStatement pstmt = conn.prepareStatement(balance != null ? upsertSql : deleteSql)) {
+                pstmt.setInt(1, subjectId);
+                if (balance != null) {
+                    pstmt.setDate(2, Date.valueOf(balance.getAsOf()));
+                    pstmt.setInt(3, balance.getConducted());
+                    pstmt.setInt(4, balance.getAttended());
+                }
+                pstmt.executeUpdate();
             }
-            pstmt.executeBatch();
+            recountSubjects(conn, Collections.singletonList(subjectId));
+            logSubjectChange(conn, DeltaSync.Kind.SUBJECT, subjectId);
             conn.commit();
+            cache.invalidateSubject(subjectId);
         } catch (SQLException e) {
-            System.err.println("Error adding holiday range: " + e.getMessage());
+            logFailure("saving opening balance", e);
         }
     }
 
+    // ───── Subject counters ─────
+
+    // Recomputes subjects.classes_conducted / classes_attended from attendance_records
+    // plus the opening balance
+    private static final String RECOUNT_SQL = "UPDATE subjects s SET "
+            + "classes_conducted = (SELECT COUNT(*) FROM attendance_records ar WHERE ar.subject_id = s.id) "
+            + "+ COALESCE((SELECT ob.classes_conducted FROM opening_balances ob WHERE ob.subject_id = s.id), 0), "
+            + "classes_attended = (SELECT COALESCE(SUM(ar.is_present), 0) FROM attendance_records ar "
+            + "WHERE ar.subject_id = s.id) "
+            + "+ COALESCE((SELECT ob.classes_attended FROM opening_balances ob WHERE ob.subject_id = s.id), 0) ";
+
     /**
-     * Remove a holiday.
+     * Recount the given subjects inside the caller's transaction.
      */
-    public void removeHoliday(int studentId, LocalDate date) {
-        String sql = "DELETE FROM holidays WHERE student_id = ? AND holiday_date = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, studentId);
-            pstmt.setDate(2, Date.valueOf(date));
+    private void recountSubjects(Connection conn, Collection<Integer> subjectIds) throws SQLException {
+        if (subjectIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                RECOUNT_SQL + "WHERE s.id IN (" + placeholders(subjectIds.size()) + ")")) {
+            int i = 1;
+            for (int id : subjectIds) {
+                pstmt.setInt(i++, id);
+            }
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error removing holiday: " + e.getMessage());
         }
     }
 
     /**
-     * Remove all holidays with a given description (group removal).
+     * Recount every subject of a student inside the caller's transaction.
      */
-    public void removeHolidaysByDescription(int studentId, String description) {
-        String sql = "DELETE FROM holidays WHERE student_id = ? AND description = ?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    private void recountStudentSubjects(Connection conn, int studentId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(RECOUNT_SQL + "WHERE s.student_id = ?")) {
             pstmt.setInt(1, studentId);
-            pstmt.setString(2, description);
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error removing holidays by description: " + e.getMessage());
         }
     }
 
     /**
-     * Update a holiday's date and/or description.
+     * Repair subject counters that no longer match attendance_records.
+     * Every write path keeps them in sync; this catches rows changed outside
+     * the app. Runs every COUNTER_RECONCILE_INTERVAL_MS on a daemon timer.
+     *
+     * @return number of subjects corrected
      */
-    public void updateHoliday(int studentId, LocalDate oldDate, LocalDate newDate, String newDescription) {
-        String sql = "UPDATE holidays SET holiday_date = ?, description = ? WHERE student_id = ? AND holiday_date = ?";
+    public int reconcileSubjectCounters() {
+        flushPendingWrites();
+        String conducted = "COALESCE(c.conducted, 0) + COALESCE(ob.classes_conducted, 0)";
+        String attended = "COALESCE(c.attended, 0) + COALESCE(ob.classes_attended, 0)";
+        String joins = "LEFT JOIN (SELECT subject_id, COUNT(*) AS conducted, SUM(is_present) AS attended "
+                + "FROM attendance_records GROUP BY subject_id) c ON c.subject_id = s.id "
+                + "LEFT JOIN opening_balances ob ON ob.subject_id = s.id ";
+        String drifted = "WHERE s.classes_conducted <> " + conducted + " OR s.classes_attended <> " + attended;
+        String logSql = LOG_CHANGE + "SELECT s.student_id, " + DeltaSync.Kind.SUBJECT.code + ", s.id, NULL, NULL, NULL "
+                + "FROM subjects s " + joins + drifted;
+        String sql = "UPDATE subjects s " + joins
+                + "SET s.classes_conducted = " + conducted + ", s.classes_attended = " + attended + " " + drifted;
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDate(1, Date.valueOf(newDate));
-            pstmt.setString(2, newDescription);
-            pstmt.setInt(3, studentId);
-            pstmt.setDate(4, Date.valueOf(oldDate));
-            pstmt.executeUpdate();
+                Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.executeUpdate(logSql); // Before the fix, while the drifted rows can still be found
+            int fixed = stmt.executeUpdate(sql);
+            conn.commit();
+            if (fixed > 0) {
+                cache.invalidateAll();
+                System.err.println("Reconciled attendance counters for " + fixed + " subject(s)");
+            }
+            return fixed;
         } catch (SQLException e) {
-            System.err.println("Error updating holiday: " + e.getMessage());
+            logFailure("reconciling attendance counters", e);
+            return 0;
         }
     }
 
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // ══════════════════════════════════════════════
+    // HOLIDAYS
+    // ══════════════════════════════════════════════
+
+    /**
+     * Add a holiday (single day or range) for a student — one row either way.
+     * The student's attendance records inside it are deleted with it, when
+     * the journaled add is applied.
+     */
+    public void addHoliday(int studentId, Holiday holiday) {
+        journaled(WriteJournal.Kind.HOLIDAY_ADD, studentId,
+                holiday.getStartDate(), holiday.getEndDate(), holiday.getDescription());
+    }
+
+    /**
+     * Remove a holiday (the whole range).
+     */
+    public void removeHoliday(int studentId, Holiday holiday) {
+        journaled(WriteJournal.Kind.HOLIDAY_REMOVE, studentId, holiday.getStartDate());
+    }
+
     /**
-     * Load all holidays for a student (with descriptions).
+     * Remove all holidays with a given description (group removal).
+     */
+    public void removeHolidaysByDescription(int studentId, String description) {
+        journaled(WriteJournal.Kind.HOLIDAYS_REMOVE_BY_DESCRIPTION, studentId, description);
+    }
+
+    /**
+     * Replace a holiday's dates and/or description.
+     */
+    public void updateHoliday(int studentId, Holiday oldHoliday, Holiday newHoliday) {
+        journaled(WriteJournal.Kind.HOLIDAY_UPDATE, studentId, oldHoliday.getStartDate(),
+                newHoliday.getStartDate(), newHoliday.getEndDate(), newHoliday.getDescription());
+    }
+
+    // writeHolidayAdd: the student's records inside the holiday
+    static final String HOLIDAY_CLEAR_SQL = "DELETE ar FROM attendance_records ar "
+            + "JOIN subjects s ON ar.subject_id = s.id "
+            + "WHERE s.student_id = ? AND ar.record_date BETWEEN ? AND ?";
+
+    /**
+     * Upsert the holiday and delete the student's attendance records inside
+     * it, recounting their subjects, in one transaction — so a holiday added
+     * offline clears its records once replayed. Upsert rather than insert,
+     * so replaying a journaled add is harmless.
+     */
+    private void writeHolidayAdd(int studentId, LocalDate start, LocalDate end, String description)
+            throws SQLException {
+        attendanceWrites.flush(); // Marks queued before the holiday are cleared with the rest
+        String sql = "INSERT INTO holiday_ranges (student_id, start_date, end_date, description) "
+                + "VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE end_date = VALUES(end_date), description = VALUES(description)";
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, studentId);
+                pstmt.setDate(2, Date.valueOf(start));
+                pstmt.setDate(3, Date.valueOf(end));
+                pstmt.setString(4, description);
+                pstmt.executeUpdate();
+            }
+            int deleted;
+            try (PreparedStatement pstmt = conn.prepareStatement(HOLIDAY_CLEAR_SQL)) {
+                pstmt.setInt(1, studentId);
+                pstmt.setDate(2, Date.valueOf(start));
+                pstmt.setDate(3, Date.valueOf(end));
+                deleted = pstmt.executeUpdate();
+            }
+            if (deleted > 0) {
+                recountStudentSubjects(conn, studentId);
+                logChange(conn, studentId, DeltaSync.Kind.CLEAR, 0, start, end);
+            }
+            logChange(conn, studentId, DeltaSync.Kind.HOLIDAYS, 0, null, null);
+            conn.commit();
+            cache.invalidate(studentId);
+        }
+    }
+
+    private void writeHolidayRemove(int studentId, LocalDate start) throws SQLException {
+        String sql = "DELETE FROM holiday_ranges WHERE student_id = ? AND start_date = ?";
+        writeHolidays(studentId, sql, studentId, start);
+    }
+
+    // writeHolidaysRemoveByDescription
+    static final String HOLIDAYS_REMOVE_BY_DESCRIPTION_SQL =
+            "DELETE FROM holiday_ranges WHERE student_id = ? AND description = ?";
+
+    private void writeHolidaysRemoveByDescription(int studentId, String description) throws SQLException {
+        writeHolidays(studentId, HOLIDAYS_REMOVE_BY_DESCRIPTION_SQL, studentId, description);
+    }
+
+    private void writeHolidayUpdate(int studentId, LocalDate oldStart, LocalDate start, LocalDate end,
+            String description) throws SQLException {
+        String sql = "UPDATE holiday_ranges SET start_date = ?, end_date = ?, description = ? "
+                + "WHERE student_id = ? AND start_date = ?";
+        writeHolidays(studentId, sql, start, end, description, studentId, oldStart);
+    }
+
+    /**
+     * Run one statement against a student's holidays and log the change,
+     * in one transaction. Parameters are Integer, LocalDate or String.
+     */
+    private void writeHolidays(int studentId, String sql, Object... params) throws SQLException {
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    Object param = params[i];
+                    if (param instanceof LocalDate) {
+                        pstmt.setDate(i + 1, Date.valueOf((LocalDate) param));
+                    } else {
+                        pstmt.setObject(i + 1, param);
+                    }
+                }
+                pstmt.executeUpdate();
+            }
+            logChange(conn, studentId, DeltaSync.Kind.HOLIDAYS, 0, null, null);
+            conn.commit();
+            cache.invalidate(studentId);
+        }
+    }
+
+    /**
+     * Load all holidays for a student, ordered by start date.
      */
     public List<Holiday> loadHolidays(int studentId) {
+        List<Holiday> holidays = tryLoadHolidays(studentId);
+        return (holidays != null) ? holidays : new ArrayList<>();
+    }
+
+    /**
+     * loadHolidays, but null if the database couldn't be read.
+     */
+    List<Holiday> tryLoadHolidays(int studentId) {
+        try {
+            return new ArrayList<>(cache.read(studentId, a -> a.holidays, (a, v) -> a.holidays = v,
+                    () -> resilience.call(() -> queryHolidays(studentId))));
+        } catch (SQLException e) {
+            logFailure("loading holidays", e);
+            return null;
+        }
+    }
+
+    // queryHolidays
+    static final String HOLIDAYS_SQL = "SELECT start_date, end_date, description FROM holiday_ranges "
+            + "WHERE student_id = ? ORDER BY start_date";
+
+    private List<Holiday> queryHolidays(int studentId) throws SQLException {
         List<Holiday> holidays = new ArrayList<>();
-        String sql = "SELECT holiday_date, description FROM holidays WHERE student_id = ? ORDER BY holiday_date";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(HOLIDAYS_SQL)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    holidays.add(new Holiday(rs.getDate(1).toLocalDate(), rs.getDate(2).toLocalDate(),
+                            rs.getString(3)));
+                }
+            }
+        }
+        return Collections.unmodifiableList(holidays);
+    }
+
+    // ───── Shared holiday calendars ─────
+
+    // Attendance of subscribers that falls on a (non-hidden) shared holiday;
+    // callers add their own filters after the WHERE
+    private static final String SHARED_HOLIDAY_RECORDS = "FROM attendance_records ar "
+            + "JOIN subjects s ON s.id = ar.subject_id "
+            + "JOIN calendar_subscriptions cs ON cs.student_id = s.student_id "
+            + "JOIN calendar_holidays ch ON ch.calendar_id = cs.calendar_id "
+            + "AND ar.record_date BETWEEN ch.start_date AND ch.end_date "
+            + "LEFT JOIN calendar_holiday_exclusions x ON x.student_id = cs.student_id "
+            + "AND x.calendar_id = ch.calendar_id AND x.start_date = ch.start_date "
+            + "WHERE x.student_id IS NULL ";
+
+    /**
+     * Create a shared calendar.
+     *
+     * @return the new calendar's id, or -1 on failure (e.g. duplicate name in the scope)
+     */
+    public int createCalendar(String name, SharedCalendar.Scope scope) {
+        String sql = "INSERT INTO holiday_calendars (name, scope) VALUES (?, ?)";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, name);
+            pstmt.setString(2, scope.name().toLowerCase());
+            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            logFailure("creating holiday calendar", e);
+        }
+        return -1;
+    }
+
+    /**
+     * All shared calendars, broadest scope first.
+     */
+    public List<SharedCalendar> loadCalendars() {
+        List<SharedCalendar> calendars = new ArrayList<>();
+        String sql = "SELECT id, name, scope FROM holiday_calendars ORDER BY scope, name";
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                calendars.add(new SharedCalendar(rs.getInt(1), rs.getString(2),
+                        SharedCalendar.Scope.valueOf(rs.getString(3).toUpperCase())));
+            }
+        } catch (SQLException e) {
+            logFailure("loading holiday calendars", e);
+        }
+        return calendars;
+    }
+
+    /**
+     * Ids of the calendars a student subscribes to.
+     */
+    public Set<Integer> loadSubscriptions(int studentId) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        String sql = "SELECT calendar_id FROM calendar_subscriptions WHERE student_id = ?";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, studentId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    LocalDate date = rs.getDate("holiday_date").toLocalDate();
-                    String desc = rs.getString("description");
-                    holidays.add(new Holiday(date, desc));
+                    ids.add(rs.getInt(1));
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error loading holidays: " + e.getMessage());
+            logFailure("loading calendar subscriptions", e);
+        }
+        return ids;
+    }
+
+    /**
+     * Replace a student's subscriptions. Attendance that now falls on a
+     * shared holiday is deleted and the counters recounted in the same
+     * transaction.
+     *
+     * @return number of attendance records deleted, or -1 on failure
+     */
+    public int setSubscriptions(int studentId, Collection<Integer> calendarIds) {
+        flushPendingWrites();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM calendar_subscriptions WHERE student_id = ?")) {
+                pstmt.setInt(1, studentId);
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO calendar_subscriptions (student_id, calendar_id) VALUES (?, ?)")) {
+                for (int calendarId : calendarIds) {
+                    pstmt.setInt(1, studentId);
+                    pstmt.setInt(2, calendarId);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            int deleted;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE ar " + SHARED_HOLIDAY_RECORDS + "AND s.student_id = ?")) {
+                pstmt.setInt(1, studentId);
+                deleted = pstmt.executeUpdate();
+            }
+            if (deleted > 0) {
+                recountStudentSubjects(conn, studentId);
+                // Records went on every subscribed shared holiday
+                try (PreparedStatement pstmt = conn.prepareStatement(LOG_CHANGE
+                        + "SELECT cs.student_id, " + DeltaSync.Kind.CLEAR.code + ", NULL, ch.start_date, ch.end_date, NULL "
+                        + "FROM calendar_subscriptions cs "
+                        + "JOIN calendar_holidays ch ON ch.calendar_id = cs.calendar_id "
+                        + "LEFT JOIN calendar_holiday_exclusions x ON x.student_id = cs.student_id "
+                        + "AND x.calendar_id = ch.calendar_id AND x.start_date = ch.start_date "
+                        + "WHERE cs.student_id = ? AND x.student_id IS NULL")) {
+                    pstmt.setInt(1, studentId);
+                    pstmt.executeUpdate();
+                }
+            }
+            logChange(conn, studentId, DeltaSync.Kind.HOLIDAYS, 0, null, null);
+            conn.commit();
+            cache.invalidate(studentId);
+            return deleted;
+        } catch (SQLException e) {
+            logFailure("saving calendar subscriptions", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Holidays a student inherits from subscribed calendars, minus the ones
+     * they hid — merged into their HolidayCalendar once per session.
+     */
+    public List<Holiday> loadSharedHolidays(int studentId) {
+        List<Holiday> holidays = tryLoadSharedHolidays(studentId);
+        return (holidays != null) ? holidays : new ArrayList<>();
+    }
+
+    /**
+     * loadSharedHolidays, but null if the database couldn't be read.
+     */
+    List<Holiday> tryLoadSharedHolidays(int studentId) {
+        try {
+            return new ArrayList<>(cache.read(studentId, a -> a.sharedHolidays, (a, v) -> a.sharedHolidays = v,
+                    () -> resilience.call(() -> querySharedHolidays(studentId))));
+        } catch (SQLException e) {
+            logFailure("loading shared holidays", e);
+            return null;
+        }
+    }
+
+    // querySharedHolidays
+    static final String SHARED_HOLIDAYS_SQL = "SELECT ch.start_date, ch.end_date, ch.description, hc.id, hc.name "
+            + "FROM calendar_subscriptions cs "
+            + "JOIN holiday_calendars hc ON hc.id = cs.calendar_id "
+            + "JOIN calendar_holidays ch ON ch.calendar_id = cs.calendar_id "
+            + "LEFT JOIN calendar_holiday_exclusions x ON x.student_id = cs.student_id "
+            + "AND x.calendar_id = ch.calendar_id AND x.start_date = ch.start_date "
+            + "WHERE cs.student_id = ? AND x.student_id IS NULL "
+            + "ORDER BY ch.start_date";
+
+    private List<Holiday> querySharedHolidays(int studentId) throws SQLException {
+        List<Holiday> holidays = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(SHARED_HOLIDAYS_SQL)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    holidays.add(new Holiday(rs.getDate(1).toLocalDate(), rs.getDate(2).toLocalDate(),
+                            rs.getString(3), rs.getInt(4), rs.getString(5)));
+                }
+            }
+        }
+        return Collections.unmodifiableList(holidays);
+    }
+
+    /**
+     * Hide one shared holiday for a student only ("I have classes that day").
+     */
+    public void excludeSharedHoliday(int studentId, Holiday holiday) {
+        journaled(WriteJournal.Kind.SHARED_HOLIDAY_EXCLUDE, studentId,
+                holiday.getCalendarId(), holiday.getStartDate());
+    }
+
+    private void writeSharedHolidayExclude(int studentId, int calendarId, LocalDate start) throws SQLException {
+        String sql = "INSERT IGNORE INTO calendar_holiday_exclusions (student_id, calendar_id, start_date) "
+                + "VALUES (?, ?, ?)";
+        writeHolidays(studentId, sql, studentId, calendarId, start);
+    }
+
+    /**
+     * Publish a holiday to a shared calendar: a single calendar_holidays row
+     * that every subscriber sees.
+     * Subscribers' attendance inside the holiday is cleared set-based in the
+     * same transaction — their counters are decremented by the removed
+     * records rather than recounted per student.
+     *
+     * @return number of attendance records deleted, or -1 on failure
+     */
+    public int publishCalendarHoliday(int calendarId, Holiday holiday) {
+        flushPendingWrites();
+        String insertSql = "INSERT INTO calendar_holidays (calendar_id, start_date, end_date, description) "
+                + "VALUES (?, ?, ?, ?)";
+        String scope = "AND ch.calendar_id = ? AND ch.start_date = ? ";
+        String decrementSql = "UPDATE subjects t JOIN ("
+                + "SELECT ar.subject_id, COUNT(*) AS conducted, SUM(ar.is_present) AS attended "
+                + SHARED_HOLIDAY_RECORDS + scope + "GROUP BY ar.subject_id) d ON d.subject_id = t.id "
+                + "SET t.classes_conducted = t.classes_conducted - d.conducted, "
+                + "t.classes_attended = t.classes_attended - d.attended";
+        String deleteSql = "DELETE ar " + SHARED_HOLIDAY_RECORDS + scope;
+        String logClearSql = LOG_CHANGE + "SELECT DISTINCT s.student_id, " + DeltaSync.Kind.CLEAR.code
+                + ", NULL, ch.start_date, ch.end_date, NULL " + SHARED_HOLIDAY_RECORDS + scope;
+        String logHolidaysSql = LOG_CHANGE + "SELECT student_id, " + DeltaSync.Kind.HOLIDAYS.code
+                + ", NULL, NULL, NULL, NULL FROM calendar_subscriptions WHERE calendar_id = ?";
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                pstmt.setInt(1, calendarId);
+                pstmt.setDate(2, Date.valueOf(holiday.getStartDate()));
+                pstmt.setDate(3, Date.valueOf(holiday.getEndDate()));
+                pstmt.setString(4, holiday.getDescription());
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(decrementSql)) {
+                pstmt.setInt(1, calendarId);
+                pstmt.setDate(2, Date.valueOf(holiday.getStartDate()));
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(logClearSql)) { // Before the records go
+                pstmt.setInt(1, calendarId);
+                pstmt.setDate(2, Date.valueOf(holiday.getStartDate()));
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(logHolidaysSql)) {
+                pstmt.setInt(1, calendarId);
+                pstmt.executeUpdate();
+            }
+            int deleted;
+            try (PreparedStatement pstmt = conn.prepareStatement(deleteSql)) {
+                pstmt.setInt(1, calendarId);
+                pstmt.setDate(2, Date.valueOf(holiday.getStartDate()));
+                deleted = pstmt.executeUpdate();
+            }
+            conn.commit();
+            cache.invalidateAll(); // Reaches every subscriber
+            return deleted;
+        } catch (SQLException e) {
+            logFailure("publishing shared holiday", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Withdraw a holiday from a shared calendar (students' exclusions of it go too).
+     */
+    public void removeCalendarHoliday(int calendarId, LocalDate startDate) {
+        String sql = "DELETE FROM calendar_holidays WHERE calendar_id = ? AND start_date = ?";
+        String logSql = LOG_CHANGE + "SELECT student_id, " + DeltaSync.Kind.HOLIDAYS.code
+                + ", NULL, NULL, NULL, NULL FROM calendar_subscriptions WHERE calendar_id = ?";
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, calendarId);
+                pstmt.setDate(2, Date.valueOf(startDate));
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(logSql)) {
+                pstmt.setInt(1, calendarId);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            cache.invalidateAll(); // Reaches every subscriber
+        } catch (SQLException e) {
+            logFailure("removing shared holiday", e);
         }
-        return holidays;
     }
 
     // ══════════════════════════════════════════════
@@ -671,10 +1386,12 @@ public class DatabaseManager {
 
     /**
      * Save the weekly schedule for a subject (replaces existing).
+     * Stores both the day name (kept for readability/older readers) and the
+     * ISO day number used by loadSchedule.
      */
     public void saveSchedule(int subjectId, List<DayOfWeek> days) {
         String deleteSql = "DELETE FROM weekly_schedule WHERE subject_id = ?";
-        String insertSql = "INSERT INTO weekly_schedule (subject_id, day_of_week) VALUES (?, ?)";
+        String insertSql = "INSERT INTO weekly_schedule (subject_id, day_of_week, day_num) VALUES (?, ?, ?)";
 
         try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
@@ -688,35 +1405,606 @@ public class DatabaseManager {
                 for (DayOfWeek day : days) {
                     insertStmt.setInt(1, subjectId);
                     insertStmt.setString(2, day.name());
+                    insertStmt.setInt(3, day.getValue());
                     insertStmt.addBatch();
                 }
                 insertStmt.executeBatch();
             }
+            logSubjectChange(conn, DeltaSync.Kind.SUBJECT, subjectId);
+
+            conn.commit();
+            cache.invalidateSubject(subjectId);
+        } catch (SQLException e) {
+            logFailure("saving schedule", e);
+        }
+    }
+
+    // loadScheduledDays — the subject id is bound twice
+    static final String SCHEDULED_DAYS_SQL = "SELECT day_num, day_of_week FROM weekly_schedule "
+            + "WHERE subject_id = ? "
+            + "UNION ALL SELECT ss.day_num, NULL FROM section_schedule ss "
+            + "JOIN subjects s ON s.section_id = ss.section_id WHERE s.id = ?";
+
+    /**
+     * Weekdays a single subject is scheduled on (empty on error).
+     */
+    public List<DayOfWeek> loadScheduledDays(int subjectId) {
+        StudentCache.Aggregate owner = cache.currentForSubject(subjectId);
+        Map<Integer, List<DayOfWeek>> cached = (owner != null) ? owner.schedule : null;
+        if (cached != null) {
+            cache.recordHit();
+            return new ArrayList<>(cached.getOrDefault(subjectId, Collections.emptyList()));
+        }
+        List<DayOfWeek> days = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(SCHEDULED_DAYS_SQL)) {
+            pstmt.setInt(1, subjectId);
+            pstmt.setInt(2, subjectId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int dayNum = rs.getInt("day_num");
+                    days.add(rs.wasNull() ? DayOfWeek.valueOf(rs.getString("day_of_week")) : DayOfWeek.of(dayNum));
+                }
+            }
+        } catch (SQLException e) {
+            logFailure("loading schedule days", e);
+        }
+        return days;
+    }
+
+    /**
+     * Load the weekly schedule for all of a student's subjects in one query —
+     * their own timetables plus those of the sections they are enrolled in.
+     * Rows are matched back to the given Subject objects by id.
+     */
+    public void loadSchedule(WeeklySchedule schedule, int studentId, List<Subject> subjects) {
+        Map<Integer, List<DayOfWeek>> days;
+        try {
+            days = cache.read(studentId, a -> a.schedule, (a, v) -> a.schedule = v,
+                    () -> resilience.call(() -> queryScheduleDays(studentId)));
+        } catch (SQLException e) {
+            logFailure("loading schedule", e);
+            return;
+        }
+        for (Subject subject : subjects) {
+            for (DayOfWeek day : days.getOrDefault(subject.getId(), Collections.emptyList())) {
+                schedule.addClass(day, subject);
+            }
+        }
+    }
+
+    // queryScheduleDays — the student id is bound twice
+    static final String SCHEDULE_DAYS_SQL = "SELECT ws.subject_id, ws.day_num, ws.day_of_week FROM weekly_schedule ws "
+            + "JOIN subjects s ON ws.subject_id = s.id "
+            + "WHERE s.student_id = ? "
+            + "UNION ALL SELECT s.id, ss.day_num, NULL FROM section_schedule ss "
+            + "JOIN subjects s ON s.section_id = ss.section_id "
+            + "WHERE s.student_id = ?";
+
+    /**
+     * Class days of each of a student's subjects, by subject id.
+     */
+    private Map<Integer, List<DayOfWeek>> queryScheduleDays(int studentId) throws SQLException {
+        Map<Integer, List<DayOfWeek>> days = new HashMap<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(SCHEDULE_DAYS_SQL)) {
+            pstmt.setInt(1, studentId);
+            pstmt.setInt(2, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int dayNum = rs.getInt(2);
+                    DayOfWeek day = rs.wasNull()
+                            ? DayOfWeek.valueOf(rs.getString(3)) // Row written before day_num existed
+                            : DayOfWeek.of(dayNum);
+                    days.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(day);
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<DayOfWeek>> e : days.entrySet()) {
+            e.setValue(Collections.unmodifiableList(e.getValue()));
+        }
+        return Collections.unmodifiableMap(days);
+    }
+
+    // ══════════════════════════════════════════════
+    // BATCH REPORTING
+    // ══════════════════════════════════════════════
+
+    /**
+     * Stream every student with their attendance policy and subject counters
+     * (opening balances included, histories not loaded), in student id order.
+     * Rows are read with a streaming cursor, so only the current student is
+     * held in memory; the consumer runs on the calling thread as each student
+     * completes and may throw to abort.
+     *
+     * @return false if the query failed part-way
+     */
+    public boolean streamStudentSummaries(Consumer<Student> consumer) {
+        flushPendingWrites();
+        String sql = "SELECT st.id, st.name, st.username, st.required_percentage, "
+                + "s.id, COALESCE(cs.name, s.name), s.classes_conducted, s.classes_attended "
+                + "FROM students st "
+                + "LEFT JOIN subjects s ON s.student_id = st.id "
+                + "LEFT JOIN course_sections cs ON cs.id = s.section_id "
+                + "ORDER BY st.id, s.id";
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE); // Connector/J: stream rows instead of buffering the result
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                Student current = null;
+                while (rs.next()) {
+                    int studentId = rs.getInt(1);
+                    if (current == null || current.getId() != studentId) {
+                        if (current != null) {
+                            consumer.accept(current);
+                        }
+                        current = new Student(rs.getString(2));
+                        current.setId(studentId);
+                        current.setUsername(rs.getString(3));
+                        try {
+                            current.setAttendancePolicy(AttendancePolicy.ofPercentage(rs.getDouble(4)));
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Ignoring invalid required percentage for student " + studentId);
+                        }
+                    }
+                    int subjectId = rs.getInt(5);
+                    if (rs.wasNull()) {
+                        continue; // Student without subjects
+                    }
+                    Subject subject = new Subject(rs.getString(6), 0);
+                    subject.setId(subjectId);
+                    subject.setSummary(rs.getInt(7), rs.getInt(8), null, null);
+                    current.addSubject(subject);
+                }
+                if (current != null) {
+                    consumer.accept(current);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            logFailure("streaming students", e);
+            return false;
+        }
+    }
 
+    // ══════════════════════════════════════════════
+    // COURSE SECTIONS
+    // ══════════════════════════════════════════════
+
+    /**
+     * Create a course section with its timetable.
+     *
+     * @return the new section's id, or -1 on failure (e.g. duplicate code)
+     */
+    public int createSection(String code, String name, List<DayOfWeek> classDays) {
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            int sectionId;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO course_sections (code, name) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, code);
+                pstmt.setString(2, name);
+                pstmt.executeUpdate();
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return -1;
+                    }
+                    sectionId = rs.getInt(1);
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO section_schedule (section_id, day_num) VALUES (?, ?)")) {
+                for (DayOfWeek day : classDays) {
+                    pstmt.setInt(1, sectionId);
+                    pstmt.setInt(2, day.getValue());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
             conn.commit();
+            return sectionId;
         } catch (SQLException e) {
-            System.err.println("Error saving schedule: " + e.getMessage());
+            logFailure("creating section", e);
+            return -1;
         }
     }
 
     /**
-     * Load weekly schedule for a student's subjects.
+     * Look up a section by its code, or null if there is none (or on error).
      */
-    public void loadSchedule(WeeklySchedule schedule, List<Subject> subjects) {
-        String sql = "SELECT day_of_week FROM weekly_schedule WHERE subject_id = ?";
+    public CourseSection findSection(String code) {
+        String sql = "SELECT cs.id, cs.code, cs.name, ss.day_num FROM course_sections cs "
+                + "LEFT JOIN section_schedule ss ON ss.section_id = cs.id "
+                + "WHERE cs.code = ? ORDER BY ss.day_num";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            for (Subject subject : subjects) {
-                pstmt.setInt(1, subject.getId());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        DayOfWeek day = DayOfWeek.valueOf(rs.getString("day_of_week"));
-                        schedule.addClass(day, subject);
+            pstmt.setString(1, code);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                int id = rs.getInt(1);
+                String sectionCode = rs.getString(2);
+                String name = rs.getString(3);
+                List<DayOfWeek> days = new ArrayList<>();
+                do {
+                    int dayNum = rs.getInt(4);
+                    if (!rs.wasNull()) { // NULL when the section has no class days yet
+                        days.add(DayOfWeek.of(dayNum));
                     }
+                } while (rs.next());
+                return new CourseSection(id, sectionCode, name, days);
+            }
+        } catch (SQLException e) {
+            logFailure("loading section", e);
+        }
+        return null;
+    }
+
+    /**
+     * Enrol a student in a section — one thin subjects row that holds their
+     * attendance; the name and timetable stay on the section.
+     *
+     * @return the enrolment's subject id, or -1 on failure (e.g. already enrolled)
+     */
+    public int enrollInSection(int studentId, CourseSection section) {
+        String sql = "INSERT INTO subjects (student_id, name, classes_per_week, section_id) VALUES (?, ?, ?, ?)";
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            int subjectId;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, studentId);
+                pstmt.setString(2, section.getName()); // Fallback if the section is ever deleted
+                pstmt.setInt(3, section.getClassesPerWeek());
+                pstmt.setInt(4, section.getId());
+                pstmt.executeUpdate();
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return -1;
+                    }
+                    subjectId = rs.getInt(1);
                 }
             }
+            logChange(conn, studentId, DeltaSync.Kind.SUBJECT, subjectId, null, null);
+            conn.commit();
+            cache.setOwner(subjectId, studentId);
+            cache.invalidate(studentId);
+            return subjectId;
         } catch (SQLException e) {
-            System.err.println("Error loading schedule: " + e.getMessage());
+            logFailure("enrolling in section", e);
+        }
+        return -1;
+    }
+
+    /**
+     * A section's roster: student id to name, ordered by name.
+     */
+    public Map<Integer, String> loadRoster(int sectionId) {
+        Map<Integer, String> roster = new LinkedHashMap<>();
+        String sql = "SELECT st.id, st.name FROM subjects s JOIN students st ON st.id = s.student_id "
+                + "WHERE s.section_id = ? ORDER BY st.name";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, sectionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    roster.put(rs.getInt(1), rs.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            logFailure("loading roster", e);
+        }
+        return roster;
+    }
+
+    /**
+     * Teacher-mode roll call: mark the whole roster for one date in a single
+     * transaction — everyone present except the given students. One
+     * INSERT ... SELECT writes every row (existing marks for the date are
+     * overwritten); students who couldn't mark the date themselves (see
+     * markableOn) are skipped. The section's counters are recounted in the
+     * same transaction.
+     *
+     * @return false if nothing was written
+     */
+    public boolean markRollCall(int sectionId, LocalDate date, Collection<Integer> absentStudentIds) {
+        flushPendingWrites(); // Students' own queued marks for this date must not land afterwards
+        String present = absentStudentIds.isEmpty()
+                ? "TRUE"
+                : "s.student_id NOT IN (" + placeholders(absentStudentIds.size()) + ")";
+        String roster = "FROM subjects s CROSS JOIN (SELECT ? AS record_date) d "
+                + "WHERE s.section_id = ? AND " + markableOn("s.student_id", "d.record_date");
+        String insertSql = "INSERT INTO attendance_records (subject_id, record_date, is_present) "
+                + "SELECT s.id, d.record_date, " + present + " " + roster + " "
+                + "ON DUPLICATE KEY UPDATE is_present = VALUES(is_present)";
+        String logSql = LOG_CHANGE + "SELECT s.student_id, " + DeltaSync.Kind.MARK.code + ", s.id, d.record_date, "
+                + "NULL, " + present + " " + roster;
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            for (String sql : Arrays.asList(insertSql, logSql)) { // Same parameters, same rows
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (int studentId : absentStudentIds) {
+                        pstmt.setInt(i++, studentId);
+                    }
+                    pstmt.setDate(i++, Date.valueOf(date));
+                    pstmt.setInt(i, sectionId);
+                    pstmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(RECOUNT_SQL + "WHERE s.section_id = ?")) {
+                pstmt.setInt(1, sectionId);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            cache.invalidateAll(); // Reaches the whole roster
+            return true;
+        } catch (SQLException e) {
+            logFailure("marking roll call", e);
+            return false;
+        }
+    }
+
+    /**
+     * Write a batch of self check-ins (present marks) in one transaction:
+     * one multi-row upsert resolving (section, student) to the enrolment's
+     * subject row, then a recount of those subjects. Check-ins from students
+     * not on the roster, or for a date they couldn't mark (see markableOn),
+     * are ignored.
+     * Called by CheckInIngestor.
+     */
+    void writeCheckIns(List<CheckInIngestor.CheckIn> batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        StringBuilder rows = new StringBuilder("SELECT ? AS section_id, ? AS student_id, ? AS record_date");
+        for (int i = 1; i < batch.size(); i++) {
+            rows.append(" UNION ALL SELECT ?, ?, ?");
+        }
+        String enrolled = "FROM (" + rows + ") v "
+                + "JOIN subjects s ON s.section_id = v.section_id AND s.student_id = v.student_id "
+                + "WHERE " + markableOn("s.student_id", "v.record_date");
+        String insertSql = "INSERT INTO attendance_records (subject_id, record_date, is_present) "
+                + "SELECT s.id, v.record_date, TRUE " + enrolled + " "
+                + "ON DUPLICATE KEY UPDATE is_present = TRUE";
+        String logSql = LOG_CHANGE + "SELECT s.student_id, " + DeltaSync.Kind.MARK.code
+                + ", s.id, v.record_date, NULL, TRUE " + enrolled;
+
+        Set<List<Integer>> enrolments = new LinkedHashSet<>();
+        for (CheckInIngestor.CheckIn c : batch) {
+            enrolments.add(Arrays.asList(c.getSectionId(), c.getStudentId()));
+        }
+        String recountSql = RECOUNT_SQL + "WHERE (s.section_id, s.student_id) IN ("
+                + String.join(", ", Collections.nCopies(enrolments.size(), "(?, ?)")) + ")";
+
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            for (String sql : Arrays.asList(insertSql, logSql)) { // Same parameters, same rows
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (CheckInIngestor.CheckIn c : batch) {
+                        pstmt.setInt(i++, c.getSectionId());
+                        pstmt.setInt(i++, c.getStudentId());
+                        pstmt.setDate(i++, Date.valueOf(c.getDate()));
+                    }
+                    pstmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(recountSql)) {
+                int i = 1;
+                for (List<Integer> e : enrolments) {
+                    pstmt.setInt(i++, e.get(0));
+                    pstmt.setInt(i++, e.get(1));
+                }
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+        }
+        for (List<Integer> e : enrolments) {
+            cache.invalidate(e.get(1));
+        }
+    }
+
+    /**
+     * SQL condition: the student could mark the date from the dashboard — it
+     * is within their semester (if set), outside their mid-sem exams and not
+     * one of their holidays, their own or a (non-hidden) shared one.
+     */
+    private static String markableOn(String studentColumn, String dateExpr) {
+        return "NOT EXISTS (SELECT 1 FROM students st WHERE st.id = " + studentColumn + " AND ("
+                + "(st.semester_start_date IS NOT NULL AND st.last_teaching_day IS NOT NULL "
+                + "AND " + dateExpr + " NOT BETWEEN st.semester_start_date AND st.last_teaching_day) "
+                + "OR " + dateExpr + " BETWEEN st.midsem_exam_start_date AND st.midsem_exam_end_date)) "
+                + "AND NOT EXISTS (SELECT 1 FROM holiday_ranges h WHERE h.student_id = " + studentColumn + " "
+                + "AND " + dateExpr + " BETWEEN h.start_date AND h.end_date) "
+                + "AND NOT EXISTS (SELECT 1 FROM calendar_subscriptions cs "
+                + "JOIN calendar_holidays ch ON ch.calendar_id = cs.calendar_id "
+                + "LEFT JOIN calendar_holiday_exclusions x ON x.student_id = cs.student_id "
+                + "AND x.calendar_id = ch.calendar_id AND x.start_date = ch.start_date "
+                + "WHERE cs.student_id = " + studentColumn + " AND x.student_id IS NULL "
+                + "AND " + dateExpr + " BETWEEN ch.start_date AND ch.end_date)";
+    }
+
+    // ══════════════════════════════════════════════
+    // CHANGE LOG
+    // ══════════════════════════════════════════════
+
+    // Appends change_log rows (see DeltaSync); callers add VALUES or a SELECT
+    private static final String LOG_CHANGE = "INSERT INTO change_log "
+            + "(student_id, kind, subject_id, from_date, to_date, present) ";
+
+    // Logs a change to one subject for whichever student owns it
+    private static final String LOG_SUBJECT_CHANGE = LOG_CHANGE
+            + "SELECT student_id, ?, id, ?, NULL, ? FROM subjects WHERE id = ?";
+
+    /**
+     * Log a change for a student inside the caller's transaction.
+     *
+     * @param subjectId the subject concerned, or 0 for none / all
+     */
+    private void logChange(Connection conn, int studentId, DeltaSync.Kind kind, int subjectId,
+            LocalDate from, LocalDate to) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(LOG_CHANGE + "VALUES (?, ?, ?, ?, ?, NULL)")) {
+            pstmt.setInt(1, studentId);
+            pstmt.setInt(2, kind.code);
+            if (subjectId != 0) {
+                pstmt.setInt(3, subjectId);
+            } else {
+                pstmt.setNull(3, Types.INTEGER);
+            }
+            pstmt.setDate(4, from != null ? Date.valueOf(from) : null);
+            pstmt.setDate(5, to != null ? Date.valueOf(to) : null);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Log a change to one subject inside the caller's transaction.
+     */
+    private void logSubjectChange(Connection conn, DeltaSync.Kind kind, int subjectId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(LOG_SUBJECT_CHANGE)) {
+            bindSubjectChange(pstmt, kind, subjectId, null, null);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Bind LOG_SUBJECT_CHANGE; present null for none.
+     */
+    private static void bindSubjectChange(PreparedStatement pstmt, DeltaSync.Kind kind, int subjectId,
+            LocalDate date, Boolean present) throws SQLException {
+        pstmt.setInt(1, kind.code);
+        pstmt.setDate(2, date != null ? Date.valueOf(date) : null);
+        if (present != null) {
+            pstmt.setBoolean(3, present);
+        } else {
+            pstmt.setNull(3, Types.BOOLEAN);
+        }
+        pstmt.setInt(4, subjectId);
+    }
+
+    /**
+     * The newest change_log sequence number, or -1 on failure.
+     */
+    public long latestChangeSeq() {
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(seq), 0) FROM change_log")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            logFailure("reading change log position", e);
+            return -1;
+        }
+    }
+
+    // latestChangeSeqs
+    static final String LATEST_CHANGE_SEQS_SQL = "SELECT (SELECT COALESCE(MAX(seq), 0) FROM change_log), "
+            + "(SELECT COALESCE(MAX(seq), 0) FROM change_log WHERE student_id = ?)";
+
+    /**
+     * The newest change_log sequence number overall and the student's own
+     * newest (0 if none) — {overall, student} — or {-1, -1} on failure.
+     */
+    private long[] latestChangeSeqs(int studentId) {
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(LATEST_CHANGE_SEQS_SQL)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new long[] { rs.getLong(1), rs.getLong(2) };
+                }
+            }
+        } catch (SQLException e) {
+            logFailure("reading change log position", e);
+        }
+        return new long[] { -1, -1 };
+    }
+
+    // loadChanges
+    static final String CHANGES_SQL = "SELECT seq, kind, subject_id, from_date, to_date, present, "
+            + "changed_at < NOW() - INTERVAL ? SECOND "
+            + "FROM change_log WHERE student_id = ? AND seq > ? ORDER BY seq LIMIT ?";
+
+    /**
+     * A student's changes after a sequence number, oldest first — one range
+     * scan of the (student_id, seq) index. Queued attendance writes are
+     * flushed first, so they are included.
+     *
+     * @return at most limit changes, or null on failure
+     */
+    public List<DeltaSync.Change> loadChanges(int studentId, long afterSeq, int limit) {
+        flushPendingWrites();
+        List<DeltaSync.Change> changes = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(CHANGES_SQL)) {
+            pstmt.setInt(1, DatabaseConfig.CHANGE_SYNC_SETTLE_SEC);
+            pstmt.setInt(2, studentId);
+            pstmt.setLong(3, afterSeq);
+            pstmt.setInt(4, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    DeltaSync.Kind kind = DeltaSync.Kind.of(rs.getInt(2));
+                    if (kind == null) {
+                        continue; // Written by a newer version of the app
+                    }
+                    Date from = rs.getDate(4);
+                    Date to = rs.getDate(5);
+                    changes.add(new DeltaSync.Change(rs.getLong(1), kind, rs.getInt(3),
+                            from != null ? from.toLocalDate() : null, to != null ? to.toLocalDate() : null,
+                            rs.getBoolean(6), rs.getBoolean(7)));
+                }
+            }
+            return changes;
+        } catch (SQLException e) {
+            logFailure("loading changes", e);
+            return null;
+        }
+    }
+
+    // loadSubjectCounters
+    static final String SUBJECT_COUNTERS_SQL =
+            "SELECT id, classes_conducted, classes_attended FROM subjects WHERE student_id = ?";
+
+    /**
+     * Attended/conducted counters of a student's subjects (opening balances
+     * included), by subject id — {conducted, attended}.
+     *
+     * @return the counters, or null on failure
+     */
+    public Map<Integer, int[]> loadSubjectCounters(int studentId) {
+        Map<Integer, int[]> counters = new HashMap<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(SUBJECT_COUNTERS_SQL)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    counters.put(rs.getInt(1), new int[] { rs.getInt(2), rs.getInt(3) });
+                }
+            }
+            return counters;
+        } catch (SQLException e) {
+            logFailure("loading subject counters", e);
+            return null;
+        }
+    }
+
+    /**
+     * Delete change_log rows older than CHANGE_LOG_RETENTION_HOURS. Sessions
+     * that haven't synced for that long reload in full (see DeltaSync).
+     *
+     * @return number of rows deleted
+     */
+    public int pruneChangeLog() {
+        String sql = "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL ? HOUR";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, DatabaseConfig.CHANGE_LOG_RETENTION_HOURS);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logFailure("pruning change log", e);
+            return 0;
         }
     }
 
@@ -741,7 +2029,7 @@ public class DatabaseManager {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error loading theme: " + e.getMessage());
+            logFailure("loading theme", e);
         }
         return "dark";
     }
@@ -750,14 +2038,16 @@ public class DatabaseManager {
      * Save the theme preference for a student.
      */
     public void saveTheme(int studentId, String theme) {
+        journaled(WriteJournal.Kind.THEME, studentId, theme);
+    }
+
+    private void writeTheme(int studentId, String theme) throws SQLException {
         String sql = "UPDATE students SET theme = ? WHERE id = ?";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, theme);
             pstmt.setInt(2, studentId);
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error saving theme: " + e.getMessage());
         }
     }
 
@@ -769,15 +2059,17 @@ public class DatabaseManager {
      * Save email settings for a student.
      */
     public void saveEmailSettings(Student student) {
+        journaled(WriteJournal.Kind.EMAIL_SETTINGS, student.getId(), student.getEmail(), student.getEmailFrequency());
+    }
+
+    private void writeEmailSettings(int studentId, String email, String frequency) throws SQLException {
         String sql = "UPDATE students SET email = ?, email_frequency = ? WHERE id = ?";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, student.getEmail());
-            pstmt.setString(2, student.getEmailFrequency());
-            pstmt.setInt(3, student.getId());
+            pstmt.setString(1, email);
+            pstmt.setString(2, frequency);
+            pstmt.setInt(3, studentId);
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error saving email settings: " + e.getMessage());
         }
     }
 
@@ -792,7 +2084,112 @@ public class DatabaseManager {
             pstmt.setInt(2, studentId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
-            System.err.println("Error updating last email sent: " + e.getMessage());
+            logFailure("updating last email sent", e);
+        }
+    }
+
+    // ══════════════════════════════════════════════
+    // WRITE JOURNAL
+    // ══════════════════════════════════════════════
+
+    /**
+     * Journal a holiday or settings edit, then try to apply it. If the
+     * database is known to be down it is left for the retry timer, so the
+     * caller never waits on a connect timeout twice.
+     */
+    private void journaled(WriteJournal.Kind kind, Object... args) {
+        journal.append(kind, args);
+        drainJournalIfOnline();
+    }
+
+    private void drainJournalIfOnline() {
+        if (!journalRetryScheduled.get()) {
+            drainJournal();
+        }
+    }
+
+    /**
+     * Apply outstanding journaled edits in order (attendance marks are
+     * replayed by AttendanceWriteQueue). Stops at the first failure while
+     * the database is unreachable and retries later; an edit the live
+     * database rejects is dropped, as before the journal existed.
+     */
+    private void drainJournal() {
+        synchronized (journalDrainLock) {
+            for (WriteJournal.Entry entry : journal.outstanding()) {
+                if (entry.kind.isAttendance()) {
+                    continue;
+                }
+                try {
+                    resilience.call(() -> { // Idempotent, so safe to retry
+                        applyJournaled(entry);
+                        return null;
+                    });
+                } catch (SQLException e) {
+                    logFailure(entry.kind.action, e);
+                    if (!testConnection()) {
+                        scheduleJournalRetry();
+                        return;
+                    }
+                    System.err.println("Dropping journaled write " + entry);
+                } catch (RuntimeException e) { // Unreadable arguments — can never succeed
+                    System.err.println("Dropping journaled write " + entry + ": " + e);
+                }
+                journal.markDone(entry.seq);
+            }
+        }
+    }
+
+    private void applyJournaled(WriteJournal.Entry e) throws SQLException {
+        switch (e.kind) {
+            case HOLIDAY_ADD:
+                writeHolidayAdd(e.intArg(0), e.dateArg(1), e.dateArg(2), e.stringArg(3));
+                break;
+            case HOLIDAY_REMOVE:
+                writeHolidayRemove(e.intArg(0), e.dateArg(1));
+                break;
+            case HOLIDAYS_REMOVE_BY_DESCRIPTION:
+                writeHolidaysRemoveByDescription(e.intArg(0), e.stringArg(1));
+                break;
+            case HOLIDAY_UPDATE:
+                writeHolidayUpdate(e.intArg(0), e.dateArg(1), e.dateArg(2), e.dateArg(3), e.stringArg(4));
+                break;
+            case SHARED_HOLIDAY_EXCLUDE:
+                writeSharedHolidayExclude(e.intArg(0), e.intArg(1), e.dateArg(2));
+                break;
+            case SEMESTER_SETTINGS:
+                writeSemesterSettings(e.intArg(0), e.dateArg(1), e.dateArg(2), e.dateArg(3), e.dateArg(4),
+                        e.intArg(5));
+                break;
+            case EMAIL_SETTINGS:
+                writeEmailSettings(e.intArg(0), e.stringArg(1), e.stringArg(2));
+                break;
+            case THEME:
+                writeTheme(e.intArg(0), e.stringArg(1));
+                break;
+            default:
+                throw new IllegalArgumentException("not a journaled edit: " + e.kind);
+        }
+    }
+
+    /**
+     * Drain the journal again after JOURNAL_RETRY_INTERVAL_MS (once, however
+     * many writes are waiting).
+     */
+    private void scheduleJournalRetry() {
+        if (!journalRetryScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            maintenance.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    journalRetryScheduled.set(false);
+                    drainJournal();
+                }
+            }, DatabaseConfig.JOURNAL_RETRY_INTERVAL_MS);
+        } catch (IllegalStateException e) {
+            // Shutting down — the journal keeps the writes for the next start
         }
     }
 }
@@ -0,0 +1,254 @@
+package com.attendance;
+
+import java.awt.EventQueue;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry and circuit-breaker policy for DatabaseManager's database calls.
+ *
+ * - Failures are classified: lost or refused connections, deadlocks, lock
+ *   wait timeouts and "too many connections" are transient; anything else
+ *   (bad SQL, constraint violations, access denied) is permanent and is
+ *   never retried
+ * - Transient failures are retried, up to MAX_RETRIES attempts, with
+ *   jittered exponential backoff from RETRY_DELAY_MS — except on the EDT,
+ *   which only ever gets one attempt
+ * - After BREAKER_FAILURE_THRESHOLD connection failures in a row the
+ *   breaker opens: calls fail at once for BREAKER_OPEN_MS, then a single
+ *   probe is let through, and its outcome closes or reopens the breaker
+ *
+ * Only work that is safe to repeat goes through call(): borrowing a
+ * connection, reads, and idempotent writes. A write whose commit was cut
+ * off may or may not have happened, so other writes are not retried.
+ */
+public class DbResilience {
+
+    /**
+     * A database call that may be attempted more than once.
+     */
+    @FunctionalInterface
+    interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    public enum State {
+        CLOSED, // Calls go through
+        OPEN, // Calls fail fast
+        HALF_OPEN // One probe call is in flight
+    }
+
+    private static final ThreadLocal<Boolean> IN_CALL = ThreadLocal.withInitial(() -> false);
+
+    private State state = State.CLOSED; // guarded by this
+    private int consecutiveFailures = 0; // Connection failures in a row; guarded by this
+    private long openedAt; // guarded by this
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * Run the work, retrying transient failures. A call made from inside
+     * another call (e.g. borrowing a connection inside a retried read) runs
+     * once — the outer call retries the whole thing.
+     *
+     * @throws SQLException the last failure, or SQLTransientConnectionException
+     *                      at once while the breaker is open
+     */
+    <T> T call(SqlWork<T> work) throws SQLException {
+        if (IN_CALL.get()) {
+            return work.run();
+        }
+        int maxAttempts = EventQueue.isDispatchThread() ? 1 : Math.max(1, DatabaseConfig.MAX_RETRIES);
+        IN_CALL.set(true);
+        try {
+            for (int attempt = 1;; attempt++) {
+                boolean probe = admit();
+                T result;
+                try {
+                    result = work.run();
+                } catch (SQLException e) {
+                    boolean open = onFailure(probe, isConnectionFailure(e));
+                    if (open || attempt >= maxAttempts || !isTransient(e)) {
+                        throw e;
+                    }
+                    retries.increment();
+                    try {
+                        Thread.sleep(backoffMillis(attempt));
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                    continue;
+                } catch (RuntimeException e) {
+                    onFailure(probe, false); // A bug, not an outage — don't leave the breaker half open
+                    throw e;
+                }
+                onSuccess();
+                return result;
+            }
+        } finally {
+            IN_CALL.set(false);
+        }
+    }
+
+    /**
+     * An operation gave up and returned its default (empty list, -1,
+     * false, ...). Counted only.
+     */
+    void recordFallback() {
+        fallbacks.increment();
+    }
+
+    // ───── Circuit breaker ─────
+
+    /**
+     * Let a call through, or reject it while the breaker is open.
+     *
+     * @return true if this call is the half-open probe
+     */
+    private synchronized boolean admit() throws SQLException {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= DatabaseConfig.BREAKER_OPEN_MS) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        rejections.increment();
+        throw new SQLTransientConnectionException("Database unavailable — not retrying for up to "
+                + DatabaseConfig.BREAKER_OPEN_MS + " ms after repeated connection failures", "08001");
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            System.err.println("Database reachable again — resuming calls");
+        }
+    }
+
+    /**
+     * @return true if the breaker is (now) open — no point retrying
+     */
+    private synchronized boolean onFailure(boolean probe, boolean connectionFailure) {
+        if (!connectionFailure) {
+            // The database answered, so it is up — even if it said no
+            consecutiveFailures = 0;
+            if (probe) {
+                state = State.CLOSED;
+            }
+            return false;
+        }
+        consecutiveFailures++;
+        if (probe || (state == State.CLOSED && consecutiveFailures >= DatabaseConfig.BREAKER_FAILURE_THRESHOLD)) {
+            if (!probe) {
+                trips.increment();
+                System.err.println("Database unreachable after " + consecutiveFailures
+                        + " attempts — failing fast for " + DatabaseConfig.BREAKER_OPEN_MS + " ms");
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+        return state == State.OPEN;
+    }
+
+    // ───── Classification ─────
+
+    /**
+     * True if trying again later could succeed.
+     */
+    static boolean isTransient(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                SQLException s = (SQLException) t;
+                String sqlState = s.getSQLState();
+                if (sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("40"))) {
+                    return true; // Connection exception, transaction rollback (deadlock)
+                }
+                switch (s.getErrorCode()) {
+                    case 1040: // Too many connections
+                    case 1205: // Lock wait timeout
+                    case 1213: // Deadlock
+                    case 2006: // Server has gone away
+                    case 2013: // Lost connection during query
+                        return true;
+                    default:
+                        break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the database couldn't be reached at all (as opposed to
+     * answering with an error). Only these count towards opening the breaker.
+     */
+    static boolean isConnectionFailure(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLRecoverableException || t instanceof SQLTransientConnectionException
+                    || t instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                SQLException s = (SQLException) t;
+                String sqlState = s.getSQLState();
+                if ((sqlState != null && sqlState.startsWith("08"))
+                        || s.getErrorCode() == 2006 || s.getErrorCode() == 2013) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Exponential backoff with jitter: half the doubled delay, plus a random
+     * share of the other half, so clients that failed together don't retry
+     * together.
+     */
+    static long backoffMillis(int attempt) {
+        long delay = (long) DatabaseConfig.RETRY_DELAY_MS << Math.min(attempt - 1, 20);
+        delay = Math.min(delay, DatabaseConfig.RETRY_MAX_DELAY_MS);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    // ───── Metrics ─────
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getTripCount() {
+        return trips.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejections.sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("state=%s retries=%d trips=%d rejected=%d fallbacks=%d",
+                getState(), getRetryCount(), getTripCount(), getRejectedCount(), getFallbackCount());
+    }
+}
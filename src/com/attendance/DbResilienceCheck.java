@@ -0,0 +1,203 @@
+package com.attendance;
+
+import java.awt.EventQueue;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Exercises DbResilience's retry and circuit-breaker policy against a
+ * flaky Connection proxy that fails with scripted MySQL errors before it
+ * starts working: lost link (08S01), deadlock (1213), lock wait timeout
+ * (1205) and access denied (1045).
+ *
+ * Usage: java com.attendance.DbResilienceCheck
+ *
+ * Needs no database. Backoff and the breaker's open time are the real
+ * DatabaseConfig values, so a run takes about half a minute. Exits with
+ * status 1 if a check fails.
+ */
+public class DbResilienceCheck {
+
+    private static final int MAX_RETRIES = Math.max(1, DatabaseConfig.MAX_RETRIES);
+
+    public static void main(String[] args) throws Exception {
+        retriesTransientFailures();
+        givesUpAfterMaxRetries();
+        doesNotRetryPermanentFailures();
+        singleAttemptOnEdt();
+        breakerOpensProbesAndCloses();
+        nestedCallsDoNotMultiplyRetries();
+        Checks.exit();
+    }
+
+    // ───── Scenarios ─────
+
+    private static void retriesTransientFailures() throws SQLException {
+        for (SQLException error : Arrays.asList(linkFailure(), deadlock(), lockWaitTimeout())) {
+            DbResilience r = new DbResilience();
+            FlakyConnection conn = new FlakyConnection(MAX_RETRIES - 1, error);
+            r.call(() -> query(conn));
+            Checks.check(conn.statements == MAX_RETRIES && r.getRetryCount() == MAX_RETRIES - 1,
+                    describe(error) + " is retried until it succeeds (" + conn.statements + " attempts, "
+                            + r.getRetryCount() + " retries)");
+        }
+    }
+
+    private static void givesUpAfterMaxRetries() {
+        DbResilience r = new DbResilience();
+        FlakyConnection conn = new FlakyConnection(Integer.MAX_VALUE, deadlock());
+        SQLException thrown = callExpectingFailure(r, conn);
+        Checks.check(thrown != null && thrown.getErrorCode() == 1213 && conn.statements == MAX_RETRIES,
+                "a persistent deadlock is attempted MAX_RETRIES times, then thrown (" + conn.statements + ")");
+    }
+
+    private static void doesNotRetryPermanentFailures() {
+        DbResilience r = new DbResilience();
+        FlakyConnection conn = new FlakyConnection(Integer.MAX_VALUE, accessDenied());
+        SQLException thrown = callExpectingFailure(r, conn);
+        Checks.check(thrown != null && thrown.getErrorCode() == 1045 && conn.statements == 1
+                && r.getRetryCount() == 0, "access denied (1045) is not retried (" + conn.statements + " attempt)");
+        Checks.check(r.getState() == DbResilience.State.CLOSED, "an error the server answered leaves the breaker closed");
+    }
+
+    private static void singleAttemptOnEdt() throws Exception {
+        DbResilience r = new DbResilience();
+        FlakyConnection conn = new FlakyConnection(Integer.MAX_VALUE, linkFailure());
+        SQLException[] thrown = new SQLException[1];
+        EventQueue.invokeAndWait(() -> thrown[0] = callExpectingFailure(r, conn));
+        Checks.check(thrown[0] != null && conn.statements == 1 && r.getRetryCount() == 0,
+                "a call on the EDT gets a single attempt (" + conn.statements + ")");
+    }
+
+    private static void breakerOpensProbesAndCloses() throws Exception {
+        DbResilience r = new DbResilience();
+        FlakyConnection down = new FlakyConnection(Integer.MAX_VALUE, linkFailure());
+        while (r.getState() == DbResilience.State.CLOSED && down.statements < 10 * MAX_RETRIES) {
+            callExpectingFailure(r, down);
+        }
+        Checks.check(r.getState() == DbResilience.State.OPEN && r.getTripCount() == 1
+                && down.statements == DatabaseConfig.BREAKER_FAILURE_THRESHOLD,
+                "breaker opens after BREAKER_FAILURE_THRESHOLD connection failures (" + down.statements + ")");
+
+        int before = down.statements;
+        SQLException rejected = callExpectingFailure(r, down);
+        Checks.check(rejected instanceof SQLTransientConnectionException && down.statements == before
+                && r.getRejectedCount() == 1, "an open breaker fails fast without touching the connection");
+
+        Thread.sleep(DatabaseConfig.BREAKER_OPEN_MS);
+        callExpectingFailure(r, down);
+        Checks.check(r.getState() == DbResilience.State.OPEN && down.statements == before + 1 && r.getTripCount() == 1,
+                "a failed half-open probe is a single attempt and reopens the breaker");
+
+        Thread.sleep(DatabaseConfig.BREAKER_OPEN_MS);
+        FlakyConnection up = new FlakyConnection(0, null);
+        r.call(() -> query(up));
+        Checks.check(r.getState() == DbResilience.State.CLOSED && up.statements == 1,
+                "a successful probe closes the breaker");
+    }
+
+    private static void nestedCallsDoNotMultiplyRetries() {
+        DbResilience r = new DbResilience();
+        FlakyConnection conn = new FlakyConnection(Integer.MAX_VALUE, linkFailure());
+        try {
+            r.call(() -> r.call(() -> query(conn))); // e.g. a borrow inside a retried read
+        } catch (SQLException e) {
+            // Expected
+        }
+        Checks.check(conn.statements == MAX_RETRIES && r.getRetryCount() == MAX_RETRIES - 1,
+                "a nested call is retried by the outer call only (" + conn.statements + " attempts)");
+    }
+
+    // ───── Helpers ─────
+
+    private static Void query(FlakyConnection conn) throws SQLException {
+        try (Connection c = conn.open(); Statement stmt = c.createStatement()) {
+            stmt.executeQuery("SELECT 1");
+        }
+        return null;
+    }
+
+    /**
+     * @return the failure, or null (a failed check) if the call succeeded
+     */
+    private static SQLException callExpectingFailure(DbResilience r, FlakyConnection conn) {
+        try {
+            r.call(() -> query(conn));
+            return null;
+        } catch (SQLException e) {
+            return e;
+        }
+    }
+
+    private static SQLException linkFailure() {
+        return new SQLException("Communications link failure", "08S01", 0);
+    }
+
+    private static SQLException deadlock() {
+        return new SQLException("Deadlock found when trying to get lock", "40001", 1213);
+    }
+
+    private static SQLException lockWaitTimeout() {
+        return new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+    }
+
+    private static SQLException accessDenied() {
+        return new SQLException("Access denied for user", "28000", 1045);
+    }
+
+    private static String describe(SQLException e) {
+        return e.getMessage() + " (" + e.getSQLState() + "/" + e.getErrorCode() + ")";
+    }
+
+    /**
+     * Hands out Connection proxies whose createStatement() throws the
+     * scripted error for the first N statements, then works (every other
+     * method returns a default value).
+     */
+    private static final class FlakyConnection implements InvocationHandler {
+        private final SQLException error;
+        private int remainingFailures;
+        int statements; // createStatement() calls, failed or not
+
+        FlakyConnection(int failures, SQLException error) {
+            this.remainingFailures = failures;
+            this.error = error;
+        }
+
+        Connection open() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("createStatement")) {
+                statements++;
+                if (remainingFailures > 0) {
+                    remainingFailures--;
+                    throw error;
+                }
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                        new Class<?>[] { Statement.class }, (p, m, a) -> defaultValue(m.getReturnType()));
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (type == boolean.class) {
+                return false;
+            } else if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            }
+            return null;
+        }
+    }
+}
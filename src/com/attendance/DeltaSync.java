@@ -0,0 +1,342 @@
+package com.attendance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental sync of a loaded Student with changes made elsewhere — the
+ * same student on another machine, a teacher's roll call, a shared holiday
+ * being published. Every DatabaseManager write to attendance, subjects or
+ * holidays appends compact rows to the change_log table; a session remembers
+ * the last sequence number it has applied and polls for newer rows,
+ * applying them to its in-memory Student instead of reloading everything.
+ *
+ * - MARK / UNMARK / CLEAR are applied to loaded histories directly;
+ *   subjects holding only counters get theirs from one small query
+ * - SUBJECT (added, renamed, deleted, rescheduled, rebalanced) re-reads the
+ *   subject rows; HOLIDAYS re-reads the holiday lists
+ * - Changes are idempotent and re-read until they are CHANGE_SYNC_SETTLE_SEC
+ *   old, so a transaction that commits out of sequence order isn't skipped
+ * - Too many changes, or no sync for half the log retention, means a full
+ *   reload instead
+ * - Any change invalidates the student's StudentCache entry first, since the
+ *   cache can't tell that another process wrote
+ *
+ * fetch() only reads (run it off the EDT); apply() changes the Student (run
+ * it on the EDT, or under the session's lock).
+ */
+public class DeltaSync {
+
+    /**
+     * What a change_log row says changed.
+     */
+    public enum Kind {
+        MARK(1), // subject, date, present
+        UNMARK(2), // subject, date
+        CLEAR(3), // records in [from, to] removed; subject 0 = all of the student's
+        SUBJECT(4), // subject row or timetable changed, added or deleted
+        HOLIDAYS(5); // own or shared holidays changed
+
+        final int code;
+
+        Kind(int code) {
+            this.code = code;
+        }
+
+        static Kind of(int code) {
+            for (Kind k : values()) {
+                if (k.code == code) {
+                    return k;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final DatabaseManager db;
+    private final Student student;
+    private volatile long position; // Every change up to here is applied
+    private volatile long lastSyncMillis;
+
+    public DeltaSync(DatabaseManager db, Student student) {
+        this(db, student, System.currentTimeMillis());
+    }
+
+    /**
+     * @param syncedAt when the student's data was last current — e.g. the
+     *                 time a StudentSnapshot was taken
+     */
+    public DeltaSync(DatabaseManager db, Student student, long syncedAt) {
+        this.db = db;
+        this.student = student;
+        this.position = student.getChangeSeq();
+        this.lastSyncMillis = syncedAt;
+    }
+
+    public long getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    /**
+     * Fetch and apply in one go (for callers that aren't on the EDT).
+     *
+     * @return true if subjects changed — the caller should rebuild the schedule
+     */
+    public boolean sync() {
+        Delta delta = fetch();
+        return delta != null && apply(delta);
+    }
+
+    /**
+     * Read everything changed since the last sync. Doesn't touch the Student.
+     *
+     * @return the changes, or null if the database couldn't be read
+     */
+    public Delta fetch() {
+        long since = position;
+        int studentId = student.getId();
+        long retention = DatabaseConfig.CHANGE_LOG_RETENTION_HOURS * 60 * 60 * 1000L;
+        boolean reload = System.currentTimeMillis() - lastSyncMillis > retention / 2;
+
+        List<Change> changes = Collections.emptyList();
+        if (!reload) {
+            changes = db.loadChanges(studentId, since, DatabaseConfig.CHANGE_SYNC_MAX_ROWS);
+            if (changes == null) {
+                return null;
+            }
+            reload = changes.size() >= DatabaseConfig.CHANGE_SYNC_MAX_ROWS;
+        }
+
+        Delta delta = new Delta(since);
+        if (reload || !changes.isEmpty()) {
+            // The rows below are read through the StudentCache, which only
+            // knows about this process's writes — drop the student's entry so
+            // they come from MySQL and include the changes just seen
+            db.getStudentCache().invalidate(studentId);
+        }
+        if (reload) {
+            delta.reload = true;
+            delta.position = db.latestChangeSeq(); // Before reading, so nothing in between is lost
+            if (delta.position < 0) {
+                return null;
+            }
+            delta.subjects = db.tryLoadSubjects(studentId);
+            delta.holidays = db.tryLoadHolidays(studentId);
+            delta.sharedHolidays = db.tryLoadSharedHolidays(studentId);
+            return (delta.subjects != null && delta.holidays != null && delta.sharedHolidays != null)
+                    ? delta
+                    : null;
+        }
+
+        delta.changes = changes;
+        boolean attendance = false;
+        boolean holidays = false;
+        for (Change c : changes) {
+            switch (c.kind) {
+                case SUBJECT:
+                    delta.changedSubjects.add(c.subjectId);
+                    break;
+                case HOLIDAYS:
+                    holidays = true;
+                    break;
+                default:
+                    attendance = true;
+            }
+        }
+        // Advance only past a settled prefix; newer rows are read again next time
+        delta.position = settledPosition(changes, since);
+
+        if (attendance) {
+            delta.counters = db.loadSubjectCounters(studentId);
+            if (delta.counters == null) {
+                return null;
+            }
+        }
+        if (!delta.changedSubjects.isEmpty()) {
+            delta.subjects = db.tryLoadSubjects(studentId);
+            if (delta.subjects == null) {
+                return null;
+            }
+        }
+        if (holidays) {
+            delta.holidays = db.tryLoadHolidays(studentId);
+            delta.sharedHolidays = db.tryLoadSharedHolidays(studentId);
+            if (delta.holidays == null || delta.sharedHolidays == null) {
+                return null;
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Apply a fetched delta to the Student. Marks still queued locally win
+     * over logged ones — they reach the log themselves once flushed.
+     *
+     * @return true if subjects were added, removed or replaced — the caller
+     *         should rebuild the schedule
+     */
+    public boolean apply(Delta delta) {
+        if (delta.since != position) {
+            return false; // Another delta was applied meanwhile; fetch again
+        }
+        boolean structural = false;
+        if (delta.holidays != null) {
+            student.setHolidays(delta.holidays);
+            student.setSharedHolidays(delta.sharedHolidays);
+        }
+        if (delta.subjects != null) {
+            structural = mergeSubjects(delta.subjects, delta.reload ? null : delta.changedSubjects);
+        }
+
+        AttendanceWriteQueue queue = db.getAttendanceWriteQueue();
+        Map<Integer, Subject> byId = new HashMap<>();
+        for (Subject s : student.getSubjects()) {
+            byId.put(s.getId(), s);
+        }
+        for (Change c : delta.changes) {
+            if (c.kind == Kind.MARK || c.kind == Kind.UNMARK) {
+                Subject s = byId.get(c.subjectId);
+                if (s == null || !s.isHistoryLoaded() || queue.isPending(c.subjectId, c.from)) {
+                    continue;
+                }
+                if (c.kind == Kind.MARK) {
+                    s.addClass(c.from, c.present);
+                } else {
+                    s.removeRecordForDate(c.from);
+                }
+            } else if (c.kind == Kind.CLEAR) {
+                for (Subject s : student.getSubjects()) {
+                    if (!s.isHistoryLoaded() || (c.subjectId != 0 && c.subjectId != s.getId())) {
+                        continue;
+                    }
+                    for (LocalDate d = c.from; !d.isAfter(c.to); d = d.plusDays(1)) {
+                        if (!queue.isPending(s.getId(), d)) {
+                            s.removeRecordForDate(d);
+                        }
+                    }
+                }
+            }
+        }
+        if (delta.counters != null) {
+            for (Subject s : student.getSubjects()) {
+                int[] counts = delta.counters.get(s.getId());
+                if (counts != null) {
+                    s.updateSummary(counts[0], counts[1]); // Ignored once the history is loaded
+                }
+            }
+        }
+
+        position = delta.position;
+        student.setChangeSeq(delta.position);
+        lastSyncMillis = delta.fetchedAt;
+        return structural;
+    }
+
+    /**
+     * Bring the subject list in line with freshly loaded rows: new subjects
+     * are added, missing ones removed, and changed ones (all of them if
+     * changed is null) replaced by the fresh object.
+     *
+     * @return true if anything was added, removed or replaced
+     */
+    private boolean mergeSubjects(List<Subject> fresh, Set<Integer> changed) {
+        Map<Integer, Subject> freshById = new HashMap<>();
+        for (Subject f : fresh) {
+            freshById.put(f.getId(), f);
+        }
+        boolean structural = false;
+        List<Subject> subjects = student.getSubjects();
+        Set<Integer> present = new HashSet<>();
+        for (int i = subjects.size() - 1; i >= 0; i--) {
+            Subject s = subjects.get(i);
+            Subject f = freshById.get(s.getId());
+            if (f == null) {
+                subjects.remove(i);
+                structural = true;
+            } else {
+                present.add(s.getId());
+                if (changed == null || changed.contains(s.getId())) {
+                    subjects.set(i, f);
+                    structural = true;
+                }
+            }
+        }
+        for (Subject f : fresh) {
+            if (!present.contains(f.getId())) {
+                student.addSubject(f);
+                structural = true;
+            }
+        }
+        return structural;
+    }
+
+    /**
+     * The highest sequence number below which every fetched change has settled.
+     */
+    private static long settledPosition(List<Change> changes, long since) {
+        long position = since;
+        for (Change c : changes) {
+            if (!c.settled) {
+                break;
+            }
+            position = c.seq;
+        }
+        return position;
+    }
+
+    // ───── Types ─────
+
+    /**
+     * One change_log row.
+     */
+    public static final class Change {
+        final long seq;
+        final Kind kind;
+        final int subjectId; // 0 = not about one subject
+        final LocalDate from;
+        final LocalDate to;
+        final boolean present;
+        final boolean settled; // Old enough that no earlier sequence number can still commit
+
+        Change(long seq, Kind kind, int subjectId, LocalDate from, LocalDate to, boolean present, boolean settled) {
+            this.seq = seq;
+            this.kind = kind;
+            this.subjectId = subjectId;
+            this.from = from;
+            this.to = to;
+            this.present = present;
+            this.settled = settled;
+        }
+    }
+
+    /**
+     * Everything read by one fetch().
+     */
+    public static final class Delta {
+        final long since;
+        final long fetchedAt = System.currentTimeMillis();
+        long position;
+        boolean reload;
+        List<Change> changes = new ArrayList<>();
+        final Set<Integer> changedSubjects = new HashSet<>();
+        Map<Integer, int[]> counters; // Subject id -> {conducted, attended}; null if not read
+        List<Subject> subjects; // null if not read
+        List<Holiday> holidays; // null if not read
+        List<Holiday> sharedHolidays;
+
+        Delta(long since) {
+            this.since = since;
+            this.position = since;
+        }
+
+        public boolean isEmpty() {
+            return !reload && changes.isEmpty();
+        }
+    }
+}
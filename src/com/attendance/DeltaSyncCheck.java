@@ -0,0 +1,71 @@
+package com.attendance;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that DeltaSync picks up writes made by another process, even when
+ * this process has the student's data in its StudentCache. A second
+ * DatabaseManager stands in for the other process.
+ *
+ * Usage: java com.attendance.DeltaSyncCheck
+ *
+ * Needs the configured MySQL database. Registers a throwaway student and
+ * deletes it again; exits with status 1 if a check fails.
+ */
+public class DeltaSyncCheck {
+
+    public static void main(String[] args) {
+        DatabaseManager db = Checks.connect();
+        DatabaseManager other = DatabaseManager.openSeparate();
+
+        int studentId = Checks.registerStudent(db, "DeltaSync Check", "deltasync-" + System.nanoTime());
+        try {
+            run(db, other, studentId);
+        } finally {
+            Checks.deleteStudent(studentId);
+        }
+        Checks.exit();
+    }
+
+    private static void run(DatabaseManager db, DatabaseManager other, int studentId) {
+        LocalDate today = LocalDate.now();
+        int localId = db.addSubject(studentId, "Local", 3);
+
+        // Log in: subjects, holidays and the local subject's history are now cached
+        Student student = db.loadStudentAccount(studentId);
+        db.loadStudentData(student);
+        db.loadAttendanceHistories(Collections.singletonList(localId));
+        DeltaSync sync = new DeltaSync(db, student);
+
+        // "Another process" writes
+        int remoteId = other.addSubject(studentId, "Remote", 2);
+        other.addHoliday(studentId, new Holiday(today.plusDays(30), today.plusDays(31), "Remote holiday"));
+        other.saveAttendanceRecord(localId, today, true);
+
+        DeltaSync.Delta delta = sync.fetch();
+        Checks.check(delta != null, "fetch succeeds");
+        if (delta == null) {
+            return;
+        }
+        Checks.check(!delta.isEmpty(), "fetch sees the remote changes");
+        Checks.check(delta.subjects != null && delta.subjects.stream().anyMatch(s -> s.getId() == remoteId),
+                "remotely added subject is in the reloaded subjects");
+        Checks.check(delta.holidays != null && delta.holidays.stream()
+                .anyMatch(h -> h.getDescription().equals("Remote holiday")),
+                "remotely added holiday is in the reloaded holidays");
+        Checks.check(delta.counters != null && delta.counters.get(localId) != null
+                && delta.counters.get(localId)[0] == 1, "counters include the remote mark");
+
+        Map<Integer, List<AttendanceRecord>> histories = db.loadAttendanceHistories(Collections.singletonList(localId));
+        Checks.check(histories != null
+                && histories.get(localId).stream().anyMatch(r -> r.getDate().equals(today)),
+                "history read after fetch includes the remote mark");
+
+        sync.apply(delta);
+        Checks.check(student.getSubjects().stream().anyMatch(s -> s.getId() == remoteId),
+                "apply adds the remote subject to the student");
+    }
+}
@@ -240,6 +240,13 @@ public class DetailedSummaryExport {
 
         for (Subject s : student.getSubjects()) {
             int att = 0, cond = 0;
+            // The opening balance counts toward the totals when its date is in range;
+            // it has no per-date breakdown, so monthly / weekday charts only use records
+            OpeningBalance balance = s.getOpeningBalance();
+            if (balance != null && !balance.getAsOf().isBefore(from) && !balance.getAsOf().isAfter(to)) {
+                att += balance.getAttended();
+                cond += balance.getConducted();
+            }
             for (AttendanceRecord r : s.getAttendanceHistory()) {
                 if (r.getDate() == null) continue;
                 if (r.getDate().isBefore(from) || r.getDate().isAfter(to)) continue;
@@ -272,8 +279,8 @@ public class DetailedSummaryExport {
 
         // ── GENERATE CHARTS ──
         String pieChartBase64 = generatePieChart(totalAttended, totalConducted - totalAttended);
-        String barChartBase64 = generateBarChart(subjectData);
-        String trendChartBase64 = generateTrendChart(monthlyData);
+        String barChartBase64 = generateBarChart(subjectData, student.getAttendancePolicy());
+        String trendChartBase64 = generateTrendChart(monthlyData, student.getAttendancePolicy());
         String heatmapBase64 = generateDayHeatmap(dayOfWeekData);
 
         // ── BUILD HTML ──
@@ -325,11 +332,11 @@ public class DetailedSummaryExport {
         html.append("</div>\n");
 
         // ── STATS GRID ──
-        boolean eligible = overallPct >= 75.0;
+        AttendancePolicy policy = student.getAttendancePolicy();
+        boolean eligible = policy.meetsPercentage(overallPct);
         int eligibleCount = 0, atRiskCount = 0;
         for (int[] v : subjectData.values()) {
-            double pct = v[1] == 0 ? 100.0 : (double) v[0] / v[1] * 100.0;
-            if (pct >= 75.0) eligibleCount++; else atRiskCount++;
+            if (policy.meets(v[0], v[1])) eligibleCount++; else atRiskCount++;
         }
 
         html.append("<div class='stats-grid'>\n");
@@ -351,7 +358,7 @@ public class DetailedSummaryExport {
         for (Map.Entry<String, int[]> entry : subjectData.entrySet()) {
             int[] v = entry.getValue();
             double pct = v[1] == 0 ? 100.0 : (double) v[0] / v[1] * 100.0;
-            boolean safe = pct >= 75.0;
+            boolean safe = policy.meets(v[0], v[1]);
             String color = safe ? "#10b981" : "#ef4444";
             String badge = safe ? "<span class='badge-safe'>Safe</span>" : "<span class='badge-risk'>At Risk</span>";
 
@@ -360,11 +367,10 @@ public class DetailedSummaryExport {
             for (Subject s : student.getSubjects()) {
                 if (s.getName().equals(entry.getKey())) {
                     if (safe) {
-                        int bunks = AttendanceCalculator.calculateSafeBunks(s);
+                        int bunks = AttendanceCalculator.calculateSafeBunks(s, policy);
                         action = "Can miss " + bunks + " more";
                     } else {
-                        int recovery = AttendanceCalculator.calculateRecoveryClasses(s);
-                        action = "Attend next " + recovery;
+                        action = policy.recoveryAdvice(s);
                     }
                     break;
                 }
@@ -483,7 +489,7 @@ public class DetailedSummaryExport {
     // CHART: BAR
     // ═══════════════════════════════════════════
 
-    private static String generateBarChart(Map<String, int[]> data) {
+    private static String generateBarChart(Map<String, int[]> data, AttendancePolicy policy) {
         if (data.isEmpty()) return null;
 
         int n = data.size();
@@ -510,15 +516,15 @@ public class DetailedSummaryExport {
             g.drawString(pct + "%", 20, y + 5);
         }
 
-        // 75% threshold line
-        int threshY = chartBottom - (int) (0.75 * chartHeight);
+        // Eligibility threshold line
+        int threshY = chartBottom - (int) (policy.getThresholdPercentage() / 100.0 * chartHeight);
         g.setColor(new Color(239, 68, 68, 120));
         g.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10, new float[]{8, 4}, 0));
         g.drawLine(chartLeft, threshY, chartRight, threshY);
         g.setStroke(new BasicStroke(1));
         g.setColor(new Color(239, 68, 68));
         g.setFont(new Font("Segoe UI", Font.BOLD, 10));
-        g.drawString("75%", chartRight - 28, threshY - 5);
+        g.drawString(policy.getThresholdLabel(), chartRight - 28, threshY - 5);
 
         // Bars
         int barSpacing = chartWidth / n;
@@ -560,7 +566,7 @@ public class DetailedSummaryExport {
     // CHART: TREND LINE
     // ═══════════════════════════════════════════
 
-    private static String generateTrendChart(Map<String, Map<String, int[]>> monthlyData) {
+    private static String generateTrendChart(Map<String, Map<String, int[]>> monthlyData, AttendancePolicy policy) {
         if (monthlyData.isEmpty()) return null;
 
         int w = 700, h = 400;
@@ -585,8 +591,8 @@ public class DetailedSummaryExport {
             g.drawString(pct + "%", 15, y + 5);
         }
 
-        // 75% line
-        int threshY = chartBottom - (int) (0.75 * chartHeight);
+        // Eligibility threshold line
+        int threshY = chartBottom - (int) (policy.getThresholdPercentage() / 100.0 * chartHeight);
         g.setColor(new Color(239, 68, 68, 100));
         g.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10, new float[]{6, 4}, 0));
         g.drawLine(chartLeft, threshY, chartRight, threshY);
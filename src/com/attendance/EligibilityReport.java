@@ -0,0 +1,218 @@
+package com.attendance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.stream.Collectors;
+
+/**
+ * Headless eligibility run across the whole database — the registrar's
+ * nightly "who is below their required percentage in any subject" report.
+ * A second entry point alongside AttendanceApp.main; no Swing involved.
+ *
+ * Students are streamed from MySQL (DatabaseManager.streamStudentSummaries),
+ * evaluated with AttendanceCalculator in parallel chunks of CHUNK_SIZE on the
+ * common fork/join pool, and written out in student order as each chunk
+ * completes, so memory stays bounded by one chunk however large the database.
+ *
+ * Usage: java com.attendance.EligibilityReport [--format csv|ndjson] [--out FILE] [--all]
+ *
+ * By default only subjects below the student's threshold are written;
+ * --all writes every subject. Without --out the report goes to stdout.
+ * classes_needed is blank (null in NDJSON) when the threshold can't be
+ * reached by attending more classes.
+ * Progress and throughput (students/sec) go to stderr.
+ */
+public class EligibilityReport {
+
+    private static final int CHUNK_SIZE = 1000; // Students evaluated in parallel per chunk
+
+    private static final String CSV_HEADER = "student_id,username,name,subject,attended,conducted,"
+            + "percentage,required,eligible,classes_needed,safe_bunks";
+
+    private final boolean ndjson;
+    private final boolean includeEligible;
+    private final Writer out;
+    private final List<Student> chunk = new ArrayList<>(CHUNK_SIZE);
+    private long students = 0;
+    private long subjects = 0;
+    private long flagged = 0;
+
+    EligibilityReport(Writer out, boolean ndjson, boolean includeEligible) {
+        this.out = out;
+        this.ndjson = ndjson;
+        this.includeEligible = includeEligible;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String format = "csv";
+        String outPath = null;
+        boolean all = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format":
+                    format = args[++i];
+                    break;
+                case "--out":
+                    outPath = args[++i];
+                    break;
+                case "--all":
+                    all = true;
+                    break;
+                default:
+                    System.err.println("Usage: EligibilityReport [--format csv|ndjson] [--out FILE] [--all]");
+                    System.exit(2);
+            }
+        }
+        if (!format.equals("csv") && !format.equals("ndjson")) {
+            System.err.println("Unknown format: " + format);
+            System.exit(2);
+        }
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        if (!db.testConnection() || !db.migrateSchema()) {
+            System.err.println("Cannot connect to MySQL at " + DatabaseConfig.DB_URL);
+            System.exit(1);
+        }
+
+        Writer out = (outPath != null)
+                ? Files.newBufferedWriter(Paths.get(outPath), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        EligibilityReport report = new EligibilityReport(out, format.equals("ndjson"), all);
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = report.run(db);
+        } finally {
+            out.flush();
+            if (outPath != null) {
+                out.close();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.err.printf("%d students, %d subjects, %d below threshold in %.2f s (%.0f students/s)%n",
+                report.students, report.subjects, report.flagged, seconds,
+                seconds > 0 ? report.students / seconds : 0);
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Stream, evaluate and write the whole report.
+     *
+     * @return false if reading from the database failed part-way
+     */
+    boolean run(DatabaseManager db) throws IOException {
+        if (!ndjson) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+        boolean ok;
+        try {
+            ok = db.streamStudentSummaries(student -> {
+                chunk.add(student);
+                if (chunk.size() >= CHUNK_SIZE) {
+                    writeChunk();
+                }
+            });
+            writeChunk();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return ok;
+    }
+
+    /**
+     * Evaluate the buffered students in parallel, then write their lines in order.
+     */
+    private void writeChunk() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Evaluation> results = chunk.parallelStream()
+                .map(this::evaluate)
+                .collect(Collectors.toList());
+        try {
+            for (Evaluation result : results) {
+                for (String line : result.lines) {
+                    out.write(line);
+                    out.write('\n');
+                }
+                flagged += result.belowThreshold;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        students += chunk.size();
+        for (Student s : chunk) {
+            subjects += s.getSubjects().size();
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Evaluate one student (runs on a fork/join worker).
+     */
+    private Evaluation evaluate(Student student) {
+        AttendancePolicy policy = student.getAttendancePolicy();
+        Evaluation result = new Evaluation();
+        List<String> lines = result.lines;
+        for (Subject subject : student.getSubjects()) {
+            boolean eligible = AttendanceCalculator.isEligible(subject, policy);
+            if (!eligible) {
+                result.belowThreshold++;
+            } else if (!includeEligible) {
+                continue;
+            }
+            OptionalInt recovery = AttendanceCalculator.calculateRecoveryClasses(subject, policy);
+            int safeBunks = AttendanceCalculator.calculateSafeBunks(subject, policy);
+            String percentage = Json.decimal(subject.getAttendancePercentage());
+            if (ndjson) {
+                lines.add("{\"student_id\":" + student.getId()
+                        + ",\"username\":" + Json.quote(student.getUsername())
+                        + ",\"name\":" + Json.quote(student.getName())
+                        + ",\"subject\":" + Json.quote(subject.getName())
+                        + ",\"attended\":" + subject.getClassesAttended()
+                        + ",\"conducted\":" + subject.getClassesConducted()
+                        + ",\"percentage\":" + percentage
+                        + ",\"required\":" + policy.getThresholdPercentage()
+                        + ",\"eligible\":" + eligible
+                        + ",\"classes_needed\":" + (recovery.isPresent() ? recovery.getAsInt() : "null")
+                        + ",\"safe_bunks\":" + safeBunks + "}");
+            } else {
+                lines.add(student.getId() + "," + csvField(student.getUsername()) + ","
+                        + csvField(student.getName()) + "," + csvField(subject.getName()) + ","
+                        + subject.getClassesAttended() + "," + subject.getClassesConducted() + ","
+                        + percentage + "," + policy.getThresholdPercentage() + "," + eligible + ","
+                        + (recovery.isPresent() ? Integer.toString(recovery.getAsInt()) : "") + "," + safeBunks);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Report lines for one student and how many of their subjects are below threshold.
+     */
+    private static final class Evaluation {
+        final List<String> lines = new ArrayList<>();
+        int belowThreshold = 0;
+    }
+
+    private static String csvField(String field) {
+        if (field == null) {
+            return "";
+        }
+        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+}
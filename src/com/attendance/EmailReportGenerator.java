@@ -73,7 +73,8 @@ public class EmailReportGenerator {
             totalConducted += s.getClassesConducted();
         }
         double overallPct = (totalConducted == 0) ? 100.0 : (double) totalAttended / totalConducted * 100.0;
-        boolean eligible = overallPct >= 75.0;
+        AttendancePolicy policy = student.getAttendancePolicy();
+        boolean eligible = policy.meetsPercentage(overallPct);
 
         StringBuilder html = new StringBuilder();
         html.append("<!DOCTYPE html><html><head><meta charset='UTF-8'></head><body style='margin:0; padding:0; background-color:#f0f2f5; font-family:Segoe UI,Arial,sans-serif;'>");
@@ -120,7 +121,7 @@ public class EmailReportGenerator {
 
         for (Subject s : student.getSubjects()) {
             double pct = s.getAttendancePercentage();
-            boolean subEligible = pct >= 75.0;
+            boolean subEligible = policy.meets(s);
             String rowColor = subEligible ? "#059669" : "#dc2626";
             String statusBadge = subEligible
                     ? "<span style='background:#d1fae5; color:#065f46; padding:3px 10px; border-radius:12px; font-size:11px; font-weight:600;'>Safe</span>"
@@ -128,11 +129,10 @@ public class EmailReportGenerator {
 
             String actionText;
             if (subEligible) {
-                int safeBunks = AttendanceCalculator.calculateSafeBunks(s);
+                int safeBunks = AttendanceCalculator.calculateSafeBunks(s, policy);
                 actionText = "Can miss " + safeBunks;
             } else {
-                int recovery = AttendanceCalculator.calculateRecoveryClasses(s);
-                actionText = "Attend next " + recovery;
+                actionText = policy.recoveryAdvice(s);
             }
 
             html.append("<tr style='border-bottom:1px solid #f3f4f6;'>");
@@ -197,12 +197,13 @@ public class EmailSettingsDialog extends JDialog {
         student.setEmail(email);
         student.setEmailFrequency(frequency);
 
-        // Save to DB
-        DatabaseManager.getInstance().saveEmailSettings(student);
-
-        JOptionPane.showMessageDialog(this,
-                "✅ Email settings saved!",
-                "Saved", JOptionPane.INFORMATION_MESSAGE);
-        dispose();
+        // Save to DB (off the EDT)
+        AsyncDb.run(this, () -> DatabaseManager.getInstance().saveEmailSettings(student))
+                .thenRun(() -> {
+                    JOptionPane.showMessageDialog(this,
+                            "✅ Email settings saved!",
+                            "Saved", JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                });
     }
 }
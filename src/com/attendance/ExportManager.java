@@ -86,13 +86,14 @@ public class ExportManager {
             // Per-subject summary
             writer.println("## Per-Subject Summary");
             writer.println("Subject,Attended,Conducted,Percentage,Eligible");
+            AttendancePolicy policy = student.getAttendancePolicy();
             for (Subject s : student.getSubjects()) {
                 writer.printf("%s,%d,%d,%.1f%%,%s%n",
                         escapeCSV(s.getName()),
                         s.getClassesAttended(),
                         s.getClassesConducted(),
                         s.getAttendancePercentage(),
-                        s.getAttendancePercentage() >= 75 ? "Yes" : "No");
+                        policy.meets(s) ? "Yes" : "No");
             }
             writer.println();
 
@@ -100,9 +101,18 @@ public class ExportManager {
             writer.println("## Detailed Records");
             writer.println("Date,Day,Subject,Status");
 
-            // Collect all records and sort by date
+            // Collect all records and sort by date (opening balances first on their date)
             List<String[]> allRecords = new ArrayList<>();
             for (Subject s : student.getSubjects()) {
+                OpeningBalance balance = s.getOpeningBalance();
+                if (balance != null) {
+                    allRecords.add(new String[] {
+                            balance.getAsOf().format(DATE_FMT),
+                            balance.getAsOf().getDayOfWeek().toString().substring(0, 3),
+                            s.getName(),
+                            "Opening balance " + balance.getAttended() + "/" + balance.getConducted()
+                    });
+                }
                 for (AttendanceRecord record : s.getAttendanceHistory()) {
                     if (record.getDate() != null) {
                         allRecords.add(new String[] {
@@ -275,18 +285,25 @@ public class ExportManager {
         html.append("<table>\n");
         html.append("<tr><th>Subject</th><th>Att.</th><th>Cond.</th><th>Percentage</th><th>Eligibility Status</th><th>Actionable Notes</th></tr>\n");
 
+        AttendancePolicy policy = student.getAttendancePolicy();
         for (Subject s : student.getSubjects()) {
             double pct = s.getAttendancePercentage();
-            String statusClass = pct >= 75.0 ? "status-safe" : "status-danger";
-            String statusText = pct >= 75.0 ? "Eligible" : "Critical (< 75%)";
+            boolean eligible = policy.meets(s);
+            String statusClass = eligible ? "status-safe" : "status-danger";
+            String statusText = eligible ? "Eligible" : "Critical (< " + policy.getThresholdLabel() + ")";
             
             String notes = "-";
-            if (pct >= 75.0) {
-                int safeBunks = s.calculateSafeBunks(75.0);
+            if (eligible) {
+                int safeBunks = policy.safeBunks(s);
                 if (safeBunks > 0) notes = "<strong>" + safeBunks + "</strong> Safe Bunk" + (safeBunks > 1 ? "s" : "");
             } else {
-                int needed = s.calculateClassesNeeded(75.0);
-                notes = "Attend next <strong>" + needed + "</strong> class" + (needed > 1 ? "es" : "");
+                OptionalInt needed = policy.classesNeeded(s);
+                if (needed.isPresent()) {
+                    int n = needed.getAsInt();
+                    notes = "Attend next <strong>" + n + "</strong> class" + (n > 1 ? "es" : "");
+                } else {
+                    notes = AttendancePolicy.UNREACHABLE;
+                }
             }
 
             html.append("<tr>");
@@ -1,34 +1,91 @@
 package com.attendance;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 /**
- * Represents a single holiday date with a description.
- * Used to pair a date with the reason for the holiday (e.g. "Holi Break").
+ * A holiday period [startDate, endDate] (inclusive) with a description.
+ * Group holidays (e.g. "Holi Break") are one interval rather than one entry
+ * per day; a single-day holiday is an interval of length 1.
+ *
+ * A holiday is either the student's own or comes from a SharedCalendar the
+ * student subscribes to (calendarId != 0).
+ *
+ * Immutable — edits replace the holiday through Student.
  */
 public class Holiday {
-    private LocalDate date;
-    private String description;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final String description;
+    private final int calendarId; // 0 = the student's own holiday
+    private final String calendarName;
 
     public Holiday(LocalDate date, String description) {
-        this.date = date;
+        this(date, date, description);
+    }
+
+    public Holiday(LocalDate startDate, LocalDate endDate, String description) {
+        this(startDate, endDate, description, 0, null);
+    }
+
+    /**
+     * A holiday published to a shared calendar.
+     */
+    public Holiday(LocalDate startDate, LocalDate endDate, String description, int calendarId, String calendarName) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Holiday ends (" + endDate + ") before it starts (" + startDate + ").");
+        }
+        this.startDate = startDate;
+        this.endDate = endDate;
         this.description = (description != null && !description.isEmpty()) ? description : "Official Holiday";
+        this.calendarId = calendarId;
+        this.calendarName = calendarName;
     }
 
-    public LocalDate getDate() {
-        return date;
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
     }
 
     public String getDescription() {
         return description;
     }
 
-    public void setDate(LocalDate date) {
-        this.date = date;
+    public boolean isShared() {
+        return calendarId != 0;
     }
 
-    public void setDescription(String description) {
-        this.description = (description != null && !description.isEmpty()) ? description : "Official Holiday";
+    public int getCalendarId() {
+        return calendarId;
+    }
+
+    /**
+     * Name of the shared calendar, or null for the student's own holiday.
+     */
+    public String getCalendarName() {
+        return calendarName;
+    }
+
+    public int getDayCount() {
+        return (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+    }
+
+    public boolean isSingleDay() {
+        return startDate.equals(endDate);
+    }
+
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+
+    /**
+     * True if this holiday shares at least one day with [from, to].
+     */
+    public boolean overlaps(LocalDate from, LocalDate to) {
+        return !from.isAfter(endDate) && !to.isBefore(startDate);
     }
 
     @Override
@@ -38,16 +95,17 @@ public class Holiday {
         if (o == null || getClass() != o.getClass())
             return false;
         Holiday holiday = (Holiday) o;
-        return date.equals(holiday.date);
+        return calendarId == holiday.calendarId && startDate.equals(holiday.startDate)
+                && endDate.equals(holiday.endDate);
     }
 
     @Override
     public int hashCode() {
-        return date.hashCode();
+        return 31 * (31 * calendarId + startDate.hashCode()) + endDate.hashCode();
     }
 
     @Override
     public String toString() {
-        return date + " (" + description + ")";
+        return (isSingleDay() ? startDate.toString() : startDate + " to " + endDate) + " (" + description + ")";
     }
 }
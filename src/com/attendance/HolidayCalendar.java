@@ -0,0 +1,234 @@
+package com.attendance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Indexed non-teaching-day calendar for one student.
+ * Holidays are kept as intervals and the mid-sem exam window is a single
+ * [start, end] range, so "is this a teaching day?" is one floor lookup and
+ * range counts sum interval overlaps — a two-week break costs one entry, not
+ * fourteen.
+ *
+ * Two layers are merged once into a union index:
+ * - the student's own holidays (never overlapping each other — Student
+ *   rejects overlaps), keyed by start day
+ * - holidays from subscribed SharedCalendars, minus the ones the student hid;
+ *   these may overlap anything
+ *
+ * Owned and kept in sync by Student — callers should not mutate it directly.
+ */
+public class HolidayCalendar {
+
+    private final TreeMap<Long, Holiday> personalByStartDay = new TreeMap<>();
+    private List<Holiday> shared = new ArrayList<>(); // Sorted by start date
+    private final TreeMap<Long, Long> union = new TreeMap<>(); // Merged start day -> end day
+
+    // Mid-sem exam window (inclusive); midsemStart > midsemEnd means "not set"
+    private long midsemStart = 1;
+    private long midsemEnd = 0;
+
+    private int modCount = 0; // Bumped on every change so derived indexes can detect staleness
+
+    // ───── Queries ─────
+
+    public boolean isHoliday(LocalDate date) {
+        long day = date.toEpochDay();
+        Map.Entry<Long, Long> e = union.floorEntry(day);
+        return e != null && e.getValue() >= day;
+    }
+
+    /**
+     * The holiday covering a date (the student's own first), or null.
+     */
+    public Holiday getHolidayOn(LocalDate date) {
+        Map.Entry<Long, Holiday> e = personalByStartDay.floorEntry(date.toEpochDay());
+        if (e != null && e.getValue().contains(date)) {
+            return e.getValue();
+        }
+        for (Holiday h : shared) {
+            if (h.getStartDate().isAfter(date)) {
+                break;
+            }
+            if (h.contains(date)) {
+                return h;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True if any of the student's own holidays shares a day with [from, to]
+     * (inclusive). Shared holidays may overlap them freely.
+     */
+    public boolean overlapsPersonalHoliday(LocalDate from, LocalDate to) {
+        Map.Entry<Long, Holiday> e = personalByStartDay.floorEntry(to.toEpochDay());
+        return e != null && !e.getValue().getEndDate().isBefore(from);
+    }
+
+    public boolean isDuringMidsemExams(LocalDate date) {
+        long day = date.toEpochDay();
+        return day >= midsemStart && day <= midsemEnd;
+    }
+
+    /**
+     * True if no classes run on this date (holiday or mid-sem exams).
+     */
+    public boolean isNonTeachingDay(LocalDate date) {
+        return isDuringMidsemExams(date) || isHoliday(date);
+    }
+
+    /**
+     * Number of holiday days in [from, to] (inclusive).
+     */
+    public int countHolidays(LocalDate from, LocalDate to) {
+        return countHolidayDays(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Number of non-teaching days (holidays or mid-sem exams) in [from, to] (inclusive).
+     */
+    public int countNonTeachingDays(LocalDate from, LocalDate to) {
+        long start = from.toEpochDay();
+        long end = to.toEpochDay();
+        if (end < start) {
+            return 0;
+        }
+        int count = countHolidayDays(start, end);
+        long overlapStart = Math.max(start, midsemStart);
+        long overlapEnd = Math.min(end, midsemEnd);
+        if (overlapStart <= overlapEnd) {
+            // Add the exam days, minus holidays already counted inside the window
+            count += (int) (overlapEnd - overlapStart + 1) - countHolidayDays(overlapStart, overlapEnd);
+        }
+        return count;
+    }
+
+    /**
+     * All holidays (own and shared), ordered by start date.
+     */
+    public List<Holiday> getHolidays() {
+        List<Holiday> all = new ArrayList<>(personalByStartDay.values());
+        all.addAll(shared);
+        all.sort(Comparator.comparing(Holiday::getStartDate));
+        return all;
+    }
+
+    /**
+     * The student's own holidays, ordered by start date.
+     */
+    public List<Holiday> getPersonalHolidays() {
+        return new ArrayList<>(personalByStartDay.values());
+    }
+
+    public int getModCount() {
+        return modCount;
+    }
+
+    // ───── Updates (called by Student) ─────
+
+    /**
+     * Add one of the student's own holidays. The caller guarantees it
+     * overlaps none of the student's other holidays.
+     */
+    void addHoliday(Holiday holiday) {
+        personalByStartDay.put(holiday.getStartDate().toEpochDay(), holiday);
+        rebuildUnion();
+    }
+
+    void removeHoliday(Holiday holiday) {
+        if (holiday.isShared()) {
+            shared.remove(holiday); // Hidden by the student
+        } else {
+            personalByStartDay.remove(holiday.getStartDate().toEpochDay(), holiday);
+        }
+        rebuildUnion();
+    }
+
+    /**
+     * Replace the student's own holidays (e.g. after loading from the
+     * database). Holidays overlapping an earlier one are skipped.
+     */
+    void setHolidays(Collection<Holiday> holidays) {
+        personalByStartDay.clear();
+        for (Holiday h : holidays) {
+            if (overlapsPersonalHoliday(h.getStartDate(), h.getEndDate())) {
+                System.err.println("Ignoring overlapping holiday: " + h);
+                continue;
+            }
+            personalByStartDay.put(h.getStartDate().toEpochDay(), h);
+        }
+        rebuildUnion();
+    }
+
+    /**
+     * Replace the holidays coming from subscribed shared calendars
+     * (already filtered by the student's exclusions).
+     */
+    void setSharedHolidays(Collection<Holiday> holidays) {
+        shared = new ArrayList<>(holidays);
+        shared.sort(Comparator.comparing(Holiday::getStartDate));
+        rebuildUnion();
+    }
+
+    void setMidsemWindow(LocalDate start, LocalDate end) {
+        if (start == null || end == null) {
+            midsemStart = 1;
+            midsemEnd = 0;
+        } else {
+            midsemStart = start.toEpochDay();
+            midsemEnd = end.toEpochDay();
+        }
+        modCount++;
+    }
+
+    // ───── Internals ─────
+
+    private int countHolidayDays(long startDay, long endDay) {
+        if (endDay < startDay || union.isEmpty()) {
+            return 0;
+        }
+        Long first = union.floorKey(startDay);
+        long count = 0;
+        for (Map.Entry<Long, Long> e : union.subMap(first != null ? first : startDay, true, endDay, true).entrySet()) {
+            long from = Math.max(startDay, e.getKey());
+            long to = Math.min(endDay, e.getValue());
+            if (from <= to) {
+                count += to - from + 1;
+            }
+        }
+        return (int) count;
+    }
+
+    /**
+     * Merge own and shared holidays into disjoint [start, end] day ranges.
+     */
+    private void rebuildUnion() {
+        List<Holiday> all = getHolidays();
+        union.clear();
+        long runStart = 0;
+        long runEnd = Long.MIN_VALUE;
+        for (Holiday h : all) {
+            long start = h.getStartDate().toEpochDay();
+            long end = h.getEndDate().toEpochDay();
+            if (runEnd != Long.MIN_VALUE && start <= runEnd + 1) {
+                runEnd = Math.max(runEnd, end); // Overlapping or adjacent — extend the run
+            } else {
+                if (runEnd != Long.MIN_VALUE) {
+                    union.put(runStart, runEnd);
+                }
+                runStart = start;
+                runEnd = end;
+            }
+        }
+        if (runEnd != Long.MIN_VALUE) {
+            union.put(runStart, runEnd);
+        }
+        modCount++;
+    }
+}
@@ -0,0 +1,117 @@
+package com.attendance;
+
+import java.util.Locale;
+
+/**
+ * Minimal JSON output for the headless tools (EligibilityReport, ApiServer)
+ * — the project has no JSON library. Builds objects and arrays as strings.
+ */
+public final class Json {
+
+    private Json() {
+        // Utility class
+    }
+
+    /**
+     * A JSON string literal, or null.
+     */
+    public static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * A number with two decimals (locale-independent).
+     */
+    public static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /**
+     * Object builder: new Json.Obj().put("a", 1).put("b", "x").toString().
+     */
+    public static final class Obj {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        public Obj put(String key, String value) {
+            return putRaw(key, quote(value));
+        }
+
+        public Obj put(String key, long value) {
+            return putRaw(key, Long.toString(value));
+        }
+
+        public Obj put(String key, double value) {
+            return putRaw(key, decimal(value));
+        }
+
+        public Obj put(String key, boolean value) {
+            return putRaw(key, Boolean.toString(value));
+        }
+
+        /**
+         * Add an already-encoded value (nested object or array).
+         */
+        public Obj putRaw(String key, Object json) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(quote(key)).append(':').append(json);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb + "}";
+        }
+    }
+
+    /**
+     * Array builder of already-encoded values.
+     */
+    public static final class Arr {
+        private final StringBuilder sb = new StringBuilder("[");
+
+        public Arr add(Object json) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(json);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb + "]";
+        }
+    }
+}
@@ -14,6 +14,8 @@ public class LoginDialog extends JDialog {
 
     private Student authenticatedStudent;
     private boolean loginSuccessful = false;
+    private WeeklySchedule schedule; // Loaded alongside the student
+    private StudentSnapshot snapshot; // Set when the login was served from the local snapshot
 
     // UI Colors mapped to ThemeManager (default is dark before login)
     private static final Color BG_COLOR = ThemeManager.getBgColor();
@@ -126,18 +128,44 @@ public class LoginDialog extends JDialog {
                 return;
             }
 
-            // Pass plaintext password — DatabaseManager verifies against stored salted hash
-            Student student = DatabaseManager.getInstance().authenticateStudent(username, password);
-
-            if (student != null) {
-                authenticatedStudent = student;
+            // Warm start: a local snapshot whose stored hash matches opens the
+            // dashboard at once; MainWindow revalidates it against MySQL
+            StudentSnapshot cached = StudentSnapshot.load(username);
+            if (cached != null && PasswordValidator.checkPassword(password, cached.getPasswordHash())) {
+                ThemeManager.setDarkMode(cached.isDarkMode());
+                snapshot = cached;
+                authenticatedStudent = cached.getStudent();
+                schedule = cached.getSchedule();
                 loginSuccessful = true;
-                // Load subjects, holidays, schedule
-                loadStudentData(student);
                 dispose();
-            } else {
-                statusLabel.setText("Invalid username or password.");
+                return;
             }
+
+            // Pass plaintext password — DatabaseManager verifies against stored salted hash.
+            // Authentication and the initial data load run off the EDT.
+            loginBtn.setEnabled(false);
+            statusLabel.setText("Signing in…");
+            AsyncDb.query(this, () -> {
+                Student student = DatabaseManager.getInstance().authenticateStudent(username, password);
+                if (student != null) {
+                    // Load subjects, holidays, schedule, theme
+                    loadStudentData(student);
+                }
+                return student;
+            }).whenComplete((student, ex) -> {
+                loginBtn.setEnabled(true);
+                if (ex != null) {
+                    statusLabel.setText("Sign-in failed — please try again.");
+                } else if (student != null) {
+                    authenticatedStudent = student;
+                    loginSuccessful = true;
+                    dispose();
+                } else if (!DatabaseManager.getInstance().isStarted()) {
+                    statusLabel.setText("Cannot reach the database — try again shortly.");
+                } else {
+                    statusLabel.setText("Invalid username or password.");
+                }
+            });
         });
 
         return panel;
@@ -259,27 +287,41 @@ public class LoginDialog extends JDialog {
                 return;
             }
 
-            if (DatabaseManager.getInstance().usernameExists(username)) {
-                statusLabel.setText("Username already taken.");
-                return;
-            }
-
-            String hash = PasswordValidator.hashPassword(password);
-            int id = DatabaseManager.getInstance().registerStudent(name, username, hash);
-
-            if (id > 0) {
-                authenticatedStudent = new Student(name);
-                authenticatedStudent.setId(id);
-                authenticatedStudent.setUsername(username);
-                loginSuccessful = true;
-                JOptionPane.showMessageDialog(this,
-                        "Account created successfully! Welcome, " + name + "!",
-                        "Registration Successful",
-                        JOptionPane.INFORMATION_MESSAGE);
-                dispose();
-            } else {
-                statusLabel.setText("Registration failed. Please try again.");
-            }
+            // Username check, hashing and insert run off the EDT
+            // (0 = username taken, -1 = failed, otherwise the new id)
+            registerBtn.setEnabled(false);
+            AsyncDb.update(this, () -> {
+                DatabaseManager db = DatabaseManager.getInstance();
+                if (db.usernameExists(username)) {
+                    return 0;
+                }
+                String hash = PasswordValidator.hashPassword(password);
+                int id = db.registerStudent(name, username, hash);
+                if (id > 0) {
+                    ThemeManager.loadTheme(id);
+                }
+                return id;
+            }).whenComplete((id, ex) -> {
+                registerBtn.setEnabled(true);
+                if (ex != null) {
+                    statusLabel.setText("Registration failed. Please try again.");
+                } else if (id == 0) {
+                    statusLabel.setText("Username already taken.");
+                } else if (id > 0) {
+                    authenticatedStudent = new Student(name);
+                    authenticatedStudent.setId(id);
+                    authenticatedStudent.setUsername(username);
+                    schedule = new WeeklySchedule();
+                    loginSuccessful = true;
+                    JOptionPane.showMessageDialog(this,
+                            "Account created successfully! Welcome, " + name + "!",
+                            "Registration Successful",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                } else {
+                    statusLabel.setText("Registration failed. Please try again.");
+                }
+            });
         });
 
         return panel;
@@ -287,14 +329,12 @@ public class LoginDialog extends JDialog {
 
     // ── Helper Methods ──
 
+    /**
+     * Runs on the DB executor — touches only the not-yet-published Student.
+     */
     private void loadStudentData(Student student) {
-        // Load subjects with attendance records
-        java.util.List<Subject> subjects = DatabaseManager.getInstance().loadSubjects(student.getId());
-        for (Subject s : subjects) {
-            student.addSubject(s);
-        }
-        // Load holidays
-        student.setHolidays(DatabaseManager.getInstance().loadHolidays(student.getId()));
+        schedule = DatabaseManager.getInstance().loadStudentData(student);
+        ThemeManager.loadTheme(student.getId());
     }
 
     private void updateIndicator(JLabel label, boolean met, String text) {
@@ -347,6 +387,17 @@ public class LoginDialog extends JDialog {
         return authenticatedStudent;
     }
 
+    public WeeklySchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * The snapshot the login was served from, or null if it was loaded from MySQL.
+     */
+    public StudentSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     public boolean isLoginSuccessful() {
         return loginSuccessful;
     }
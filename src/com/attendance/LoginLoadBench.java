@@ -0,0 +1,129 @@
+package com.attendance;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Login timing for a student with a long history — by default 10 subjects
+ * with 3 years of Mon/Wed/Fri classes each (about 4,700 records). One round
+ * is what the desktop login does plus the history preload of the first
+ * screen that walks every subject: loadStudentAccount, loadStudentData
+ * (subject rows, holidays, schedule) and one loadAttendanceHistories for
+ * all subjects.
+ *
+ * Usage: java com.attendance.LoginLoadBench [subjects] [years] [rounds]
+ *
+ * Cold rounds drop the student's StudentCache entry first, so every read
+ * goes to MySQL; warm rounds are served from the cache. Needs the
+ * configured MySQL database; registers a throwaway student, seeds it with
+ * JDBC batches, and deletes it again.
+ */
+public class LoginLoadBench {
+
+    private static final List<DayOfWeek> CLASS_DAYS = Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY);
+
+    public static void main(String[] args) throws SQLException {
+        int subjects = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        DatabaseManager db = Checks.connect();
+        int studentId = Checks.registerStudent(db, "LoginLoad Bench", "loginload-" + System.nanoTime());
+        try (Connection conn = DriverManager.getConnection(
+                DatabaseConfig.DB_URL, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD)) {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < subjects; i++) {
+                int id = db.addSubject(studentId, "Subject " + (i + 1), CLASS_DAYS.size());
+                db.saveSchedule(id, CLASS_DAYS);
+                ids.add(id);
+            }
+            int records = seed(conn, studentId, ids, years);
+            System.out.printf("%d subjects, %d records%n", subjects, records);
+
+            time(db, studentId, ids, rounds, true); // Warm-up (JIT, pool, MySQL buffer pool)
+            report("cold", time(db, studentId, ids, rounds, true));
+            report("warm", time(db, studentId, ids, rounds, false));
+        } finally {
+            Checks.deleteStudent(studentId);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Insert every class day of the last `years` years for each subject
+     * (about 85% present), then bring the subject counters in line.
+     *
+     * @return the number of records inserted
+     */
+    private static int seed(Connection conn, int studentId, List<Integer> subjectIds, int years)
+            throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate start = end.minusYears(years);
+        int records = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO attendance_records (subject_id, record_date, is_present) VALUES (?, ?, ?)")) {
+            for (int subjectId : subjectIds) {
+                for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+                    if (CLASS_DAYS.contains(d.getDayOfWeek())) {
+                        pstmt.setInt(1, subjectId);
+                        pstmt.setDate(2, Date.valueOf(d));
+                        pstmt.setBoolean(3, random.nextInt(100) < 85);
+                        pstmt.addBatch();
+                        records++;
+                    }
+                }
+                pstmt.executeBatch();
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE subjects s SET "
+                + "classes_conducted = (SELECT COUNT(*) FROM attendance_records ar WHERE ar.subject_id = s.id), "
+                + "classes_attended = (SELECT COALESCE(SUM(ar.is_present), 0) FROM attendance_records ar "
+                + "WHERE ar.subject_id = s.id) WHERE s.student_id = ?")) {
+            pstmt.setInt(1, studentId);
+            pstmt.executeUpdate();
+        }
+        return records;
+    }
+
+    /**
+     * @return each round's wall time in milliseconds
+     */
+    private static double[] time(DatabaseManager db, int studentId, List<Integer> subjectIds, int rounds,
+            boolean cold) {
+        double[] millis = new double[rounds];
+        for (int r = 0; r < rounds; r++) {
+            if (cold) {
+                db.getStudentCache().invalidate(studentId);
+            }
+            long start = System.nanoTime();
+            Student student = db.loadStudentAccount(studentId);
+            db.loadStudentData(student);
+            Map<Integer, List<AttendanceRecord>> histories = db.loadAttendanceHistories(subjectIds);
+            millis[r] = (System.nanoTime() - start) / 1e6;
+            if (histories == null || student.getSubjects().size() != subjectIds.size()) {
+                System.err.println("Round " + r + " failed to load the student");
+                System.exit(1);
+            }
+        }
+        return millis;
+    }
+
+    private static void report(String label, double[] millis) {
+        double[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%s: min %.1f ms, median %.1f ms, p90 %.1f ms, max %.1f ms (%d rounds)%n", label,
+                sorted[0], sorted[sorted.length / 2], sorted[(int) Math.ceil(sorted.length * 0.9) - 1],
+                sorted[sorted.length - 1], sorted.length);
+    }
+}
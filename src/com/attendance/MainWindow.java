@@ -5,7 +5,9 @@ import java.awt.event.ActionEvent;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import javax.swing.*;
 
 /**
@@ -21,6 +23,13 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
     private JPanel undoPanel; // Toast bar for undo
     private JPanel todaySchedulePanel; // Quick-Mark widget for today's classes
     private javax.swing.Timer undoTimer; // Auto-dismiss timer
+    private JLabel pendingWritesLabel; // "N unsaved" indicator for queued attendance writes
+    private final DeltaSync sync; // Picks up changes made elsewhere (another machine, a roll call)
+    private final javax.swing.Timer syncTimer;
+    private boolean syncInFlight = false; // EDT only
+    private String passwordHash; // Stored in the local snapshot; null until known
+    private final AttendanceWriteQueue.PendingWritesListener pendingWritesListener =
+            count -> SwingUtilities.invokeLater(() -> updatePendingWritesLabel(count));
 
     // Colors — now resolved dynamically via ThemeManager
     private Color BG_COLOR;
@@ -47,17 +56,26 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         SURFACE = ThemeManager.getSurfaceColor();
     }
 
-    public MainWindow(Student student) {
-        this.student = student;
-        this.schedule = new WeeklySchedule();
+    /**
+     * @param schedule the student's timetable, already loaded off the EDT
+     *                 (see LoginDialog); the theme preference is loaded there too
+     */
+    public MainWindow(Student student, WeeklySchedule schedule) {
+        this(student, schedule, null, System.currentTimeMillis());
+    }
 
-        // Load theme preference from DB
-        ThemeManager.loadTheme(student.getId());
+    /**
+     * @param passwordHash the account's stored hash, for the local snapshot (null if not known yet)
+     * @param syncedAt     when the student's data was last current against MySQL
+     */
+    private MainWindow(Student student, WeeklySchedule schedule, String passwordHash, long syncedAt) {
+        this.student = student;
+        this.schedule = (schedule != null) ? schedule : new WeeklySchedule();
+        this.passwordHash = passwordHash;
+        this.sync = new DeltaSync(DatabaseManager.getInstance(), student, syncedAt);
+        this.syncTimer = new javax.swing.Timer(DatabaseConfig.SYNC_POLL_INTERVAL_MS, e -> pollChanges());
         refreshColors();
 
-        // Load schedule from DB
-        DatabaseManager.getInstance().loadSchedule(schedule, student.getSubjects());
-
         // Window Setup
         setTitle("Attendance Eligibility Manager — " + student.getName());
         setSize(960, 680);
@@ -85,11 +103,15 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         JButton addSubjectBtn = new UIUtils.RoundedButton("+ Add Subject", ACCENT_COLOR, HEADER_COLOR, 12);
         addSubjectBtn.addActionListener(this::showAddSubjectDialog);
 
+        JButton joinSectionBtn = new UIUtils.RoundedButton("+ Join Section", SURFACE, TEXT_COLOR, 12);
+        joinSectionBtn.setToolTipText("Enrol in a course section using the code from your teacher");
+        joinSectionBtn.addActionListener(e -> showJoinSectionDialog());
+
         // Theme toggle button
         JButton themeToggleBtn = new UIUtils.RoundedButton(ThemeManager.getToggleLabel(), SURFACE, TEXT_COLOR, 12);
         themeToggleBtn.addActionListener(e -> {
             ThemeManager.toggleTheme();
-            ThemeManager.saveTheme(student.getId());
+            AsyncDb.run(null, () -> ThemeManager.saveTheme(student.getId()));
         });
 
         JButton logoutBtn = new UIUtils.RoundedButton("🚪 Logout", RED, HEADER_COLOR, 12);
@@ -98,25 +120,25 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
                     "Are you sure you want to logout?",
                     "Confirm Logout", JOptionPane.YES_NO_OPTION);
             if (choice == JOptionPane.YES_OPTION) {
-                ThemeManager.removeThemeChangeListener(this);
-                dispose();
-                SwingUtilities.invokeLater(() -> {
-                    LoginDialog loginDialog = new LoginDialog(null);
-                    loginDialog.setVisible(true);
-                    if (loginDialog.isLoginSuccessful()) {
-                        Student newStudent = loginDialog.getAuthenticatedStudent();
-                        new MainWindow(newStudent).setVisible(true);
-                    } else {
-                        System.exit(0);
-                    }
-                });
+                returnToLogin();
             }
         });
 
+        // Pending writes indicator (hidden while everything is saved)
+        pendingWritesLabel = new JLabel();
+        pendingWritesLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        pendingWritesLabel.setForeground(YELLOW);
+        pendingWritesLabel.setToolTipText("Attendance changes waiting to be saved to the database");
+        AttendanceWriteQueue writeQueue = DatabaseManager.getInstance().getAttendanceWriteQueue();
+        writeQueue.addPendingWritesListener(pendingWritesListener);
+        updatePendingWritesLabel(writeQueue.getPendingCount());
+
         JPanel headerRight = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         headerRight.setOpaque(false);
+        headerRight.add(pendingWritesLabel);
         headerRight.add(userLabel);
         headerRight.add(addSubjectBtn);
+        headerRight.add(joinSectionBtn);
         headerRight.add(themeToggleBtn);
         headerRight.add(logoutBtn);
 
@@ -176,7 +198,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         footerPanel.add(createFooterButton("📋 Timetable",
                 e -> new TimetableDialog(this, schedule, student.getSubjects()).setVisible(true)));
         footerPanel.add(createFooterButton("📊 Trends",
-                e -> new AttendanceTrendsDialog(this, student).setVisible(true)));
+                e -> withHistories(() -> new AttendanceTrendsDialog(this, student).setVisible(true))));
         footerPanel.add(createFooterButton("📅 Manage Holidays",
                 e -> new ManageHolidaysDialog(this, student).setVisible(true)));
         footerPanel.add(createFooterButton("⚙️ Semester Settings",
@@ -194,7 +216,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         csvItem.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         csvItem.setBackground(new Color(49, 50, 68));
         csvItem.setForeground(TEXT_COLOR);
-        csvItem.addActionListener(ev -> ExportManager.exportCSV(this, student));
+        csvItem.addActionListener(ev -> withHistories(() -> ExportManager.exportCSV(this, student)));
         JMenuItem pdfItem = new JMenuItem("📑 Export Formal Report");
         pdfItem.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         pdfItem.setBackground(new Color(49, 50, 68));
@@ -206,7 +228,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         footerPanel.add(exportBtn);
 
         footerPanel.add(createFooterButton("📊 Summary & Charts",
-                e -> DetailedSummaryExport.generateInstantReport(this, student)));
+                e -> withHistories(() -> DetailedSummaryExport.generateInstantReport(this, student))));
 
         footerPanel.add(createFooterButton("🔑 Change Password",
                 e -> showChangePasswordDialog()));
@@ -225,6 +247,150 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
 
         // Initial Render
         refreshDashboard();
+        syncTimer.start();
+
+        // Closing the window exits without dispose(); keep the snapshot current
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                saveSnapshot();
+            }
+        });
+    }
+
+    /**
+     * Show the dashboard for a successful login. Served from a snapshot,
+     * it is revalidated against MySQL in the background; loaded from MySQL,
+     * it is saved as the snapshot for the next warm start.
+     */
+    static void open(LoginDialog login) {
+        StudentSnapshot snapshot = login.getSnapshot();
+        MainWindow window = new MainWindow(login.getAuthenticatedStudent(), login.getSchedule(),
+                (snapshot != null) ? snapshot.getPasswordHash() : null,
+                (snapshot != null) ? snapshot.getSyncedAt() : System.currentTimeMillis());
+        window.setVisible(true);
+        window.revalidateAgainstDatabase(snapshot != null);
+    }
+
+    /**
+     * Check the account against MySQL off the EDT. A password changed
+     * elsewhere signs the student out (and drops the snapshot); otherwise
+     * fresh settings and theme are applied, changes since the snapshot are
+     * synced at once, and the snapshot is saved. If MySQL can't be reached
+     * the dashboard stays as it is and the regular poll catches up later.
+     *
+     * @param fromSnapshot false after a normal login — only the hash is
+     *                     fetched, to save the first snapshot
+     */
+    private void revalidateAgainstDatabase(boolean fromSnapshot) {
+        int studentId = student.getId();
+        AsyncDb.query(null, () -> {
+            DatabaseManager db = DatabaseManager.getInstance();
+            AccountCheck check = new AccountCheck();
+            check.passwordHash = db.getPasswordHash(studentId);
+            if (fromSnapshot && check.passwordHash != null) {
+                check.account = db.loadStudentAccount(studentId);
+                check.theme = db.loadTheme(studentId);
+            }
+            return check;
+        }).thenAccept(check -> {
+            if (check == null || check.passwordHash == null || !isDisplayable()) {
+                return;
+            }
+            if (fromSnapshot && !check.passwordHash.equals(passwordHash)) {
+                StudentSnapshot.delete(student.getUsername());
+                JOptionPane.showMessageDialog(this,
+                        "Your password was changed on another device. Please log in again.",
+                        "Signed Out", JOptionPane.INFORMATION_MESSAGE);
+                passwordHash = null; // Don't write the snapshot back on the way out
+                returnToLogin();
+                return;
+            }
+            passwordHash = check.passwordHash;
+            if (check.account != null) {
+                student.copySettingsFrom(check.account);
+                refreshDashboard();
+            }
+            if (fromSnapshot) {
+                pollChanges();
+            }
+            saveSnapshot();
+            if (check.theme != null && ThemeManager.isDark(check.theme) != ThemeManager.isDarkMode()) {
+                ThemeManager.setDarkMode(ThemeManager.isDark(check.theme)); // Rebuilds the window
+            }
+        });
+    }
+
+    /**
+     * What revalidateAgainstDatabase read (null fields weren't read or failed).
+     */
+    private static final class AccountCheck {
+        String passwordHash;
+        Student account;
+        String theme;
+    }
+
+    /**
+     * Save the student for the next warm start. The encoding happens here
+     * on the EDT, the file write off it. No-op until the hash is known.
+     */
+    private void saveSnapshot() {
+        if (passwordHash == null) {
+            return;
+        }
+        byte[] encoded = StudentSnapshot.encode(student, schedule, passwordHash, sync.getLastSyncMillis());
+        String username = student.getUsername();
+        AsyncDb.run(null, () -> StudentSnapshot.write(username, encoded));
+    }
+
+    private void returnToLogin() {
+        ThemeManager.removeThemeChangeListener(this);
+        dispose();
+        SwingUtilities.invokeLater(() -> {
+            LoginDialog loginDialog = new LoginDialog(null);
+            loginDialog.setVisible(true);
+            if (loginDialog.isLoginSuccessful()) {
+                open(loginDialog);
+            } else {
+                System.exit(0);
+            }
+        });
+    }
+
+    /**
+     * Fetch changes made elsewhere off the EDT and fold them into the
+     * dashboard. Skipped while the previous poll is still running.
+     */
+    private void pollChanges() {
+        if (syncInFlight) {
+            return;
+        }
+        syncInFlight = true;
+        AsyncDb.query(null, sync::fetch).whenComplete((delta, error) -> {
+            syncInFlight = false;
+            if (delta == null || !isDisplayable()) {
+                return;
+            }
+            if (sync.apply(delta)) {
+                rebuildSchedule(); // The snapshot catches up on close
+            } else if (!delta.isEmpty()) {
+                refreshDashboard();
+                saveSnapshot();
+            }
+        });
+    }
+
+    private void updatePendingWritesLabel(int count) {
+        pendingWritesLabel.setText("⏳ " + count + " unsaved");
+        pendingWritesLabel.setVisible(count > 0);
+    }
+
+    @Override
+    public void dispose() {
+        syncTimer.stop();
+        saveSnapshot();
+        DatabaseManager.getInstance().getAttendanceWriteQueue().removePendingWritesListener(pendingWritesListener);
+        super.dispose();
     }
 
     private JButton createFooterButton(String text, java.awt.event.ActionListener action) {
@@ -241,9 +407,10 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         int atRiskCount = 0;
         double totalAttended = 0;
         double totalConducted = 0;
+        AttendancePolicy policy = student.getAttendancePolicy();
 
         for (Subject s : student.getSubjects()) {
-            if (AttendanceCalculator.isEligible(s))
+            if (AttendanceCalculator.isEligible(s, policy))
                 eligibleCount++;
             else
                 atRiskCount++;
@@ -254,7 +421,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         double overallPct = (totalConducted == 0) ? 100.0 : (totalAttended / totalConducted * 100.0);
 
         summaryPanel.add(createStatCard("Overall", String.format("%.1f%%", overallPct),
-                overallPct >= 75 ? GREEN : RED));
+                policy.meetsPercentage(overallPct) ? GREEN : RED));
         summaryPanel.add(createStatCard("Subjects", String.valueOf(totalSubjects), ACCENT_COLOR));
         summaryPanel.add(createStatCard("Eligible", String.valueOf(eligibleCount), GREEN));
         summaryPanel.add(createStatCard("At Risk", String.valueOf(atRiskCount),
@@ -345,6 +512,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         card.setPreferredSize(new Dimension(900, 110));
 
         double pct = subject.getAttendancePercentage();
+        AttendancePolicy policy = student.getAttendancePolicy();
 
         // ── Left: Name and Stats ──
         JPanel infoPanel = new JPanel(new GridLayout(2, 1));
@@ -380,33 +548,31 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
 
         if (student.isSemesterConfigured() && student.getSemesterEndDate().isAfter(LocalDate.now())) {
             int remaining = AttendanceCalculator.calculateRemainingClasses(
-                    subject, schedule, student.getSemesterEndDate(), student.getHolidayDates(), student);
+                    subject, schedule, student.getSemesterEndDate(), student);
             double maxPossible = AttendanceCalculator.calculateMaxPossibleAttendance(subject, remaining);
 
-            if (pct >= 75) {
-                int safeBunks = Math.min(AttendanceCalculator.calculateSafeBunks(subject), remaining);
+            if (policy.meets(subject)) {
+                int safeBunks = Math.min(AttendanceCalculator.calculateSafeBunks(subject, policy), remaining);
                 statusText = String.format("✅ Safe! Can miss %d / %d remaining", safeBunks, remaining);
                 statusColor = GREEN;
                 progressBar.setForeground(GREEN);
-            } else if (maxPossible < 75.0) {
+            } else if (!policy.meetsPercentage(maxPossible)) {
                 statusText = String.format("🔴 CRITICAL: Max possible = %.1f%%", maxPossible);
                 statusColor = RED;
                 progressBar.setForeground(RED);
             } else {
-                int recovery = AttendanceCalculator.calculateRecoveryClasses(subject);
-                statusText = String.format("⚠️ Attend next %d classes! (%d remaining)", recovery, remaining);
+                statusText = String.format("⚠️ %s! (%d remaining)", policy.recoveryAdvice(subject), remaining);
                 statusColor = YELLOW;
                 progressBar.setForeground(RED);
             }
         } else {
-            if (pct >= 75) {
-                int safeBunks = AttendanceCalculator.calculateSafeBunks(subject);
+            if (policy.meets(subject)) {
+                int safeBunks = AttendanceCalculator.calculateSafeBunks(subject, policy);
                 statusText = "✅ Safe! Can miss " + safeBunks + " classes";
                 statusColor = GREEN;
                 progressBar.setForeground(GREEN);
             } else {
-                int recovery = AttendanceCalculator.calculateRecoveryClasses(subject);
-                statusText = "⚠️ Attend next " + recovery + " classes!";
+                statusText = "⚠️ " + policy.recoveryAdvice(subject) + "!";
                 statusColor = RED;
                 progressBar.setForeground(RED);
             }
@@ -528,10 +694,11 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
 
     private void handleUndo() {
         if (lastSubject != null && lastDate != null) {
-            // Remove from DB
-            DatabaseManager.getInstance().deleteAttendanceRecord(lastSubject.getId(), lastDate);
+            // Remove from DB (queued — coalesces with the mark if it hasn't been flushed yet)
+            DatabaseManager.getInstance().getAttendanceWriteQueue().delete(lastSubject.getId(), lastDate)
+                    .whenComplete((v, ex) -> reportWriteFailure(ex));
             // Remove from Model
-            lastSubject.removeRecordForDate(lastDate);
+            lastSubject.removeRecordWithoutLoading(lastDate);
 
             // Hide toast
             undoPanel.setVisible(false);
@@ -567,7 +734,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         }
 
         // Block attendance on holidays
-        if (student.getHolidayDates().contains(today)) {
+        if (student.isHoliday(today)) {
             JOptionPane.showMessageDialog(this,
                     "📅 Today (" + today + ") is a holiday!\nAttendance cannot be marked on holidays.",
                     "Holiday", JOptionPane.WARNING_MESSAGE);
@@ -583,8 +750,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         }
 
         // Check if this day is in the subject's weekly schedule
-        java.util.List<Subject> scheduledSubjects = schedule.getSubjectsOn(today.getDayOfWeek());
-        if (scheduledSubjects == null || !scheduledSubjects.contains(subject)) {
+        if (!schedule.isScheduledOn(subject, today.getDayOfWeek())) {
             int choice = JOptionPane.showConfirmDialog(this,
                     "📌 " + today.getDayOfWeek() + " is NOT a scheduled day for " + subject.getName() + ".\n"
                             + "Add this as an EXTRA CLASS?",
@@ -593,8 +759,19 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
                 return;
         }
 
+        // The duplicate check needs the subject's history — fetch it off the EDT
+        // first. If MySQL is unreachable, mark anyway: the check falls back to
+        // this session's marks and the write waits in the journal.
+        AsyncDb.loadHistories(this, Collections.singletonList(subject)).whenComplete((v, ex) -> {
+            if (ex == null || !isCancellation(ex)) {
+                confirmAndMark(subject, today, present);
+            }
+        });
+    }
+
+    private void confirmAndMark(Subject subject, LocalDate today, boolean present) {
         // Check for duplicate
-        if (subject.hasRecordForDate(today)) {
+        if (subject.hasKnownRecordForDate(today)) {
             int choice = JOptionPane.showConfirmDialog(this,
                     "Attendance already marked for today. Update it?",
                     "Duplicate Entry", JOptionPane.YES_NO_OPTION);
@@ -602,8 +779,9 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
                 return;
         }
 
-        subject.addClass(today, present);
-        DatabaseManager.getInstance().saveAttendanceRecord(subject.getId(), today, present);
+        subject.addClassWithoutLoading(today, present);
+        DatabaseManager.getInstance().getAttendanceWriteQueue().save(subject.getId(), today, present)
+                .whenComplete((v, ex) -> reportWriteFailure(ex));
 
         // Show Undo Toast
         lastSubject = subject;
@@ -614,6 +792,17 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         refreshDashboard();
     }
 
+    /**
+     * Tell the user if a queued attendance write was ultimately rejected.
+     */
+    private void reportWriteFailure(Throwable ex) {
+        if (ex == null)
+            return;
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                "An attendance change could not be saved:\n" + ex.getMessage(),
+                "Save Failed", JOptionPane.ERROR_MESSAGE));
+    }
+
     private void showUndoToast() {
         if (undoPanel == null)
             return;
@@ -634,24 +823,68 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
                 "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         if (choice == JOptionPane.YES_OPTION) {
             student.removeSubject(subject);
-            DatabaseManager.getInstance().deleteSubject(subject.getId());
-            // Rebuild schedule
-            rebuildSchedule();
             refreshDashboard();
+            // Delete, then rebuild the schedule without it
+            AsyncDb.run(this, () -> DatabaseManager.getInstance().deleteSubject(subject.getId()))
+                    .thenRun(this::rebuildSchedule);
         }
     }
 
     private void rebuildSchedule() {
-        schedule = new WeeklySchedule();
-        DatabaseManager.getInstance().loadSchedule(schedule, student.getSubjects());
+        List<Subject> subjects = new ArrayList<>(student.getSubjects());
+        AsyncDb.query(this, () -> {
+            WeeklySchedule fresh = new WeeklySchedule();
+            DatabaseManager.getInstance().loadSchedule(fresh, student.getId(), subjects);
+            return fresh;
+        }).thenAccept(fresh -> {
+            schedule = fresh;
+            refreshDashboard();
+        });
     }
 
     private void showEditSubjectDialog(Subject subject) {
-        SubjectDetailDialog dialog = new SubjectDetailDialog(this, subject, student);
-        dialog.setVisible(true);
-        if (dialog.isChanged()) {
-            refreshDashboard();
-        }
+        withHistories(Collections.singletonList(subject), () -> {
+            SubjectDetailDialog dialog = new SubjectDetailDialog(this, subject, student);
+            dialog.setVisible(true);
+            if (dialog.isChanged()) {
+                refreshDashboard();
+            }
+        });
+    }
+
+    /**
+     * Run a screen that walks every subject's history once the histories
+     * are in memory (they are fetched off the EDT on first use).
+     */
+    private void withHistories(Runnable screen) {
+        withHistories(student.getSubjects(), screen);
+    }
+
+    /**
+     * Run a screen once the subjects' histories are in memory. If they can't
+     * be fetched the screen doesn't open; the user can retry or give up.
+     */
+    private void withHistories(List<Subject> subjects, Runnable screen) {
+        AsyncDb.loadHistories(this, subjects).whenComplete((v, ex) -> {
+            if (ex == null) {
+                screen.run();
+                return;
+            }
+            if (isCancellation(ex)) {
+                return; // The window was closed
+            }
+            int choice = JOptionPane.showOptionDialog(this,
+                    "Could not load attendance history. Check the database connection.",
+                    "Load Failed", JOptionPane.DEFAULT_OPTION, JOptionPane.ERROR_MESSAGE, null,
+                    new Object[] { "Retry", "Cancel" }, "Retry");
+            if (choice == 0) {
+                withHistories(subjects, screen);
+            }
+        });
+    }
+
+    private static boolean isCancellation(Throwable ex) {
+        return ex instanceof CancellationException || ex.getCause() instanceof CancellationException;
     }
 
     private void showAddSubjectDialog(ActionEvent e) {
@@ -789,39 +1022,45 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
                 return;
             }
 
-            // Create subject
+            // Create subject; initial attendance becomes an opening balance as of today
             Subject newSubject = new Subject(name, selectedDays.size());
+            OpeningBalance openingBalance = (conducted > 0)
+                    ? new OpeningBalance(LocalDate.now(), conducted, attended)
+                    : null;
+
+            // Save subject, schedule and opening balance off the EDT
+            saveBtn.setEnabled(false);
+            AsyncDb.update(dialog, () -> {
+                DatabaseManager db = DatabaseManager.getInstance();
+                int subjectId = db.addSubject(student.getId(), name, selectedDays.size());
+                if (subjectId >= 0) {
+                    db.saveSchedule(subjectId, selectedDays);
+                    if (openingBalance != null) {
+                        db.saveOpeningBalance(subjectId, openingBalance);
+                    }
+                }
+                return subjectId;
+            }).whenComplete((subjectId, ex) -> {
+                if (ex != null || subjectId < 0) {
+                    saveBtn.setEnabled(true);
+                    JOptionPane.showMessageDialog(dialog, "Error saving subject.");
+                    return;
+                }
+                newSubject.setId(subjectId);
 
-            // Save to DB
-            int subjectId = DatabaseManager.getInstance().addSubject(student.getId(), name, selectedDays.size());
-            if (subjectId < 0) {
-                JOptionPane.showMessageDialog(dialog, "Error saving subject.");
-                return;
-            }
-            newSubject.setId(subjectId);
-
-            // Save schedule
-            DatabaseManager.getInstance().saveSchedule(subjectId, selectedDays);
-
-            // Set initial attendance
-            if (conducted > 0) {
-                newSubject.setAttendance(conducted, attended,
-                        selectedDays, student.getSemesterStartDate(),
-                        student.getHolidayDates(), student::isDuringMidsemExams);
-                DatabaseManager.getInstance().saveInitialAttendance(
-                        subjectId, conducted, attended, selectedDays, student);
-            }
+                newSubject.setOpeningBalance(openingBalance);
 
-            // Add to student
-            student.addSubject(newSubject);
+                // Add to student
+                student.addSubject(newSubject);
 
-            // Update schedule
-            for (DayOfWeek day : selectedDays) {
-                schedule.addClass(day, newSubject);
-            }
+                // Update schedule
+                for (DayOfWeek day : selectedDays) {
+                    schedule.addClass(day, newSubject);
+                }
 
-            refreshDashboard();
-            dialog.dispose();
+                refreshDashboard();
+                dialog.dispose();
+            });
         });
 
         JPanel btnPanel = new JPanel();
@@ -833,6 +1072,41 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         dialog.setVisible(true);
     }
 
+    /**
+     * Enrol in a course section by code. The new subject takes its name and
+     * timetable from the section.
+     */
+    private void showJoinSectionDialog() {
+        String input = JOptionPane.showInputDialog(this, "Section code:", "Join Section",
+                JOptionPane.PLAIN_MESSAGE);
+        if (input == null || input.trim().isEmpty()) {
+            return;
+        }
+        String code = input.trim();
+        AsyncDb.update(this, () -> {
+            DatabaseManager db = DatabaseManager.getInstance();
+            CourseSection section = db.findSection(code);
+            if (section == null) {
+                return null;
+            }
+            int subjectId = db.enrollInSection(student.getId(), section);
+            for (Subject s : db.loadSubjects(student.getId())) {
+                if (s.getId() == subjectId) {
+                    return s;
+                }
+            }
+            return null;
+        }).thenAccept(subject -> {
+            if (subject == null) {
+                JOptionPane.showMessageDialog(this,
+                        "Could not join \"" + code + "\". Check the code, or you may already be enrolled.");
+                return;
+            }
+            student.addSubject(subject);
+            rebuildSchedule();
+        });
+    }
+
     private JCheckBox createDayCheckBox(String text) {
         JCheckBox cb = new JCheckBox(text);
         cb.setBackground(CARD_COLOR);
@@ -925,14 +1199,6 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
             String newPw = new String(newField.getPassword());
             String confirmPw = new String(confirmField.getPassword());
 
-            // Verify current password
-            String storedHash = DatabaseManager.getInstance().getPasswordHash(student.getId());
-            String oldHash = PasswordValidator.hashPassword(oldPw);
-            if (!oldHash.equals(storedHash)) {
-                statusLabel.setText("Current password is incorrect.");
-                return;
-            }
-
             // Validate new password
             String validationError = PasswordValidator.validate(newPw);
             if (validationError != null) {
@@ -952,14 +1218,32 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
                 return;
             }
 
-            // Save
-            String newHash = PasswordValidator.hashPassword(newPw);
-            DatabaseManager.getInstance().updatePasswordHash(student.getId(), newHash);
-
-            JOptionPane.showMessageDialog(dialog,
-                    "Password changed successfully!",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-            dialog.dispose();
+            // Verify current password, then save — both off the EDT
+            saveBtn.setEnabled(false);
+            AsyncDb.update(dialog, () -> {
+                String storedHash = DatabaseManager.getInstance().getPasswordHash(student.getId());
+                String oldHash = PasswordValidator.hashPassword(oldPw);
+                if (!oldHash.equals(storedHash)) {
+                    return false;
+                }
+                String newHash = PasswordValidator.hashPassword(newPw);
+                DatabaseManager.getInstance().updatePasswordHash(student.getId(), newHash);
+                return true;
+            }).whenComplete((changed, ex) -> {
+                saveBtn.setEnabled(true);
+                if (ex != null) {
+                    statusLabel.setText("Could not change password — please try again.");
+                    return;
+                }
+                if (!changed) {
+                    statusLabel.setText("Current password is incorrect.");
+                    return;
+                }
+                JOptionPane.showMessageDialog(dialog,
+                        "Password changed successfully!",
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                dialog.dispose();
+            });
         });
 
         JPanel btnPanel = new JPanel();
@@ -988,7 +1272,7 @@ public class MainWindow extends JFrame implements ThemeManager.ThemeChangeListen
         ThemeManager.removeThemeChangeListener(this);
         dispose();
         SwingUtilities.invokeLater(() -> {
-            MainWindow newWindow = new MainWindow(student);
+            MainWindow newWindow = new MainWindow(student, schedule, passwordHash, sync.getLastSyncMillis());
             newWindow.setVisible(true);
         });
     }
@@ -5,18 +5,24 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Manage academic holidays.
  * Supports:
  * - Single holiday with custom description
- * - Group holidays (date range) like Holi Break, Diwali Break etc.
+ * - Group holidays (date range) like Holi Break, Diwali Break etc., stored
+ *   and shown as one interval
  * - Remove individual holidays or entire groups by description
+ * - Subscribe to shared calendars (institution, department, section) and
+ *   hide individual shared holidays
  */
 public class ManageHolidaysDialog extends JDialog {
     private Student student;
     private DefaultTableModel tableModel;
+    private List<Holiday> rowHolidays; // Holiday shown on each table row
 
     // Colors
     private final Color BG_COLOR = ThemeManager.getBgColor();
@@ -40,7 +46,7 @@ public class ManageHolidaysDialog extends JDialog {
         mainPanel.setBackground(BG_COLOR);
 
         // ── Table ──
-        String[] columnNames = { "Date", "Day", "Description" };
+        String[] columnNames = { "From", "To", "Days", "Description", "Source" };
         tableModel = new DefaultTableModel(columnNames, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
@@ -112,18 +118,21 @@ public class ManageHolidaysDialog extends JDialog {
         JButton editBtn = createButton("✏ Edit Selected", ThemeManager.isDarkMode() ? new Color(180, 190, 254) : new Color(30, 58, 138));
         JButton removeBtn = createButton("Remove Selected", ERROR_COLOR);
         JButton removeGroupBtn = createButton("Remove Group", WARN_COLOR);
+        JButton calendarsBtn = createButton("Shared Calendars", ThemeManager.getHeaderColor());
 
         addSingleBtn.setToolTipText("Add a single-day holiday with the given description");
-        addGroupBtn.setToolTipText("Add holidays for every date from 'From' to 'To' with the same description");
-        editBtn.setToolTipText("Edit the date or description of the selected holiday");
+        addGroupBtn.setToolTipText("Add one holiday covering every date from 'From' to 'To'");
+        editBtn.setToolTipText("Edit the dates or description of the selected holiday");
         removeBtn.setToolTipText("Remove just the selected holiday row");
         removeGroupBtn.setToolTipText("Remove ALL holidays with the same description as the selected row");
+        calendarsBtn.setToolTipText("Choose the institution / department / section calendars you follow");
 
         btnRow.add(addSingleBtn);
         btnRow.add(addGroupBtn);
         btnRow.add(editBtn);
         btnRow.add(removeBtn);
         btnRow.add(removeGroupBtn);
+        btnRow.add(calendarsBtn);
         inputPanel.add(btnRow);
 
         // ── Hint label ──
@@ -145,26 +154,29 @@ public class ManageHolidaysDialog extends JDialog {
                 if (description.isEmpty())
                     description = "Official Holiday";
 
-                if (student.getHolidayDates().contains(date)) {
+                Holiday holiday = new Holiday(date, description);
+                if (!student.addHoliday(holiday)) {
                     JOptionPane.showMessageDialog(this, "Holiday already exists for " + date + ".");
                 } else {
-                    Holiday holiday = new Holiday(date, description);
-                    student.addHoliday(holiday);
-                    DatabaseManager.getInstance().addHoliday(student.getId(), date, description);
-
-                    // Auto-clean conflicting attendance records
-                    int cleaned = DatabaseManager.getInstance().deleteAttendanceOnDate(student.getId(), date);
-                    // Reload subject data to reflect cleaned records
-                    if (cleaned > 0) {
-                        reloadStudentSubjects();
-                        JOptionPane.showMessageDialog(this,
-                                "Holiday added! " + cleaned + " conflicting attendance record(s) were removed.",
-                                "Holiday Added", JOptionPane.INFORMATION_MESSAGE);
-                    }
-
                     loadHolidays();
                     fromField.setText("");
                     descField.setText("Official Holiday");
+
+                    // Auto-clean conflicting attendance records (loaded histories in memory now; the
+                    // DB with the holiday off the EDT; subjects holding only counters are refreshed afterwards)
+                    int cleanedInMemory = removeRecordsInRange(date, date);
+                    AsyncDb.update(this, () -> {
+                        DatabaseManager db = DatabaseManager.getInstance();
+                        db.addHoliday(student.getId(), holiday);
+                        return db.loadSubjects(student.getId());
+                    }).thenAccept(fresh -> {
+                        int cleaned = cleanedInMemory + refreshUnloadedCounters(fresh);
+                        if (cleaned > 0) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Holiday added! " + cleaned + " conflicting attendance record(s) were removed.",
+                                    "Holiday Added", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                    });
                 }
             } catch (DateTimeParseException ex) {
                 JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.");
@@ -202,33 +214,35 @@ public class ManageHolidaysDialog extends JDialog {
                         "Confirm Group Holiday", JOptionPane.YES_NO_OPTION);
 
                 if (confirm == JOptionPane.YES_OPTION) {
-                    // Add to student model
-                    LocalDate current = fromDate;
-                    while (!current.isAfter(toDate)) {
-                        student.addHoliday(new Holiday(current, description));
-                        current = current.plusDays(1);
-                    }
-                    // Batch save to DB
-                    DatabaseManager.getInstance().addHolidayRange(student.getId(), fromDate, toDate, description);
-
-                    // Auto-clean conflicting attendance records in the range
-                    int cleaned = DatabaseManager.getInstance().deleteAttendanceInRange(student.getId(), fromDate,
-                            toDate);
-                    if (cleaned > 0) {
-                        reloadStudentSubjects();
+                    // One interval for the whole range
+                    Holiday holiday = new Holiday(fromDate, toDate, description);
+                    if (!student.addHoliday(holiday)) {
+                        JOptionPane.showMessageDialog(this,
+                                "This range overlaps an existing holiday.\nEdit or remove that holiday first.");
+                        return;
                     }
-
                     loadHolidays();
                     fromField.setText("");
                     toField.setText("");
                     descField.setText("Official Holiday");
 
-                    String msg = days + " holidays added for \"" + description + "\"!";
-                    if (cleaned > 0) {
-                        msg += "\n" + cleaned + " conflicting attendance record(s) were removed.";
-                    }
-                    JOptionPane.showMessageDialog(this, msg,
-                            "Group Holiday Added", JOptionPane.INFORMATION_MESSAGE);
+                    // Auto-clean conflicting attendance records in the range
+                    // (loaded histories in memory now; the range row and its cleanup in the DB off the EDT)
+                    int cleanedInMemory = removeRecordsInRange(fromDate, toDate);
+                    String desc = description;
+                    AsyncDb.update(this, () -> {
+                        DatabaseManager db = DatabaseManager.getInstance();
+                        db.addHoliday(student.getId(), holiday);
+                        return db.loadSubjects(student.getId());
+                    }).thenAccept(fresh -> {
+                        int cleaned = cleanedInMemory + refreshUnloadedCounters(fresh);
+                        String msg = days + " holidays added for \"" + desc + "\"!";
+                        if (cleaned > 0) {
+                            msg += "\n" + cleaned + " conflicting attendance record(s) were removed.";
+                        }
+                        JOptionPane.showMessageDialog(this, msg,
+                                "Group Holiday Added", JOptionPane.INFORMATION_MESSAGE);
+                    });
                 }
             } catch (DateTimeParseException ex) {
                 JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.");
@@ -243,25 +257,34 @@ public class ManageHolidaysDialog extends JDialog {
                 return;
             }
 
-            String oldDateStr = (String) tableModel.getValueAt(row, 0);
-            String oldDesc = (String) tableModel.getValueAt(row, 2);
-            LocalDate oldDate = LocalDate.parse(oldDateStr);
+            Holiday oldHoliday = rowHolidays.get(row);
+            if (oldHoliday.isShared()) {
+                JOptionPane.showMessageDialog(this, "\"" + oldHoliday.getDescription() + "\" comes from the shared calendar "
+                        + oldHoliday.getCalendarName() + " and can't be edited here.");
+                return;
+            }
 
             // Build edit panel
-            JPanel editPanel = new JPanel(new GridLayout(2, 2, 8, 8));
+            JPanel editPanel = new JPanel(new GridLayout(3, 2, 8, 8));
             editPanel.setBackground(CARD_COLOR);
 
-            JLabel dateLbl = new JLabel("Date:");
-            dateLbl.setForeground(TEXT_COLOR);
-            JTextField dateInput = createDateField(oldDateStr);
+            JLabel fromLbl = new JLabel("From:");
+            fromLbl.setForeground(TEXT_COLOR);
+            JTextField fromInput = createDateField(oldHoliday.getStartDate().toString());
+
+            JLabel toLbl = new JLabel("To:");
+            toLbl.setForeground(TEXT_COLOR);
+            JTextField toInput = createDateField(oldHoliday.getEndDate().toString());
 
             JLabel descLbl = new JLabel("Description:");
             descLbl.setForeground(TEXT_COLOR);
             JTextField descInput = createTextField(20);
-            descInput.setText(oldDesc);
+            descInput.setText(oldHoliday.getDescription());
 
-            editPanel.add(dateLbl);
-            editPanel.add(createDatePickerPanel(dateInput));
+            editPanel.add(fromLbl);
+            editPanel.add(createDatePickerPanel(fromInput));
+            editPanel.add(toLbl);
+            editPanel.add(createDatePickerPanel(toInput));
             editPanel.add(descLbl);
             editPanel.add(descInput);
 
@@ -270,20 +293,21 @@ public class ManageHolidaysDialog extends JDialog {
 
             if (result == JOptionPane.OK_OPTION) {
                 try {
-                    LocalDate newDate = LocalDate.parse(dateInput.getText().trim());
-                    String newDesc = descInput.getText().trim();
-                    if (newDesc.isEmpty())
-                        newDesc = "Official Holiday";
+                    LocalDate newFrom = LocalDate.parse(fromInput.getText().trim());
+                    LocalDate newTo = LocalDate.parse(toInput.getText().trim());
+                    if (newTo.isBefore(newFrom)) {
+                        JOptionPane.showMessageDialog(this, "'To' date cannot be before 'From' date.");
+                        return;
+                    }
+                    Holiday newHoliday = new Holiday(newFrom, newTo, descInput.getText().trim());
 
-                    // Check for duplicate date (only if date changed)
-                    if (!newDate.equals(oldDate) && student.getHolidayDates().contains(newDate)) {
+                    if (!student.updateHoliday(oldHoliday, newHoliday)) {
                         JOptionPane.showMessageDialog(this,
-                                "A holiday already exists on " + newDate + ".");
+                                "The new dates overlap another holiday.");
                         return;
                     }
-
-                    student.updateHoliday(oldDate, newDate, newDesc);
-                    DatabaseManager.getInstance().updateHoliday(student.getId(), oldDate, newDate, newDesc);
+                    AsyncDb.run(this, () -> DatabaseManager.getInstance().updateHoliday(
+                            student.getId(), oldHoliday, newHoliday));
                     loadHolidays();
                 } catch (DateTimeParseException ex) {
                     JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.");
@@ -295,10 +319,21 @@ public class ManageHolidaysDialog extends JDialog {
         removeBtn.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row >= 0) {
-                String dateStr = (String) tableModel.getValueAt(row, 0);
-                LocalDate date = LocalDate.parse(dateStr);
-                student.removeHolidayByDate(date);
-                DatabaseManager.getInstance().removeHoliday(student.getId(), date);
+                Holiday holiday = rowHolidays.get(row);
+                if (holiday.isShared()) {
+                    int confirm = JOptionPane.showConfirmDialog(this,
+                            "\"" + holiday.getDescription() + "\" comes from the shared calendar "
+                                    + holiday.getCalendarName() + ".\nHide it for you only?",
+                            "Hide Shared Holiday", JOptionPane.YES_NO_OPTION);
+                    if (confirm != JOptionPane.YES_OPTION) {
+                        return;
+                    }
+                    student.removeHoliday(holiday);
+                    AsyncDb.run(this, () -> DatabaseManager.getInstance().excludeSharedHoliday(student.getId(), holiday));
+                } else {
+                    student.removeHoliday(holiday);
+                    AsyncDb.run(this, () -> DatabaseManager.getInstance().removeHoliday(student.getId(), holiday));
+                }
                 loadHolidays();
             } else {
                 JOptionPane.showMessageDialog(this, "Select a holiday to remove.");
@@ -309,22 +344,30 @@ public class ManageHolidaysDialog extends JDialog {
         removeGroupBtn.addActionListener(e -> {
             int row = table.getSelectedRow();
             if (row >= 0) {
-                String description = (String) tableModel.getValueAt(row, 2);
-                // Count how many rows share this description
+                if (rowHolidays.get(row).isShared()) {
+                    JOptionPane.showMessageDialog(this, "Groups can only be removed from your own holidays.");
+                    return;
+                }
+                String description = rowHolidays.get(row).getDescription();
+                // Count how many of the student's own holidays (and days) share this description
                 int count = 0;
+                int days = 0;
                 for (Holiday h : student.getHolidays()) {
-                    if (h.getDescription().equals(description))
+                    if (!h.isShared() && h.getDescription().equals(description)) {
                         count++;
+                        days += h.getDayCount();
+                    }
                 }
 
                 int confirm = JOptionPane.showConfirmDialog(this,
-                        "Remove ALL " + count + " holidays with description:\n\""
+                        "Remove ALL " + count + " holiday(s) (" + days + " day(s)) with description:\n\""
                                 + description + "\"?",
                         "Confirm Group Removal", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
                 if (confirm == JOptionPane.YES_OPTION) {
                     student.removeHolidaysByDescription(description);
-                    DatabaseManager.getInstance().removeHolidaysByDescription(student.getId(), description);
+                    AsyncDb.run(this, () -> DatabaseManager.getInstance().removeHolidaysByDescription(
+                            student.getId(), description));
                     loadHolidays();
                 }
             } else {
@@ -332,31 +375,121 @@ public class ManageHolidaysDialog extends JDialog {
             }
         });
 
+        // Shared calendar subscriptions
+        calendarsBtn.addActionListener(e -> AsyncDb.query(this, () -> DatabaseManager.getInstance().loadCalendars())
+                .thenAccept(calendars -> AsyncDb.query(this,
+                        () -> DatabaseManager.getInstance().loadSubscriptions(student.getId()))
+                        .thenAccept(subscribed -> chooseCalendars(calendars, subscribed))));
+
         setContentPane(mainPanel);
     }
 
     /**
-     * Reload all subjects (and their attendance records) from DB.
-     * Called after conflicting attendance records are cleaned up.
+     * Let the student pick the shared calendars they follow, then save the
+     * subscriptions (the DB clears attendance on newly covered holidays) and
+     * merge the shared holidays into the in-memory calendar.
      */
-    private void reloadStudentSubjects() {
-        student.getSubjects().clear();
-        List<Subject> freshSubjects = DatabaseManager.getInstance().loadSubjects(student.getId());
-        for (Subject s : freshSubjects) {
-            student.addSubject(s);
+    private void chooseCalendars(List<SharedCalendar> calendars, Set<Integer> subscribed) {
+        if (calendars.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No shared calendars have been set up yet.");
+            return;
+        }
+        JPanel panel = new JPanel(new GridLayout(0, 1, 4, 4));
+        List<JCheckBox> boxes = new ArrayList<>();
+        for (SharedCalendar c : calendars) {
+            JCheckBox box = new JCheckBox(c.toString(), subscribed.contains(c.getId()));
+            boxes.add(box);
+            panel.add(box);
         }
+        int result = JOptionPane.showConfirmDialog(this, panel, "Shared Calendars",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        List<Integer> chosen = new ArrayList<>();
+        for (int i = 0; i < calendars.size(); i++) {
+            if (boxes.get(i).isSelected()) {
+                chosen.add(calendars.get(i).getId());
+            }
+        }
+
+        AsyncDb.update(this, () -> {
+            DatabaseManager db = DatabaseManager.getInstance();
+            db.setSubscriptions(student.getId(), chosen);
+            return db.loadSharedHolidays(student.getId());
+        }).thenAccept(shared -> {
+            student.setSharedHolidays(shared);
+            int cleanedInMemory = 0;
+            for (Holiday h : shared) {
+                cleanedInMemory += removeRecordsInRange(h.getStartDate(), h.getEndDate());
+            }
+            loadHolidays();
+            int cleanedLoaded = cleanedInMemory;
+            AsyncDb.query(this, () -> DatabaseManager.getInstance().loadSubjects(student.getId()))
+                    .thenAccept(fresh -> {
+                        int cleaned = cleanedLoaded + refreshUnloadedCounters(fresh);
+                        if (cleaned > 0) {
+                            JOptionPane.showMessageDialog(this,
+                                    cleaned + " attendance record(s) on shared holidays were removed.",
+                                    "Shared Calendars", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Drop in-memory attendance records that now fall on holidays, mirroring
+     * the DB cleanup (replaces reloading every subject from the database).
+     * Subjects whose history isn't loaded are skipped — see refreshUnloadedCounters.
+     *
+     * @return number of records removed
+     */
+    private int removeRecordsInRange(LocalDate from, LocalDate to) {
+        int removed = 0;
+        for (Subject s : student.getSubjects()) {
+            if (!s.isHistoryLoaded()) {
+                continue;
+            }
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                if (s.hasRecordForDate(d)) {
+                    s.removeRecordForDate(d);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Copy the database counters onto subjects that only hold counters, after
+     * the DB cleanup removed records behind them.
+     *
+     * @return number of records those subjects lost
+     */
+    private int refreshUnloadedCounters(List<Subject> fresh) {
+        int removed = 0;
+        for (Subject s : student.getSubjects()) {
+            if (s.isHistoryLoaded()) {
+                continue;
+            }
+            for (Subject f : fresh) {
+                if (f.getId() == s.getId()) {
+                    removed += Math.max(s.getClassesConducted() - f.getClassesConducted(), 0);
+                    s.updateSummary(f.getClassesConducted(), f.getClassesAttended());
+                    break;
+                }
+            }
+        }
+        return removed;
     }
 
     private void loadHolidays() {
         tableModel.setRowCount(0);
-        List<Holiday> holidays = student.getHolidays();
-        // Sort by date
-        holidays.sort((a, b) -> a.getDate().compareTo(b.getDate()));
-
-        for (Holiday h : holidays) {
-            String dayName = h.getDate().getDayOfWeek().toString().charAt(0)
-                    + h.getDate().getDayOfWeek().toString().substring(1).toLowerCase();
-            tableModel.addRow(new Object[] { h.getDate().toString(), dayName, h.getDescription() });
+        rowHolidays = student.getHolidays(); // Already ordered by start date
+
+        for (Holiday h : rowHolidays) {
+            tableModel.addRow(new Object[] { h.getStartDate().toString(), h.getEndDate().toString(),
+                    h.getDayCount(), h.getDescription(), h.isShared() ? h.getCalendarName() : "Personal" });
         }
     }
 
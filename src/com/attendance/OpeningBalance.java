@@ -0,0 +1,52 @@
+package com.attendance;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Attendance a subject already had when tracking started (e.g. a student
+ * joining mid-semester): classes conducted/attended before the as-of date.
+ * Stored as one opening_balances row instead of fabricated per-date records,
+ * so the real history (heat map, trends) only holds days that were marked.
+ *
+ * Immutable.
+ */
+public final class OpeningBalance {
+
+    private final LocalDate asOf;
+    private final int conducted;
+    private final int attended;
+
+    public OpeningBalance(LocalDate asOf, int conducted, int attended) {
+        Objects.requireNonNull(asOf, "asOf");
+        if (conducted < 0 || attended < 0) {
+            throw new IllegalArgumentException("Class counts cannot be negative.");
+        }
+        if (attended > conducted) {
+            throw new IllegalArgumentException("Attended classes cannot be more than conducted classes.");
+        }
+        this.asOf = asOf;
+        this.conducted = conducted;
+        this.attended = attended;
+    }
+
+    /**
+     * First day of tracked history; the counts cover classes before it.
+     */
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public int getConducted() {
+        return conducted;
+    }
+
+    public int getAttended() {
+        return attended;
+    }
+
+    @Override
+    public String toString() {
+        return attended + "/" + conducted + " before " + asOf;
+    }
+}
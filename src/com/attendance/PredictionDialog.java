@@ -4,8 +4,8 @@ import java.awt.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import javax.swing.*;
 
 /**
@@ -160,7 +160,8 @@ public class PredictionDialog extends JDialog {
             }
 
             long leaveDays = ChronoUnit.DAYS.between(start, end) + 1;
-            List<LocalDate> holidays = student.getHolidayDates();
+            TeachingCalendar teaching = student.getTeachingCalendar();
+            AttendancePolicy policy = student.getAttendancePolicy();
             LocalDate semEnd = student.getSemesterEndDate();
             boolean hasSemDates = student.isSemesterConfigured() && semEnd != null && semEnd.isAfter(LocalDate.now());
 
@@ -186,7 +187,7 @@ public class PredictionDialog extends JDialog {
                 String statusIcon;
                 String statusText;
                 String statusColor;
-                if (afterPct < 75.0) {
+                if (!policy.meetsPercentage(afterPct)) {
                     statusIcon = "🔴";
                     statusText = "Danger";
                     statusColor = "#F38BA8";
@@ -212,41 +213,23 @@ public class PredictionDialog extends JDialog {
                 for (Map.Entry<Subject, Double> entry : afterLeave.entrySet()) {
                     Subject s = entry.getKey();
                     double afterPct = entry.getValue();
-                    int classesLost = countClassesDuringPeriod(s, start, end, holidays);
+                    int classesLost = countClassesDuringPeriod(s, start, end);
                     int conductedAfterLeave = s.getClassesConducted() + classesLost;
                     int attendedAfterLeave = s.getClassesAttended();
-                    int remainingAfterLeave = 0;
-                    LocalDate cursor = end.plusDays(1);
-                    while (!cursor.isAfter(semEnd)) {
-                        if (!holidays.contains(cursor) && !student.isDuringMidsemExams(cursor)) {
-                            List<Subject> daySubjects = schedule.getSubjectsOn(cursor.getDayOfWeek());
-                            if (daySubjects != null && daySubjects.contains(s)) {
-                                remainingAfterLeave++;
-                            }
-                        }
-                        cursor = cursor.plusDays(1);
-                    }
+                    int remainingAfterLeave = teaching.countClasses(s, schedule, end.plusDays(1), semEnd);
                     int bestConducted = conductedAfterLeave + remainingAfterLeave;
                     int bestAttended = attendedAfterLeave + remainingAfterLeave;
                     double bestPct = (bestConducted == 0) ? 100.0 : (double) bestAttended / bestConducted * 100.0;
-                    int canStillMiss = 0;
-                    if (bestPct >= 75.0) {
-                        canStillMiss = (int) Math.floor((double) bestAttended / 0.75 - bestConducted);
-                        if (canStillMiss < 0) canStillMiss = 0;
-                    }
-                    int mustAttend = 0;
-                    if (afterPct < 75.0) {
-                        mustAttend = (int) Math.ceil(3.0 * conductedAfterLeave - 4.0 * attendedAfterLeave);
-                        if (mustAttend < 0) mustAttend = 0;
-                    }
+                    int canStillMiss = policy.safeBunks(bestAttended, bestConducted);
+                    OptionalInt mustAttend = policy.classesNeeded(attendedAfterLeave, conductedAfterLeave);
                     String statusIcon;
                     String statusText;
                     String statusColor;
-                    if (bestPct < 75.0) {
+                    if (!policy.meets(bestAttended, bestConducted)) {
                         statusIcon = "🔴";
                         statusText = "Unrecoverable";
                         statusColor = "#F38BA8";
-                    } else if (mustAttend > 0) {
+                    } else if (mustAttend.orElse(0) > 0) {
                         statusIcon = "⚠️";
                         statusText = "Must recover";
                         statusColor = "#F9E2AF";
@@ -255,36 +238,32 @@ public class PredictionDialog extends JDialog {
                         statusText = "Safe";
                         statusColor = "#A6E3A1";
                     }
-                    sb.append(String.format("<tr style='height:22px;'><td>%s</td><td>%.1f%%</td><td>%.1f%%</td><td>%d</td><td>%d</td><td style='color:%s;'>%s %s</td></tr>",
-                        s.getName(), afterPct, bestPct, canStillMiss, mustAttend, statusColor, statusIcon, statusText));
+                    sb.append(String.format("<tr style='height:22px;'><td>%s</td><td>%.1f%%</td><td>%.1f%%</td><td>%d</td><td>%s</td><td style='color:%s;'>%s %s</td></tr>",
+                        s.getName(), afterPct, bestPct, canStillMiss,
+                        mustAttend.isPresent() ? Integer.toString(mustAttend.getAsInt()) : "—", statusColor, statusIcon, statusText));
                 }
                 sb.append("</table></div>");
                 sb.append("<div style='margin-bottom:18px;'><b style='color:#F38BA8;'>Summary & Advice</b><br>");
                 if (!anyDanger) {
-                    sb.append("<span style='color:#A6E3A1;'>✅ Safe to take this leave!<br>Your attendance stays above 75% in all subjects.<br>Enjoy your break! 🎉</span><br>");
+                    sb.append("<span style='color:#A6E3A1;'>✅ Safe to take this leave!<br>Your attendance stays above " + policy.getThresholdLabel() + " in all subjects.<br>Enjoy your break! 🎉</span><br>");
                     sb.append("<span style='color:#89B4FA;'>💡 TIP: Check the 'CanMiss' column above to see how many MORE classes you can skip this semester.</span>");
                 } else {
                     sb.append("<span style='color:#F38BA8;'>🔴 WARNING: This leave WILL affect your eligibility!</span><br>");
                     for (Map.Entry<Subject, Double> entry : afterLeave.entrySet()) {
                         Subject s = entry.getKey();
                         double afterPct = entry.getValue();
-                        if (afterPct < 75.0) {
-                            int classesLost = countClassesDuringPeriod(s, start, end, holidays);
+                        if (!policy.meetsPercentage(afterPct)) {
+                            int classesLost = countClassesDuringPeriod(s, start, end);
                             int conductedAfterLeave = s.getClassesConducted() + classesLost;
                             int attendedAfterLeave = s.getClassesAttended();
-                            int mustAttend = (int) Math.ceil(3.0 * conductedAfterLeave - 4.0 * attendedAfterLeave);
-                            if (mustAttend < 0) mustAttend = 0;
-                            sb.append(String.format("<span style='color:#F9E2AF;'>📌 %s: Attend next %d classes non-stop!</span><br>", s.getName(), mustAttend));
-                            int remaining = 0;
-                            LocalDate c = end.plusDays(1);
-                            while (!c.isAfter(semEnd)) {
-                                if (!holidays.contains(c) && !student.isDuringMidsemExams(c)) {
-                                    List<Subject> ds = schedule.getSubjectsOn(c.getDayOfWeek());
-                                    if (ds != null && ds.contains(s)) remaining++;
-                                }
-                                c = c.plusDays(1);
+                            OptionalInt mustAttend = policy.classesNeeded(attendedAfterLeave, conductedAfterLeave);
+                            if (!mustAttend.isPresent()) {
+                                sb.append(String.format("<span style='color:#F38BA8;'>⛔ %s: %s!</span><br>", s.getName(), AttendancePolicy.UNREACHABLE));
+                                continue;
                             }
-                            if (mustAttend > remaining) {
+                            sb.append(String.format("<span style='color:#F9E2AF;'>📌 %s: Attend next %d classes non-stop!</span><br>", s.getName(), mustAttend.getAsInt()));
+                            int remaining = teaching.countClasses(s, schedule, end.plusDays(1), semEnd);
+                            if (mustAttend.getAsInt() > remaining) {
                                 sb.append(String.format("<span style='color:#F38BA8;'>⛔ Only %d classes left — CANNOT recover!</span><br>", remaining));
                             } else {
                                 sb.append(String.format("<span style='color:#A6E3A1;'>(%d classes left — recovery possible ✓)</span><br>", remaining));
@@ -320,18 +299,7 @@ public class PredictionDialog extends JDialog {
      * Count how many classes of a subject fall during a period, excluding holidays
      * and midsems.
      */
-    private int countClassesDuringPeriod(Subject subject, LocalDate start, LocalDate end, List<LocalDate> holidays) {
-        int count = 0;
-        LocalDate cursor = start;
-        while (!cursor.isAfter(end)) {
-            if (!holidays.contains(cursor) && !student.isDuringMidsemExams(cursor)) {
-                List<Subject> daySubjects = schedule.getSubjectsOn(cursor.getDayOfWeek());
-                if (daySubjects != null && daySubjects.contains(subject)) {
-                    count++;
-                }
-            }
-            cursor = cursor.plusDays(1);
-        }
-        return count;
+    private int countClassesDuringPeriod(Subject subject, LocalDate start, LocalDate end) {
+        return student.getTeachingCalendar().countClasses(subject, schedule, start, end);
     }
 }
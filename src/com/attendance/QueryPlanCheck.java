@@ -0,0 +1,102 @@
+package com.attendance;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * EXPLAINs DatabaseManager's hot queries and fails if any table in a plan is
+ * read by a full scan (type ALL) or without an index (no key) — the
+ * regression check for the natural primary keys and covering indexes of
+ * schema migration 8. Derived tables and UNION results are not checked;
+ * the tables they are built from are.
+ *
+ * Usage: java com.attendance.QueryPlanCheck
+ *
+ * Needs the configured MySQL database, migrated to the latest version.
+ * Registers a throwaway student with a little data, so the optimizer has
+ * rows to plan against, and deletes it again; exits with status 1 if a
+ * check fails.
+ */
+public class QueryPlanCheck {
+
+    public static void main(String[] args) throws SQLException {
+        DatabaseManager db = Checks.connect();
+        String username = "queryplan-" + System.nanoTime();
+        int studentId = Checks.registerStudent(db, "QueryPlan Check", username);
+        try (Connection conn = DriverManager.getConnection(
+                DatabaseConfig.DB_URL, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD)) {
+            run(db, conn, studentId, username);
+        } finally {
+            Checks.deleteStudent(studentId);
+        }
+        Checks.exit();
+    }
+
+    private static void run(DatabaseManager db, Connection conn, int studentId, String username)
+            throws SQLException {
+        LocalDate today = LocalDate.now();
+        int first = db.addSubject(studentId, "Plan A", 3);
+        int second = db.addSubject(studentId, "Plan B", 2);
+        db.saveSchedule(first, Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY));
+        for (int i = 1; i <= 10; i++) {
+            db.saveAttendanceRecord(first, today.minusDays(i), i % 3 != 0);
+            db.saveAttendanceRecord(second, today.minusDays(i), true);
+        }
+        db.loadAttendanceHistories(Arrays.asList(first, second)); // Flushes the queued marks
+        db.addHoliday(studentId, new Holiday(today.plusDays(20), today.plusDays(22), "Plan holiday"));
+        Date from = Date.valueOf(today.plusDays(20));
+        Date to = Date.valueOf(today.plusDays(22));
+
+        explain(conn, "authenticateStudent", DatabaseManager.STUDENT_BY_USERNAME_SQL, username);
+        explain(conn, "querySubjectRows", DatabaseManager.SUBJECT_ROWS_SQL, studentId);
+        explain(conn, "loadSubjectCounters", DatabaseManager.SUBJECT_COUNTERS_SQL, studentId);
+        explain(conn, "loadAttendanceHistories", DatabaseManager.historiesSql(2), first, second);
+        explain(conn, "writeHolidayAdd (clear)", DatabaseManager.HOLIDAY_CLEAR_SQL, studentId, from, to);
+        explain(conn, "writeHolidaysRemoveByDescription",
+                DatabaseManager.HOLIDAYS_REMOVE_BY_DESCRIPTION_SQL, studentId, "Plan holiday");
+        explain(conn, "queryHolidays", DatabaseManager.HOLIDAYS_SQL, studentId);
+        explain(conn, "querySharedHolidays", DatabaseManager.SHARED_HOLIDAYS_SQL, studentId);
+        explain(conn, "loadScheduledDays", DatabaseManager.SCHEDULED_DAYS_SQL, first, first);
+        explain(conn, "queryScheduleDays", DatabaseManager.SCHEDULE_DAYS_SQL, studentId, studentId);
+        explain(conn, "loadChanges", DatabaseManager.CHANGES_SQL,
+                DatabaseConfig.CHANGE_SYNC_SETTLE_SEC, studentId, 0L, DatabaseConfig.CHANGE_SYNC_MAX_ROWS);
+        explain(conn, "latestChangeSeqs", DatabaseManager.LATEST_CHANGE_SEQS_SQL, studentId);
+    }
+
+    /**
+     * EXPLAIN one query and check every table row of its plan.
+     */
+    private static void explain(Connection conn, String name, String sql, Object... params) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("table");
+                    String type = rs.getString("type");
+                    if (table == null || table.startsWith("<") || type == null) {
+                        continue; // Derived table, UNION result, or nothing to read ("optimized away")
+                    }
+                    if (type.equals("ALL")) {
+                        problems.add(table + ": full scan");
+                    } else if (rs.getString("key") == null) {
+                        problems.add(table + ": no index (type " + type + ")");
+                    }
+                }
+            }
+        }
+        Checks.check(problems.isEmpty(),
+                name + (problems.isEmpty() ? " uses indexes" : " — " + String.join(", ", problems)));
+    }
+}
@@ -0,0 +1,146 @@
+package com.attendance;
+
+import java.io.PrintStream;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Headless teacher mode for course sections — create a section, list its
+ * roster, and mark roll call for a date (DatabaseManager.markRollCall).
+ * A third entry point alongside AttendanceApp.main and EligibilityReport.
+ *
+ * Usage:
+ *   java com.attendance.RollCall --create CODE NAME DAY[,DAY...]   (e.g. MON,WED,FRI)
+ *   java com.attendance.RollCall CODE                              (print the roster)
+ *   java com.attendance.RollCall CODE --mark [--date YYYY-MM-DD] [--absent ID[,ID...]]
+ *
+ * Roll call marks everyone on the roster present except the --absent
+ * student ids, for today unless --date is given. Students who couldn't
+ * mark the date themselves (a holiday, mid-sem exams, outside their
+ * semester) are skipped. Exits with status 1 if the database write fails
+ * and 2 on bad arguments or if the database can't be reached.
+ */
+public class RollCall {
+
+    private static final String USAGE = "Usage: RollCall --create CODE NAME DAY[,DAY...]\n"
+            + "       RollCall CODE [--mark [--date YYYY-MM-DD] [--absent ID[,ID...]]]";
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        DatabaseManager db = DatabaseManager.getInstance();
+        if (!db.testConnection() || !db.migrateSchema()) {
+            System.err.println("Cannot connect to MySQL at " + DatabaseConfig.DB_URL);
+            System.exit(2);
+        }
+        System.exit(run(db, args, System.out));
+    }
+
+    /**
+     * Run one command against the database.
+     *
+     * @return the exit status
+     */
+    static int run(DatabaseManager db, String[] args, PrintStream out) {
+        if (args.length > 0 && args[0].equals("--create")) {
+            return args.length == 4 ? create(db, args[1], args[2], args[3], out) : usage();
+        }
+        if (args.length == 0 || args[0].startsWith("--")) {
+            return usage();
+        }
+        CourseSection section = db.findSection(args[0]);
+        if (section == null) {
+            System.err.println("No section with code " + args[0]);
+            return 2;
+        }
+        if (args.length == 1) {
+            for (Map.Entry<Integer, String> e : db.loadRoster(section.getId()).entrySet()) {
+                out.println(e.getKey() + "\t" + e.getValue());
+            }
+            return 0;
+        }
+        if (!args[1].equals("--mark")) {
+            return usage();
+        }
+
+        LocalDate date = LocalDate.now();
+        Set<Integer> absent = new LinkedHashSet<>();
+        try {
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--date":
+                        date = LocalDate.parse(args[++i]);
+                        break;
+                    case "--absent":
+                        for (String id : args[++i].split(",")) {
+                            absent.add(Integer.parseInt(id.trim()));
+                        }
+                        break;
+                    default:
+                        return usage();
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | DateTimeParseException | NumberFormatException e) {
+            return usage();
+        }
+
+        Map<Integer, String> roster = db.loadRoster(section.getId());
+        for (int id : absent) {
+            if (!roster.containsKey(id)) {
+                System.err.println("Student " + id + " is not on the roster of " + section.getCode());
+                return 2;
+            }
+        }
+        if (!db.markRollCall(section.getId(), date, absent)) {
+            System.err.println("Roll call for " + section.getCode() + " on " + date + " was not saved");
+            return 1;
+        }
+        out.println(section.getCode() + " " + date + ": roll call saved (" + absent.size() + " of "
+                + roster.size() + " absent)");
+        return 0;
+    }
+
+    private static int create(DatabaseManager db, String code, String name, String days, PrintStream out) {
+        List<DayOfWeek> classDays = new ArrayList<>();
+        for (String day : days.split(",")) {
+            DayOfWeek parsed = parseDay(day.trim());
+            if (parsed == null) {
+                System.err.println("Unknown day: " + day);
+                return 2;
+            }
+            classDays.add(parsed);
+        }
+        int id = db.createSection(code, name, classDays);
+        if (id < 0) {
+            System.err.println("Could not create section " + code + " (is the code taken?)");
+            return 1;
+        }
+        out.println("Created section " + code + " (id " + id + ")");
+        return 0;
+    }
+
+    /**
+     * MON, Monday, monday, ... or null.
+     */
+    private static DayOfWeek parseDay(String day) {
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if (day.length() >= 3 && d.name().startsWith(day.toUpperCase())) {
+                return d;
+            }
+        }
+        return null;
+    }
+
+    private static int usage() {
+        System.err.println(USAGE);
+        return 2;
+    }
+}
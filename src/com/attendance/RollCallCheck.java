@@ -0,0 +1,140 @@
+package com.attendance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs RollCall (teacher mode) end to end against a throwaway section:
+ * create it, enrol five students, print the roster and mark roll call,
+ * then checks which records were written. Of the five, one is marked
+ * absent and three could not mark the date themselves (mid-sem exams, a
+ * holiday, outside their semester) and must be skipped — by roll call and
+ * by self check-ins (DatabaseManager.writeCheckIns) alike.
+ *
+ * Usage: java com.attendance.RollCallCheck
+ *
+ * Needs the configured MySQL database. Deletes the section and the
+ * students again; exits with status 1 if a check fails.
+ */
+public class RollCallCheck {
+
+    private static final String[] ROLES = { "present", "absent", "midsem", "holiday", "outside" };
+
+    public static void main(String[] args) throws SQLException {
+        DatabaseManager db = Checks.connect();
+        String code = "rc-" + System.nanoTime();
+        List<Integer> students = new ArrayList<>();
+        try {
+            for (String role : ROLES) {
+                students.add(Checks.registerStudent(db, "RollCall " + role, code + "-" + role));
+            }
+            run(db, code, students);
+        } finally {
+            for (int studentId : students) {
+                Checks.deleteStudent(studentId);
+            }
+            deleteSection(code);
+        }
+        Checks.exit();
+    }
+
+    private static void run(DatabaseManager db, String code, List<Integer> students) throws SQLException {
+        LocalDate date = LocalDate.now();
+        String everyDay = "MON,TUE,WED,THU,FRI,SAT,SUN"; // So the date is a class day whatever it is
+        Checks.check(RollCall.run(db, new String[] { "--create", code, "Roll Call Check", everyDay }, quiet()) == 0,
+                "--create makes the section");
+        CourseSection section = db.findSection(code);
+        if (section == null) {
+            Checks.check(false, "section can be found by its code");
+            return;
+        }
+
+        int[] subjects = new int[ROLES.length];
+        for (int i = 0; i < ROLES.length; i++) {
+            subjects[i] = db.enrollInSection(students.get(i), section);
+        }
+        Student midsem = db.loadStudentAccount(students.get(2));
+        midsem.setMidsemExamStartDate(date.minusDays(1));
+        midsem.setMidsemExamEndDate(date.plusDays(1));
+        db.saveSemesterSettings(midsem);
+        db.addHoliday(students.get(3), new Holiday(date, date, "RollCall holiday"));
+        Student outside = db.loadStudentAccount(students.get(4));
+        outside.setSemesterStartDate(date.plusDays(1));
+        outside.setSemesterEndDate(date.plusDays(100));
+        db.saveSemesterSettings(outside);
+
+        ByteArrayOutputStream roster = new ByteArrayOutputStream();
+        Checks.check(RollCall.run(db, new String[] { code }, new PrintStream(roster)) == 0
+                && countLines(roster) == ROLES.length, "roster lists every enrolled student");
+        Checks.check(RollCall.run(db, new String[] { code, "--mark", "--absent", "-1" }, quiet()) == 2,
+                "--absent with a student not on the roster is refused");
+        Checks.check(RollCall.run(db, new String[] { code, "--mark", "--date", date.toString(),
+                "--absent", String.valueOf(students.get(1)) }, quiet()) == 0, "--mark saves the roll call");
+
+        Map<Integer, List<AttendanceRecord>> histories = db.loadAttendanceHistories(Arrays.asList(
+                subjects[0], subjects[1], subjects[2], subjects[3], subjects[4]));
+        if (histories == null) {
+            Checks.check(false, "histories can be loaded");
+            return;
+        }
+        Checks.check(Boolean.TRUE.equals(markOn(histories, subjects[0], date)),
+                "present student is marked present");
+        Checks.check(Boolean.FALSE.equals(markOn(histories, subjects[1], date)), "absent student is marked absent");
+        for (int i = 2; i < ROLES.length; i++) {
+            Checks.check(markOn(histories, subjects[i], date) == null,
+                    ROLES[i] + " student is skipped by roll call");
+        }
+
+        List<CheckInIngestor.CheckIn> checkIns = new ArrayList<>();
+        for (int i = 2; i < ROLES.length; i++) {
+            checkIns.add(new CheckInIngestor.CheckIn(section.getId(), students.get(i), date, System.nanoTime()));
+        }
+        db.writeCheckIns(checkIns);
+        histories = db.loadAttendanceHistories(Arrays.asList(subjects[2], subjects[3], subjects[4]));
+        for (int i = 2; i < ROLES.length; i++) {
+            Checks.check(histories != null && markOn(histories, subjects[i], date) == null,
+                    ROLES[i] + " student's check-in is ignored");
+        }
+    }
+
+    /**
+     * The mark for a date, or null if there is none.
+     */
+    private static Boolean markOn(Map<Integer, List<AttendanceRecord>> histories, int subjectId, LocalDate date) {
+        for (AttendanceRecord r : histories.getOrDefault(subjectId, new ArrayList<>())) {
+            if (r.getDate().equals(date)) {
+                return r.isPresent();
+            }
+        }
+        return null;
+    }
+
+    private static int countLines(ByteArrayOutputStream out) {
+        String text = out.toString().trim();
+        return text.isEmpty() ? 0 : text.split("\n").length;
+    }
+
+    private static PrintStream quiet() {
+        return new PrintStream(new ByteArrayOutputStream());
+    }
+
+    private static void deleteSection(String code) {
+        try (Connection conn = DriverManager.getConnection(
+                DatabaseConfig.DB_URL, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD);
+                PreparedStatement pstmt = conn.prepareStatement("DELETE FROM course_sections WHERE code = ?")) {
+            pstmt.setString(1, code); // Cascades to section_schedule
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Could not delete test section " + code + ": " + e.getMessage());
+        }
+    }
+}
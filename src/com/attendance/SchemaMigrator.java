@@ -0,0 +1,369 @@
+package com.attendance;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations.
+ * Applied versions are recorded in a schema_version table with a checksum of
+ * their SQL. A warm start is a single SELECT MAX(version); only when the
+ * database is behind are the pending steps run, in order, under a MySQL
+ * named lock so two app instances don't migrate at once.
+ *
+ * Databases created before versioning already have some of these columns, so
+ * "duplicate column / key / table / foreign key" errors are treated as
+ * already applied, as is "can't drop column / key" (the column or key a step
+ * drops is already gone).
+ *
+ * To change the schema, append a new Migration — never edit an applied one.
+ */
+public class SchemaMigrator {
+
+    private static final String LOCK_NAME = "attendance_system.schema_migration";
+    private static final int LOCK_TIMEOUT_SEC = 30;
+
+    // MySQL error codes meaning "this change is already there" (legacy databases)
+    private static final int ER_TABLE_EXISTS = 1050;
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+    private static final int ER_CANT_DROP_FIELD_OR_KEY = 1091;
+    private static final int ER_FK_DUP_NAME = 1826;
+    private static final int ER_NO_SUCH_TABLE = 1146;
+
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+            new Migration(1, "Base tables",
+                    "CREATE TABLE IF NOT EXISTS students ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "name VARCHAR(100) NOT NULL, "
+                            + "username VARCHAR(50) NOT NULL UNIQUE, "
+                            + "password_hash VARCHAR(255) NOT NULL, "
+                            + "semester_start_date DATE, "
+                            + "midsem_exam_start_date DATE, "
+                            + "midsem_exam_end_date DATE, "
+                            + "last_teaching_day DATE, "
+                            + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS subjects ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "student_id INT NOT NULL, "
+                            + "name VARCHAR(100) NOT NULL, "
+                            + "classes_per_week INT DEFAULT 0, "
+                            + "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS attendance_records ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "subject_id INT NOT NULL, "
+                            + "record_date DATE NOT NULL, "
+                            + "is_present BOOLEAN NOT NULL, "
+                            + "FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE, "
+                            + "UNIQUE KEY unique_record (subject_id, record_date)"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS holidays ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "student_id INT NOT NULL, "
+                            + "holiday_date DATE NOT NULL, "
+                            + "description VARCHAR(200) DEFAULT 'Official Holiday', "
+                            + "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE, "
+                            + "UNIQUE KEY unique_holiday (student_id, holiday_date)"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS weekly_schedule ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "subject_id INT NOT NULL, "
+                            + "day_of_week VARCHAR(10) NOT NULL, "
+                            + "FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE"
+                            + ")"),
+            new Migration(2, "Theme preference",
+                    "ALTER TABLE students ADD COLUMN theme VARCHAR(10) DEFAULT 'dark'"),
+            new Migration(3, "Email report settings",
+                    "ALTER TABLE students ADD COLUMN email VARCHAR(200) DEFAULT NULL",
+                    "ALTER TABLE students ADD COLUMN email_frequency VARCHAR(10) DEFAULT 'off'",
+                    "ALTER TABLE students ADD COLUMN last_email_sent DATE DEFAULT NULL"),
+            // Numeric day-of-week (ISO 1 = Monday .. 7 = Sunday) for cheap schedule loading
+            new Migration(4, "Numeric schedule day",
+                    "ALTER TABLE weekly_schedule ADD COLUMN day_num TINYINT DEFAULT NULL",
+                    "UPDATE weekly_schedule SET day_num = FIELD(day_of_week, 'MONDAY', 'TUESDAY', "
+                            + "'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY', 'SUNDAY') "
+                            + "WHERE day_num IS NULL"),
+            // Per-student eligibility threshold (percent)
+            new Migration(5, "Required attendance percentage",
+                    "ALTER TABLE students ADD COLUMN required_percentage DECIMAL(5,2) NOT NULL DEFAULT 75.00"),
+            // Denormalized counters so login reads one row per subject, not its whole history
+            new Migration(6, "Subject attendance counters",
+                    "ALTER TABLE subjects ADD COLUMN classes_conducted INT NOT NULL DEFAULT 0",
+                    "ALTER TABLE subjects ADD COLUMN classes_attended INT NOT NULL DEFAULT 0",
+                    "UPDATE subjects s SET "
+                            + "classes_conducted = (SELECT COUNT(*) FROM attendance_records ar "
+                            + "WHERE ar.subject_id = s.id), "
+                            + "classes_attended = (SELECT COALESCE(SUM(ar.is_present), 0) FROM attendance_records ar "
+                            + "WHERE ar.subject_id = s.id)"),
+            // Mid-semester starting counts as one row per subject instead of fabricated records
+            new Migration(7, "Opening balances",
+                    "CREATE TABLE IF NOT EXISTS opening_balances ("
+                            + "subject_id INT PRIMARY KEY, "
+                            + "as_of_date DATE NOT NULL, "
+                            + "classes_conducted INT NOT NULL, "
+                            + "classes_attended INT NOT NULL, "
+                            + "FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE"
+                            + ")"),
+            // Cluster rows by their natural key: every attendance lookup is a primary-key
+            // range scan instead of secondary index + clustered-index lookup. The old
+            // unique key becomes the primary key, so no duplicates can exist. holidays is
+            // left alone — migration 9 replaces it with holiday_ranges, which has its own
+            // natural key and description index.
+            new Migration(8, "Natural primary keys and covering indexes",
+                    "ALTER TABLE attendance_records DROP COLUMN id, "
+                            + "ADD PRIMARY KEY (subject_id, record_date), DROP INDEX unique_record",
+                    // loadSchedule / loadScheduledDays read only these columns
+                    "CREATE INDEX idx_schedule_subject_day ON weekly_schedule (subject_id, day_num, day_of_week)"),
+            // Holidays as intervals: a group holiday is one row instead of one per day.
+            // Runs of consecutive days with the same description become one range.
+            new Migration(9, "Holiday ranges",
+                    "CREATE TABLE IF NOT EXISTS holiday_ranges ("
+                            + "student_id INT NOT NULL, "
+                            + "start_date DATE NOT NULL, "
+                            + "end_date DATE NOT NULL, "
+                            + "description VARCHAR(200) NOT NULL DEFAULT 'Official Holiday', "
+                            + "PRIMARY KEY (student_id, start_date), "
+                            + "KEY idx_holiday_ranges_description (student_id, description), "
+                            + "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE"
+                            + ")",
+                    "INSERT IGNORE INTO holiday_ranges (student_id, start_date, end_date, description) "
+                            + "SELECT student_id, MIN(holiday_date), MAX(holiday_date), "
+                            + "COALESCE(description, 'Official Holiday') FROM ("
+                            + "SELECT student_id, holiday_date, description, "
+                            + "TO_DAYS(holiday_date) - ROW_NUMBER() OVER ("
+                            + "PARTITION BY student_id, description ORDER BY holiday_date) AS run_id "
+                            + "FROM holidays) days "
+                            + "GROUP BY student_id, description, run_id",
+                    "DROP TABLE IF EXISTS holidays"),
+            new Migration(10, "Shared holiday calendars",
+                    "CREATE TABLE IF NOT EXISTS holiday_calendars ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "name VARCHAR(100) NOT NULL, "
+                            + "scope ENUM('institution', 'department', 'section') NOT NULL, "
+                            + "UNIQUE KEY uq_holiday_calendars_scope_name (scope, name)"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS calendar_holidays ("
+                            + "calendar_id INT NOT NULL, "
+                            + "start_date DATE NOT NULL, "
+                            + "end_date DATE NOT NULL, "
+                            + "description VARCHAR(200) NOT NULL DEFAULT 'Official Holiday', "
+                            + "PRIMARY KEY (calendar_id, start_date), "
+                            + "FOREIGN KEY (calendar_id) REFERENCES holiday_calendars(id) ON DELETE CASCADE"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS calendar_subscriptions ("
+                            + "student_id INT NOT NULL, "
+                            + "calendar_id INT NOT NULL, "
+                            + "PRIMARY KEY (student_id, calendar_id), "
+                            + "KEY idx_calendar_subscriptions_calendar (calendar_id, student_id), "
+                            + "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE, "
+                            + "FOREIGN KEY (calendar_id) REFERENCES holiday_calendars(id) ON DELETE CASCADE"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS calendar_holiday_exclusions ("
+                            + "student_id INT NOT NULL, "
+                            + "calendar_id INT NOT NULL, "
+                            + "start_date DATE NOT NULL, "
+                            + "PRIMARY KEY (student_id, calendar_id, start_date), "
+                            + "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE, "
+                            + "FOREIGN KEY (calendar_id, start_date) "
+                            + "REFERENCES calendar_holidays(calendar_id, start_date) ON DELETE CASCADE"
+                            + ")"),
+            new Migration(11, "Course sections",
+                    "CREATE TABLE IF NOT EXISTS course_sections ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "code VARCHAR(30) NOT NULL UNIQUE, "
+                            + "name VARCHAR(100) NOT NULL"
+                            + ")",
+                    "CREATE TABLE IF NOT EXISTS section_schedule ("
+                            + "section_id INT NOT NULL, "
+                            + "day_num TINYINT NOT NULL, "
+                            + "PRIMARY KEY (section_id, day_num), "
+                            + "FOREIGN KEY (section_id) REFERENCES course_sections(id) ON DELETE CASCADE"
+                            + ")",
+                    "ALTER TABLE subjects ADD COLUMN section_id INT DEFAULT NULL",
+                    // One enrolment per student per section; also the roster index
+                    "ALTER TABLE subjects ADD UNIQUE KEY uq_subjects_section_student (section_id, student_id)",
+                    "ALTER TABLE subjects ADD CONSTRAINT fk_subjects_section "
+                            + "FOREIGN KEY (section_id) REFERENCES course_sections(id) ON DELETE SET NULL"),
+            // Append-only; no foreign keys, so rows outlive deleted subjects and inserts stay cheap
+            new Migration(12, "Change log",
+                    "CREATE TABLE IF NOT EXISTS change_log ("
+                            + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                            + "student_id INT NOT NULL, "
+                            + "kind TINYINT NOT NULL, "
+                            + "subject_id INT DEFAULT NULL, "
+                            + "from_date DATE DEFAULT NULL, "
+                            + "to_date DATE DEFAULT NULL, "
+                            + "present BOOLEAN DEFAULT NULL, "
+                            + "changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                            + "INDEX idx_change_log_student (student_id, seq), "
+                            + "INDEX idx_change_log_changed_at (changed_at)"
+                            + ")"));
+
+    private SchemaMigrator() {
+        // Utility class
+    }
+
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * Bring the schema up to date.
+     *
+     * @return the number of migrations applied (0 on a warm start)
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        if (currentVersion(conn) >= getLatestVersion()) {
+            return 0; // Warm start — the only query
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "checksum CHAR(8) NOT NULL, "
+                    + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+                    + ")");
+        }
+
+        acquireLock(conn);
+        try {
+            // Re-read under the lock: another instance may have just migrated
+            Map<Integer, String> applied = appliedChecksums(conn);
+            int count = 0;
+            for (Migration m : MIGRATIONS) {
+                String recorded = applied.get(m.version);
+                if (recorded != null) {
+                    if (!recorded.equals(m.checksum)) {
+                        System.err.println("Schema migration " + m.version + " (" + m.description
+                                + ") was changed after it was applied (checksum " + recorded
+                                + " vs " + m.checksum + ").");
+                    }
+                    continue;
+                }
+                apply(conn, m);
+                count++;
+            }
+            return count;
+        } finally {
+            releaseLock(conn);
+        }
+    }
+
+    // ───── Internals ─────
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_NO_SUCH_TABLE) {
+                return 0; // Fresh or pre-versioning database
+            }
+            throw e;
+        }
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Run one migration's statements, then record it. MySQL commits DDL
+     * implicitly, so a step is not atomic — which is why steps tolerate
+     * "already exists" and "already dropped" errors and can simply be re-run
+     * after a failure.
+     */
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : m.statements) {
+                try {
+                    stmt.executeUpdate(sql);
+                } catch (SQLException e) {
+                    if (!isAlreadyApplied(e)) {
+                        throw new SQLException("Schema migration " + m.version + " (" + m.description
+                                + ") failed: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                    }
+                }
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)")) {
+            pstmt.setInt(1, m.version);
+            pstmt.setString(2, m.description);
+            pstmt.setString(3, m.checksum);
+            pstmt.executeUpdate();
+        }
+        System.out.println("Applied schema migration " + m.version + ": " + m.description);
+    }
+
+    private static boolean isAlreadyApplied(SQLException e) {
+        int code = e.getErrorCode();
+        return code == ER_TABLE_EXISTS || code == ER_DUP_FIELDNAME || code == ER_DUP_KEYNAME
+                || code == ER_CANT_DROP_FIELD_OR_KEY || code == ER_FK_DUP_NAME;
+    }
+
+    private static void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.setInt(2, LOCK_TIMEOUT_SEC);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another instance to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Error releasing schema migration lock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One ordered schema change.
+     */
+    static final class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+        final String checksum;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+            this.checksum = checksumOf(statements);
+        }
+
+        private static String checksumOf(String[] statements) {
+            CRC32 crc = new CRC32();
+            for (String sql : statements) {
+                crc.update(sql.getBytes(StandardCharsets.UTF_8));
+                crc.update(';');
+            }
+            return String.format("%08x", crc.getValue());
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.time.format.DateTimeParseException;
  * 2. Mid-Sem Exam Start Date (classes pause)
  * 3. Mid-Sem Exam End Date (classes resume)
  * 4. Last Teaching Day (before end-sem exams)
+ * plus the minimum attendance percentage required for eligibility.
  */
 public class SemesterSettingsDialog extends JDialog {
 
@@ -30,7 +31,7 @@ public class SemesterSettingsDialog extends JDialog {
         super(owner, "Semester Configuration", true);
         this.student = student;
 
-        setSize(500, 420);
+        setSize(500, 470);
         setLocationRelativeTo(owner);
         setResizable(false);
 
@@ -77,6 +78,18 @@ public class SemesterSettingsDialog extends JDialog {
         addDateRow(inputPanel, gbc, row++, "Last Teaching Day:",
                 createDatePickerPanel(lastDayField), "Last day of regular classes (before end-sem)");
 
+        // Required attendance (0.01% steps are stored exactly)
+        JSpinner requiredSpinner = new JSpinner(new SpinnerNumberModel(
+                student.getAttendancePolicy().getThresholdPercentage(), 0.0, 100.0, 0.5));
+        requiredSpinner.setEditor(new JSpinner.NumberEditor(requiredSpinner, "0.##"));
+        requiredSpinner.getEditor().getComponent(0).setBackground(FIELD_BG);
+        requiredSpinner.getEditor().getComponent(0).setForeground(TEXT_COLOR);
+        JPanel requiredPanel = new JPanel(new BorderLayout());
+        requiredPanel.setBackground(CARD_COLOR);
+        requiredPanel.add(requiredSpinner, BorderLayout.CENTER);
+        addDateRow(inputPanel, gbc, row++, "Required Attendance %:",
+                requiredPanel, "Minimum attendance for exam eligibility");
+
         // Info label
         gbc.gridx = 0;
         gbc.gridy = row;
@@ -102,7 +115,8 @@ public class SemesterSettingsDialog extends JDialog {
         JButton saveBtn = new UIUtils.RoundedButton("💾 Save Configuration", ACCENT_COLOR, BG_COLOR, 12);
 
         saveBtn.addActionListener(e -> saveSemesterSettings(
-                startField, midStartField, midEndField, lastDayField));
+                startField, midStartField, midEndField, lastDayField,
+                ((Number) requiredSpinner.getValue()).doubleValue()));
 
         JButton resetBtn = new UIUtils.RoundedButton("🔄 Reset All", ThemeManager.getRedColor(), BG_COLOR, 12);
 
@@ -117,7 +131,8 @@ public class SemesterSettingsDialog extends JDialog {
                     + "<b>Side effects:</b><br>"
                     + "&nbsp;&nbsp;• Safe-bunk calculations will stop working<br>"
                     + "&nbsp;&nbsp;• Remaining-class counts will be unavailable<br>"
-                    + "&nbsp;&nbsp;• Critical attendance warnings (\"max possible < 75%\") will be disabled<br>"
+                    + "&nbsp;&nbsp;• Critical attendance warnings (\"max possible < "
+                    + student.getAttendancePolicy().getThresholdLabel() + "\") will be disabled<br>"
                     + "&nbsp;&nbsp;• Leave predictions will lose accuracy<br><br>"
                     + "<i>You can reconfigure these dates at any time.</i>"
                     + "</body></html>";
@@ -137,11 +152,10 @@ public class SemesterSettingsDialog extends JDialog {
                 student.setSemesterEndDate(null);
 
                 // Clear from database
-                DatabaseManager.getInstance().saveSemesterSettings(student);
-
-                JOptionPane.showMessageDialog(this,
-                        "Semester settings have been reset.",
-                        "Reset", JOptionPane.INFORMATION_MESSAGE);
+                AsyncDb.run(this, () -> DatabaseManager.getInstance().saveSemesterSettings(student))
+                        .thenRun(() -> JOptionPane.showMessageDialog(this,
+                                "Semester settings have been reset.",
+                                "Reset", JOptionPane.INFORMATION_MESSAGE));
             }
         });
 
@@ -216,7 +230,7 @@ public class SemesterSettingsDialog extends JDialog {
     }
 
     private void saveSemesterSettings(JTextField startField, JTextField midStartField,
-            JTextField midEndField, JTextField lastDayField) {
+            JTextField midEndField, JTextField lastDayField, double requiredPercentage) {
         try {
             String startStr = startField.getText().trim();
             String midStartStr = midStartField.getText().trim();
@@ -259,15 +273,17 @@ public class SemesterSettingsDialog extends JDialog {
             student.setMidsemExamStartDate(midStart);
             student.setMidsemExamEndDate(midEnd);
             student.setSemesterEndDate(lastDay);
+            student.setAttendancePolicy(AttendancePolicy.ofPercentage(requiredPercentage));
 
-            // Save to database
-            DatabaseManager.getInstance().saveSemesterSettings(student);
-
+            // Save to database (off the EDT)
             saved = true;
-            JOptionPane.showMessageDialog(this,
-                    "Semester settings saved successfully!",
-                    "Saved", JOptionPane.INFORMATION_MESSAGE);
-            dispose();
+            AsyncDb.run(this, () -> DatabaseManager.getInstance().saveSemesterSettings(student))
+                    .thenRun(() -> {
+                        JOptionPane.showMessageDialog(this,
+                                "Semester settings saved successfully!",
+                                "Saved", JOptionPane.INFORMATION_MESSAGE);
+                        dispose();
+                    });
         } catch (DateTimeParseException ex) {
             showError("Invalid date format. Please use YYYY-MM-DD.");
         }
@@ -0,0 +1,45 @@
+package com.attendance;
+
+/**
+ * A holiday calendar shared by many students (e.g. the institution's
+ * national holidays, a department's breaks, a section's off days).
+ * Students subscribe to calendars; their own holidays and "hide this
+ * holiday for me" exclusions are layered on top (see HolidayCalendar).
+ *
+ * Publishing a holiday to a shared calendar is one row, however many
+ * students subscribe.
+ */
+public class SharedCalendar {
+
+    public enum Scope {
+        INSTITUTION, DEPARTMENT, SECTION
+    }
+
+    private final int id;
+    private final String name;
+    private final Scope scope;
+
+    public SharedCalendar(int id, String name, Scope scope) {
+        this.id = id;
+        this.name = name;
+        this.scope = scope;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public String toString() {
+        String s = scope.name();
+        return name + " (" + s.charAt(0) + s.substring(1).toLowerCase() + ")";
+    }
+}
@@ -13,7 +13,9 @@ public class Student {
     private String name;
     private String username;
     private List<Subject> subjects;
-    private List<Holiday> holidays;
+    private long changeSeq; // change_log position the loaded data reflects (see DeltaSync)
+    private final HolidayCalendar holidayCalendar = new HolidayCalendar(); // Holiday intervals + midsem
+    private final TeachingCalendar teachingCalendar = new TeachingCalendar(holidayCalendar); // Class-count prefix sums
 
     // Semester date fields (4 dates for accurate calculation)
     private LocalDate semesterStartDate;
@@ -21,6 +23,9 @@ public class Student {
     private LocalDate midsemExamEndDate; // Classes resume
     private LocalDate semesterEndDate; // Last teaching day (before end-sem exams)
 
+    // Minimum attendance required for eligibility
+    private AttendancePolicy attendancePolicy = AttendancePolicy.DEFAULT;
+
     // Email report fields
     private String email;
     private String emailFrequency = "off"; // off, weekly, monthly
@@ -29,7 +34,6 @@ public class Student {
     public Student(String name) {
         this.name = name;
         this.subjects = new ArrayList<>();
-        this.holidays = new ArrayList<>();
     }
 
     // ── ID (Database) ──
@@ -68,53 +72,103 @@ public class Student {
         return subjects;
     }
 
+    // ── Change log position ──
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     // ── Holidays ──
-    public void addHoliday(Holiday holiday) {
-        if (!holidays.contains(holiday)) {
-            holidays.add(holiday);
+
+    /**
+     * Add one of the student's own holidays (a single day or a range).
+     * It may overlap shared holidays.
+     *
+     * @return false if it overlaps another of the student's own holidays — nothing is added
+     */
+    public boolean addHoliday(Holiday holiday) {
+        if (holidayCalendar.overlapsPersonalHoliday(holiday.getStartDate(), holiday.getEndDate())) {
+            return false;
         }
+        holidayCalendar.addHoliday(holiday);
+        return true;
     }
 
+    /**
+     * Remove one of the student's own holidays, or hide a shared one for
+     * this student (persist with DatabaseManager.excludeSharedHoliday).
+     */
     public void removeHoliday(Holiday holiday) {
-        holidays.remove(holiday);
-    }
-
-    public void removeHolidayByDate(LocalDate date) {
-        holidays.removeIf(h -> h.getDate().equals(date));
+        holidayCalendar.removeHoliday(holiday);
     }
 
+    /**
+     * Remove the student's own holidays with this description.
+     */
     public void removeHolidaysByDescription(String description) {
-        holidays.removeIf(h -> h.getDescription().equals(description));
+        for (Holiday h : holidayCalendar.getPersonalHolidays()) {
+            if (h.getDescription().equals(description)) {
+                holidayCalendar.removeHoliday(h);
+            }
+        }
     }
 
-    public void updateHoliday(LocalDate oldDate, LocalDate newDate, String newDescription) {
-        for (Holiday h : holidays) {
-            if (h.getDate().equals(oldDate)) {
-                h.setDate(newDate);
-                h.setDescription(newDescription);
-                break;
-            }
+    /**
+     * Replace a holiday with an edited copy (new dates and/or description).
+     *
+     * @return false if the edited holiday would overlap another one — nothing changes
+     */
+    public boolean updateHoliday(Holiday oldHoliday, Holiday newHoliday) {
+        holidayCalendar.removeHoliday(oldHoliday);
+        if (holidayCalendar.overlapsPersonalHoliday(newHoliday.getStartDate(), newHoliday.getEndDate())) {
+            holidayCalendar.addHoliday(oldHoliday);
+            return false;
         }
+        holidayCalendar.addHoliday(newHoliday);
+        return true;
     }
 
+    /**
+     * Snapshot of all holidays (own and shared), ordered by start date.
+     */
     public List<Holiday> getHolidays() {
-        return holidays;
+        return holidayCalendar.getHolidays();
     }
 
+    /**
+     * Replace the student's own holidays.
+     */
     public void setHolidays(List<Holiday> holidays) {
-        this.holidays = holidays;
+        holidayCalendar.setHolidays(holidays);
     }
 
     /**
-     * Convenience method: returns just the dates for backward compatibility
-     * with AttendanceCalculator, PredictionDialog, etc.
+     * Replace the holidays inherited from subscribed shared calendars
+     * (loaded once per session; see DatabaseManager.loadSharedHolidays).
      */
-    public List<LocalDate> getHolidayDates() {
-        List<LocalDate> dates = new ArrayList<>();
-        for (Holiday h : holidays) {
-            dates.add(h.getDate());
-        }
-        return dates;
+    public void setSharedHolidays(List<Holiday> holidays) {
+        holidayCalendar.setSharedHolidays(holidays);
+    }
+
+    /**
+     * Interval lookups for holidays and the mid-sem window.
+     */
+    public HolidayCalendar getHolidayCalendar() {
+        return holidayCalendar;
+    }
+
+    /**
+     * Prefix-sum class counts over teaching days (rebuilt lazily when holidays change).
+     */
+    public TeachingCalendar getTeachingCalendar() {
+        return teachingCalendar;
+    }
+
+    public boolean isHoliday(LocalDate date) {
+        return holidayCalendar.isHoliday(date);
     }
 
     // ── Semester Dates ──
@@ -136,6 +190,7 @@ public class Student {
 
     public void setMidsemExamStartDate(LocalDate date) {
         this.midsemExamStartDate = date;
+        holidayCalendar.setMidsemWindow(midsemExamStartDate, midsemExamEndDate);
     }
 
     public LocalDate getMidsemExamStartDate() {
@@ -144,6 +199,7 @@ public class Student {
 
     public void setMidsemExamEndDate(LocalDate date) {
         this.midsemExamEndDate = date;
+        holidayCalendar.setMidsemWindow(midsemExamStartDate, midsemExamEndDate);
     }
 
     public LocalDate getMidsemExamEndDate() {
@@ -161,10 +217,16 @@ public class Student {
      * Check if a given date falls within the mid-sem exam period (no classes).
      */
     public boolean isDuringMidsemExams(LocalDate date) {
-        if (midsemExamStartDate == null || midsemExamEndDate == null) {
-            return false;
-        }
-        return !date.isBefore(midsemExamStartDate) && !date.isAfter(midsemExamEndDate);
+        return holidayCalendar.isDuringMidsemExams(date);
+    }
+
+    // ── Attendance Policy ──
+    public AttendancePolicy getAttendancePolicy() {
+        return attendancePolicy;
+    }
+
+    public void setAttendancePolicy(AttendancePolicy attendancePolicy) {
+        this.attendancePolicy = (attendancePolicy != null) ? attendancePolicy : AttendancePolicy.DEFAULT;
     }
 
     // ── Email Report Settings ──
@@ -191,4 +253,19 @@ public class Student {
     public void setLastEmailSent(LocalDate lastEmailSent) {
         this.lastEmailSent = lastEmailSent;
     }
+
+    /**
+     * Take over the account settings (semester dates, policy, email) of
+     * another copy of this student — e.g. one freshly read from the database.
+     */
+    public void copySettingsFrom(Student other) {
+        setSemesterStartDate(other.semesterStartDate);
+        setSemesterEndDate(other.semesterEndDate);
+        setMidsemExamStartDate(other.midsemExamStartDate);
+        setMidsemExamEndDate(other.midsemExamEndDate);
+        setAttendancePolicy(other.attendancePolicy);
+        setEmail(other.email);
+        setEmailFrequency(other.emailFrequency);
+        setLastEmailSent(other.lastEmailSent);
+    }
 }
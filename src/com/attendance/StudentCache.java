@@ -0,0 +1,243 @@
+package com.attendance;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Process-wide read-through cache of per-student aggregates: subject rows
+ * (counters and opening balances), attendance histories, holidays (own and
+ * shared) and the weekly timetable. Owned by DatabaseManager, whose load
+ * methods read through it, so logging in again, reopening a dialog or
+ * re-serving an API session doesn't re-read unchanged data from MySQL.
+ *
+ * Validity is version-based:
+ * - every DatabaseManager mutation bumps the affected student's version
+ *   once it has committed; writes that reach many students (shared calendar
+ *   holidays, roll calls) bump a global epoch instead
+ * - an aggregate is tagged with the version current when it was created and
+ *   is served only while that version is still current, so a stale one is
+ *   simply replaced — nothing is patched in place
+ * - parts are filled lazily, each from a query issued after the aggregate
+ *   was validated, so a concurrent write can never be cached as current
+ * - versions only count this process's writes, so writes from elsewhere
+ *   (another machine, the API server beside the desktop app) are caught by
+ *   comparing the student's newest change_log row: loadStudentData passes
+ *   it to validate() at every login, and DeltaSync invalidates the student
+ *   whenever it sees changes
+ *
+ * At most STUDENT_CACHE_CAPACITY aggregates are kept, least recently used
+ * evicted first. Cached values are immutable (or treated as read-only), so
+ * callers get fresh model objects built from them.
+ */
+public class StudentCache {
+
+    /**
+     * A database read that the cache can fill a part from.
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong epoch = new AtomicLong(); // Versions at or below it are stale
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> changeSeqs = new ConcurrentHashMap<>(); // Student's newest change_log seq at the last validate
+    private final Map<Integer, Integer> subjectOwners = new ConcurrentHashMap<>(); // Subject id -> student id
+    private final Map<Integer, Aggregate> aggregates; // Access-ordered LRU, guarded by this
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StudentCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.aggregates = new LinkedHashMap<Integer, Aggregate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Aggregate> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // ───── Reads ─────
+
+    /**
+     * The student's aggregate at the current version — the cached one, or a
+     * new empty one replacing a stale entry.
+     */
+    Aggregate current(int studentId) {
+        long version = versionOf(studentId);
+        synchronized (this) {
+            Aggregate a = aggregates.get(studentId);
+            if (a == null || a.version != version) {
+                a = new Aggregate(version);
+                aggregates.put(studentId, a);
+            }
+            return a;
+        }
+    }
+
+    /**
+     * The current aggregate of a subject's owner, or null if the owner isn't known.
+     */
+    Aggregate currentForSubject(int subjectId) {
+        Integer owner = subjectOwners.get(subjectId);
+        return owner != null ? current(owner) : null;
+    }
+
+    /**
+     * Read one part of a student's aggregate, loading and caching it on a
+     * miss. A failed load throws and caches nothing.
+     */
+    <T> T read(int studentId, Function<Aggregate, T> part, BiConsumer<Aggregate, T> fill, Loader<T> loader)
+            throws SQLException {
+        Aggregate a = current(studentId);
+        T cached = part.apply(a);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        T loaded = loader.load();
+        fill.accept(a, loaded);
+        return loaded;
+    }
+
+    /**
+     * Record that a subject belongs to a student, so writes keyed by subject
+     * id invalidate the right aggregate.
+     */
+    void setOwner(int subjectId, int studentId) {
+        subjectOwners.put(subjectId, studentId);
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    // ───── Invalidation (called by DatabaseManager after a write) ─────
+
+    /**
+     * Drop the student's aggregate unless their newest change_log sequence
+     * number is the one seen last time — i.e. unless nobody, in this process
+     * or another, has written since.
+     *
+     * @param changeSeq the student's newest change_log seq, or negative if it
+     *                  couldn't be read (always invalidates)
+     */
+    void validate(int studentId, long changeSeq) {
+        Long previous = (changeSeq >= 0) ? changeSeqs.put(studentId, changeSeq) : changeSeqs.remove(studentId);
+        if (previous == null || previous != changeSeq) {
+            invalidate(studentId);
+        }
+    }
+
+    void invalidate(int studentId) {
+        versions.merge(studentId, clock.incrementAndGet(), Math::max);
+    }
+
+    void invalidateSubject(int subjectId) {
+        Integer owner = subjectOwners.get(subjectId);
+        if (owner != null) {
+            invalidate(owner);
+        } else {
+            invalidateAll(); // Owner never loaded in this process — can't tell who is affected
+        }
+    }
+
+    void invalidateAll() {
+        long e = epoch.accumulateAndGet(clock.incrementAndGet(), Math::max);
+        versions.values().removeIf(v -> v <= e); // Superseded by the epoch
+    }
+
+    void forgetSubject(int subjectId) {
+        Integer owner = subjectOwners.remove(subjectId);
+        if (owner != null) {
+            invalidate(owner);
+        } else {
+            invalidateAll();
+        }
+    }
+
+    private long versionOf(int studentId) {
+        Long v = versions.get(studentId);
+        long e = epoch.get();
+        return v != null ? Math.max(v, e) : e;
+    }
+
+    // ───── Metrics ─────
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return aggregates.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("students=%d hits=%d misses=%d", size(), getHitCount(), getMissCount());
+    }
+
+    // ───── Aggregates ─────
+
+    /**
+     * One student's cached data at one version. A null part hasn't been
+     * loaded yet.
+     */
+    static final class Aggregate {
+        final long version;
+        volatile List<SubjectRow> subjects;
+        volatile List<Holiday> holidays;
+        volatile List<Holiday> sharedHolidays;
+        volatile Map<Integer, List<DayOfWeek>> schedule; // Subject id -> class days
+        final Map<Integer, List<AttendanceRecord>> histories = new ConcurrentHashMap<>(); // Read-only lists
+
+        Aggregate(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * A subject as stored — what DatabaseManager.loadSubjects builds a Subject from.
+     */
+    static final class SubjectRow {
+        final int id;
+        final int sectionId;
+        final String name;
+        final int classesPerWeek;
+        final int conducted;
+        final int attended;
+        final OpeningBalance balance;
+
+        SubjectRow(int id, int sectionId, String name, int classesPerWeek, int conducted, int attended,
+                OpeningBalance balance) {
+            this.id = id;
+            this.sectionId = sectionId;
+            this.name = name;
+            this.classesPerWeek = classesPerWeek;
+            this.conducted = conducted;
+            this.attended = attended;
+            this.balance = balance;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.attendance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary copy of the last loaded student — account settings,
+ * subject counters, holidays, timetable, theme — kept per username under
+ * SNAPSHOT_DIR. On a warm start LoginDialog reads it and opens the
+ * dashboard straight from it, with no MySQL round trip; MainWindow then
+ * revalidates in the background (account row, password hash, and
+ * DeltaSync from the snapshot's change_log position).
+ *
+ * - Holds the salted password hash, so the login is checked locally; the
+ *   file is written owner-readable only where the file system allows
+ * - Histories are not stored: subjects start from counters and load their
+ *   history from MySQL on first use, as after a normal login
+ * - A missing, truncated, corrupt (CRC mismatch) or older-format file is
+ *   ignored and the normal login runs
+ *
+ * Written atomically (temp file, then rename), so a crash mid-write leaves
+ * the previous snapshot in place.
+ */
+public final class StudentSnapshot {
+
+    private static final int MAGIC = 0x4154534E; // "ATSN"
+    private static final int FORMAT = 1;
+
+    private final Student student;
+    private final WeeklySchedule schedule;
+    private final String passwordHash;
+    private final boolean darkMode;
+    private final long syncedAt; // When the data was last known current against MySQL (epoch millis)
+
+    private StudentSnapshot(Student student, WeeklySchedule schedule, String passwordHash, boolean darkMode,
+            long syncedAt) {
+        this.student = student;
+        this.schedule = schedule;
+        this.passwordHash = passwordHash;
+        this.darkMode = darkMode;
+        this.syncedAt = syncedAt;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public WeeklySchedule getSchedule() {
+        return schedule;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public boolean isDarkMode() {
+        return darkMode;
+    }
+
+    public long getSyncedAt() {
+        return syncedAt;
+    }
+
+    // ───── Reading ─────
+
+    /**
+     * Read the snapshot saved for a username.
+     *
+     * @return the snapshot, or null if there is none or it can't be used
+     */
+    public static StudentSnapshot load(String username) {
+        Path file = fileFor(username);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // One read into the heap rather than a mapping: a mapped file stays
+            // locked on Windows until collected, which would block replacing it
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                // Keep reading
+            }
+            buf.flip();
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT) {
+                return null;
+            }
+            long syncedAt = buf.getLong();
+            int length = buf.getInt();
+            ByteBuffer payload = buf.slice();
+            payload.limit(length);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            buf.position(buf.position() + length);
+            if ((int) crc.getValue() != buf.getInt()) {
+                System.err.println("Ignoring corrupt snapshot " + file);
+                return null;
+            }
+            StudentSnapshot snapshot = decode(payload, syncedAt);
+            return username.equals(snapshot.student.getUsername()) ? snapshot : null;
+        } catch (NoSuchFileException e) {
+            return null; // First login on this machine
+        } catch (IOException | RuntimeException e) { // Underflow, bad enum value, ... — treat as corrupt
+            System.err.println("Ignoring unreadable snapshot " + file + ": " + e);
+            return null;
+        }
+    }
+
+    private static StudentSnapshot decode(ByteBuffer in, long syncedAt) {
+        String username = readString(in);
+        String passwordHash = readString(in);
+        boolean darkMode = in.get() != 0;
+
+        Student student = new Student(readString(in));
+        student.setId(in.getInt());
+        student.setUsername(username);
+        student.setChangeSeq(in.getLong());
+        student.setSemesterStartDate(readDate(in));
+        student.setMidsemExamStartDate(readDate(in));
+        student.setMidsemExamEndDate(readDate(in));
+        student.setSemesterEndDate(readDate(in));
+        student.setAttendancePolicy(AttendancePolicy.ofPercentage(in.getInt() / 100.0));
+        student.setEmail(readString(in));
+        student.setEmailFrequency(readString(in));
+        student.setLastEmailSent(readDate(in));
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        WeeklySchedule schedule = new WeeklySchedule();
+        int subjectCount = in.getInt();
+        for (int i = 0; i < subjectCount; i++) {
+            int id = in.getInt();
+            int sectionId = in.getInt();
+            String name = readString(in);
+            int classesPerWeek = in.getInt();
+            int conducted = in.getInt();
+            int attended = in.getInt();
+            OpeningBalance balance = null;
+            if (in.get() != 0) {
+                balance = new OpeningBalance(readDate(in), in.getInt(), in.getInt());
+            }
+            Subject subject = db.toSubject(
+                    new StudentCache.SubjectRow(id, sectionId, name, classesPerWeek, conducted, attended, balance));
+            student.addSubject(subject);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (int n = in.get(); n > 0; n--) {
+                    schedule.addClass(day, subject);
+                }
+            }
+        }
+        student.setHolidays(readHolidays(in));
+        student.setSharedHolidays(readHolidays(in));
+        if (in.hasRemaining()) {
+            throw new IllegalStateException("trailing bytes");
+        }
+        return new StudentSnapshot(student, schedule, passwordHash, darkMode, syncedAt);
+    }
+
+    private static List<Holiday> readHolidays(ByteBuffer in) {
+        int count = in.getInt();
+        List<Holiday> holidays = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            holidays.add(new Holiday(readDate(in), readDate(in), readString(in), in.getInt(), readString(in)));
+        }
+        return holidays;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        long day = in.getLong();
+        return day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    // ───── Writing ─────
+
+    /**
+     * Encode the student as it is now. Call where the Student may be read
+     * (the EDT once it is shown); the bytes can then be written from anywhere.
+     *
+     * @param syncedAt when the student was last brought up to date (see DeltaSync)
+     */
+    public static byte[] encode(Student student, WeeklySchedule schedule, String passwordHash, long syncedAt) {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(payloadBytes)) {
+            writeString(out, student.getUsername());
+            writeString(out, passwordHash);
+            out.writeBoolean(ThemeManager.isDarkMode());
+
+            writeString(out, student.getName());
+            out.writeInt(student.getId());
+            out.writeLong(student.getChangeSeq());
+            writeDate(out, student.getSemesterStartDate());
+            writeDate(out, student.getMidsemExamStartDate());
+            writeDate(out, student.getMidsemExamEndDate());
+            writeDate(out, student.getSemesterEndDate());
+            out.writeInt(student.getAttendancePolicy().getThresholdBasisPoints());
+            writeString(out, student.getEmail());
+            writeString(out, student.getEmailFrequency());
+            writeDate(out, student.getLastEmailSent());
+
+            List<Subject> subjects = student.getSubjects();
+            out.writeInt(subjects.size());
+            for (Subject s : subjects) {
+                out.writeInt(s.getId());
+                out.writeInt(s.getSectionId());
+                writeString(out, s.getName());
+                out.writeInt(s.getClassesPerWeek());
+                out.writeInt(s.getClassesConducted());
+                out.writeInt(s.getClassesAttended());
+                OpeningBalance balance = s.getOpeningBalance();
+                out.writeBoolean(balance != null);
+                if (balance != null) {
+                    writeDate(out, balance.getAsOf());
+                    out.writeInt(balance.getConducted());
+                    out.writeInt(balance.getAttended());
+                }
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    out.writeByte(schedule.getSessionsOn(s, day));
+                }
+            }
+            List<Holiday> own = new ArrayList<>();
+            List<Holiday> shared = new ArrayList<>();
+            for (Holiday h : student.getHolidays()) {
+                (h.isShared() ? shared : own).add(h);
+            }
+            writeHolidays(out, own);
+            writeHolidays(out, shared);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In-memory stream
+        }
+
+        byte[] payload = payloadBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer file = ByteBuffer.allocate(4 + 4 + 8 + 4 + payload.length + 4);
+        file.putInt(MAGIC).putInt(FORMAT).putLong(syncedAt)
+                .putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        return file.array();
+    }
+
+    /**
+     * Write encoded bytes as the username's snapshot, replacing the old one.
+     * Off the EDT; failures are logged and leave the old snapshot in place.
+     */
+    public static void write(String username, byte[] encoded) {
+        Path file = fileFor(username);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(temp, encoded);
+            restrictToOwner(temp);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forget the username's snapshot (e.g. its password no longer matches).
+     */
+    public static void delete(String username) {
+        try {
+            Files.deleteIfExists(fileFor(username));
+        } catch (IOException e) {
+            System.err.println("Error deleting snapshot: " + e.getMessage());
+        }
+    }
+
+    private static void writeHolidays(DataOutputStream out, List<Holiday> holidays) throws IOException {
+        out.writeInt(holidays.size());
+        for (Holiday h : holidays) {
+            writeDate(out, h.getStartDate());
+            writeDate(out, h.getEndDate());
+            writeString(out, h.getDescription());
+            out.writeInt(h.getCalendarId());
+            writeString(out, h.getCalendarName());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+    }
+
+    // ───── Files ─────
+
+    /**
+     * One file per username; the name is encoded so any username is a safe file name.
+     */
+    private static Path fileFor(String username) {
+        String name = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        return Paths.get(DatabaseConfig.SNAPSHOT_DIR, name + ".snap");
+    }
+
+    private static void restrictToOwner(Path file) {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Not a POSIX file system (Windows) — the profile directory is already per-user
+        }
+    }
+}
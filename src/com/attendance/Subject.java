@@ -1,23 +1,41 @@
 package com.attendance;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.function.Supplier;
 
 /**
  * Subject model — represents a single course/subject.
- * Tracks attendance history through AttendanceRecord objects.
+ * Tracks attendance history in a bitset-backed AttendanceHistory, so counts,
+ * date lookups and marks are O(1).
+ *
+ * Subjects loaded from the database start with only their attended/conducted
+ * counters; the full history is fetched on first use (see isHistoryLoaded).
+ * Marks made before it arrives are kept aside and merged into it.
+ * Counts include the OpeningBalance, if the subject has one.
  */
 public class Subject {
     private int id; // Database primary key
+    private int sectionId; // 0 = the student's own subject, else the CourseSection it projects
     private String name;
     private int classesPerWeek;
-    private List<AttendanceRecord> attendanceHistory;
+    private final AttendanceHistory attendanceHistory;
+    private OpeningBalance openingBalance; // null = all attendance is in the history
+
+    // Summary counters used until the history is loaded
+    private boolean historyLoaded = true;
+    private int summaryConducted; // Includes the opening balance
+    private int summaryAttended;
+    private Supplier<List<AttendanceRecord>> historyLoader; // Returns null if the load failed
+    private final Map<LocalDate, Boolean> pendingMarks = new HashMap<>(); // Made while unloaded; null = removed
 
     public Subject(String name, int classesPerWeek) {
         this.name = name;
         this.classesPerWeek = classesPerWeek;
-        this.attendanceHistory = new ArrayList<>();
+        this.attendanceHistory = new AttendanceHistory();
     }
 
     // ── ID (Database) ──
@@ -29,6 +47,22 @@ public class Subject {
         this.id = id;
     }
 
+    // ── Course section ──
+    public int getSectionId() {
+        return sectionId;
+    }
+
+    public void setSectionId(int sectionId) {
+        this.sectionId = sectionId;
+    }
+
+    /**
+     * True if the name and timetable come from a CourseSection (read-only here).
+     */
+    public boolean isFromSection() {
+        return sectionId != 0;
+    }
+
     // ── Name ──
     public String getName() {
         return name;
@@ -40,17 +74,17 @@ public class Subject {
 
     // ── Attendance Stats ──
     public int getClassesConducted() {
-        return attendanceHistory.size();
+        if (!historyLoaded) {
+            return summaryConducted;
+        }
+        return attendanceHistory.getConducted() + (openingBalance != null ? openingBalance.getConducted() : 0);
     }
 
     public int getClassesAttended() {
-        int count = 0;
-        for (AttendanceRecord record : attendanceHistory) {
-            if (record.isPresent()) {
-                count++;
-            }
+        if (!historyLoaded) {
+            return summaryAttended;
         }
-        return count;
+        return attendanceHistory.getAttended() + (openingBalance != null ? openingBalance.getAttended() : 0);
     }
 
     public int getClassesPerWeek() {
@@ -75,60 +109,79 @@ public class Subject {
      * If a record for this date already exists, it gets updated instead.
      */
     public void addClass(LocalDate date, boolean attended) {
-        for (AttendanceRecord record : attendanceHistory) {
-            if (record.getDate() != null && record.getDate().equals(date)) {
-                record.setPresent(attended); // Update existing
-                return;
-            }
+        ensureHistoryLoaded();
+        addClassWithoutLoading(date, attended);
+    }
+
+    /**
+     * addClass without fetching the history first — for when it can't be
+     * loaded. The mark is merged into the history once that arrives.
+     */
+    public void addClassWithoutLoading(LocalDate date, boolean attended) {
+        if (historyLoaded) {
+            attendanceHistory.set(date, attended);
+            return;
+        }
+        // Not loaded — assume a new record unless this session marked the date already
+        Boolean previous = pendingMarks.put(date, attended);
+        if (previous == null) {
+            summaryConducted++;
+        } else if (previous) {
+            summaryAttended--;
+        }
+        if (attended) {
+            summaryAttended++;
         }
-        attendanceHistory.add(new AttendanceRecord(date, attended));
     }
 
     /**
      * Remove attendance record for a specific date.
      */
     public void removeRecordForDate(LocalDate date) {
-        attendanceHistory.removeIf(r -> r.getDate() != null && r.getDate().equals(date));
+        ensureHistoryLoaded();
+        removeRecordWithoutLoading(date);
     }
 
     /**
-     * Set initial attendance data (bulk, for starting mid-semester).
-     * Places records only on scheduled weekdays from the semester start date,
-     * skipping holidays and midsem periods.
+     * removeRecordForDate without fetching the history first.
      */
-    public void setAttendance(int conducted, int attended,
-            java.util.List<java.time.DayOfWeek> scheduledDays, java.time.LocalDate semesterStart,
-            java.util.List<java.time.LocalDate> holidayDates,
-            java.util.function.Predicate<java.time.LocalDate> isMidsemExam) {
-        if (attended > conducted) {
-            throw new IllegalArgumentException("Attended classes cannot be more than conducted classes.");
+    public void removeRecordWithoutLoading(LocalDate date) {
+        if (historyLoaded) {
+            attendanceHistory.remove(date);
+            return;
         }
-        attendanceHistory.clear();
-
-        // Determine start date
-        java.time.LocalDate startDate = (semesterStart != null) ? semesterStart
-                : java.time.LocalDate.now().minusDays((long) conducted * 7 / Math.max(scheduledDays.size(), 1) + 14);
-        java.time.LocalDate today = java.time.LocalDate.now();
-
-        // Collect valid class dates
-        java.util.List<java.time.LocalDate> validDates = new java.util.ArrayList<>();
-        java.time.LocalDate cursor = startDate;
-
-        while (!cursor.isAfter(today) && validDates.size() < conducted) {
-            if (scheduledDays.contains(cursor.getDayOfWeek())) {
-                if (holidayDates == null || !holidayDates.contains(cursor)) {
-                    if (isMidsemExam == null || !isMidsemExam.test(cursor)) {
-                        validDates.add(cursor);
-                    }
-                }
+        // Not loaded — only a mark made this session is known to exist; the
+        // counters of an older one are corrected when the history arrives
+        Boolean previous = pendingMarks.put(date, null);
+        if (previous != null) {
+            summaryConducted--;
+            if (previous) {
+                summaryAttended--;
             }
-            cursor = cursor.plusDays(1);
         }
+    }
 
-        // First 'attended' are present, rest are absent
-        for (int i = 0; i < validDates.size(); i++) {
-            attendanceHistory.add(new AttendanceRecord(validDates.get(i), i < attended));
+    // ── Opening Balance ──
+
+    /**
+     * Attendance carried in from before tracking started, or null if none.
+     */
+    public OpeningBalance getOpeningBalance() {
+        return openingBalance;
+    }
+
+    /**
+     * Set (or clear, with null) the opening balance — e.g. when a subject is
+     * added mid-semester. Recorded history is left untouched.
+     */
+    public void setOpeningBalance(OpeningBalance balance) {
+        if (!historyLoaded) { // The summary counters include the old balance
+            summaryConducted += (balance != null ? balance.getConducted() : 0)
+                    - (openingBalance != null ? openingBalance.getConducted() : 0);
+            summaryAttended += (balance != null ? balance.getAttended() : 0)
+                    - (openingBalance != null ? openingBalance.getAttended() : 0);
         }
+        openingBalance = balance;
     }
 
     // ── Percentage & Analytics ──
@@ -139,53 +192,133 @@ public class Subject {
         return (double) getClassesAttended() / conducted * 100.0;
     }
 
+    /**
+     * Classes that can still be missed while staying at or above the target.
+     */
     public int calculateSafeBunks(double targetPercentage) {
-        int attended = getClassesAttended();
-        int conducted = getClassesConducted();
-        if (conducted == 0) return 0;
-
-        int safeBunks = 0;
-        while (true) {
-            double simulatedPct = (double) attended / (conducted + safeBunks + 1) * 100.0;
-            if (simulatedPct >= targetPercentage) {
-                safeBunks++;
-            } else {
-                break;
-            }
-        }
-        return safeBunks;
+        return AttendancePolicy.ofPercentage(targetPercentage).safeBunks(this);
     }
 
-    public int calculateClassesNeeded(double targetPercentage) {
-        int attended = getClassesAttended();
-        int conducted = getClassesConducted();
-        
-        int needed = 0;
-        while (true) {
-            double currentPct = (conducted + needed) == 0 ? 100.0 : ((double) (attended + needed) / (conducted + needed)) * 100.0;
-            if (currentPct >= targetPercentage) {
-                break;
-            }
-            needed++;
-        }
-        return needed;
+    /**
+     * Consecutive classes to attend to reach the target; empty if it can't be reached.
+     */
+    public OptionalInt calculateClassesNeeded(double targetPercentage) {
+        return AttendancePolicy.ofPercentage(targetPercentage).classesNeeded(this);
     }
 
     // ── History ──
+
+    /**
+     * Snapshot of the history as records, oldest first.
+     * Allocates a new list on every call — prefer the O(1) getters for counts.
+     */
     public List<AttendanceRecord> getAttendanceHistory() {
-        return new ArrayList<>(attendanceHistory);
+        ensureHistoryLoaded();
+        return attendanceHistory.toRecords();
     }
 
     /**
      * Check if attendance has already been marked for a specific date.
      */
     public boolean hasRecordForDate(LocalDate date) {
-        for (AttendanceRecord record : attendanceHistory) {
-            if (record.getDate() != null && record.getDate().equals(date)) {
-                return true;
+        ensureHistoryLoaded();
+        return hasKnownRecordForDate(date);
+    }
+
+    /**
+     * hasRecordForDate without fetching the history first: while it isn't
+     * loaded, only the marks made this session are known.
+     */
+    public boolean hasKnownRecordForDate(LocalDate date) {
+        if (!historyLoaded && pendingMarks.containsKey(date)) {
+            return pendingMarks.get(date) != null;
+        }
+        return attendanceHistory.contains(date);
+    }
+
+    /**
+     * Check if the student was marked present on a specific date.
+     */
+    public boolean wasPresentOn(LocalDate date) {
+        ensureHistoryLoaded();
+        if (!historyLoaded && pendingMarks.containsKey(date)) {
+            return Boolean.TRUE.equals(pendingMarks.get(date));
+        }
+        return attendanceHistory.isPresentOn(date);
+    }
+
+    // ── Lazy History ──
+
+    /**
+     * False while only the summary counters are in memory. Screens that walk
+     * the history should preload it off the EDT (AsyncDb.loadHistories) and
+     * not open if that fails; otherwise the first history call loads it
+     * synchronously.
+     */
+    public boolean isHistoryLoaded() {
+        return historyLoaded;
+    }
+
+    /**
+     * Start from database counters (which include the opening balance),
+     * deferring the history until it is needed.
+     */
+    void setSummary(int conducted, int attended, OpeningBalance balance,
+            Supplier<List<AttendanceRecord>> loader) {
+        attendanceHistory.clear();
+        pendingMarks.clear();
+        openingBalance = balance;
+        summaryConducted = conducted;
+        summaryAttended = attended;
+        historyLoader = loader;
+        historyLoaded = false;
+    }
+
+    /**
+     * Refresh the counters of a subject whose history is not loaded (e.g.
+     * after the database removed records behind it). Ignored once loaded.
+     */
+    void updateSummary(int conducted, int attended) {
+        if (!historyLoaded) {
+            summaryConducted = conducted;
+            summaryAttended = attended;
+        }
+    }
+
+    /**
+     * Install the full history, replacing the summary counters. Marks made
+     * while it wasn't loaded are applied on top — the loaded records may
+     * predate them.
+     */
+    void loadHistory(List<AttendanceRecord> records) {
+        attendanceHistory.clear();
+        for (AttendanceRecord r : records) {
+            attendanceHistory.set(r.getDate(), r.isPresent());
+        }
+        for (Map.Entry<LocalDate, Boolean> mark : pendingMarks.entrySet()) {
+            if (mark.getValue() != null) {
+                attendanceHistory.set(mark.getKey(), mark.getValue());
+            } else {
+                attendanceHistory.remove(mark.getKey());
             }
         }
-        return false;
+        pendingMarks.clear();
+        markHistoryLoaded();
+    }
+
+    private void ensureHistoryLoaded() {
+        if (historyLoaded || historyLoader == null) {
+            return;
+        }
+        List<AttendanceRecord> records = historyLoader.get();
+        if (records != null) { // On failure keep the counters and retry next time
+            loadHistory(records);
+        }
+    }
+
+    private void markHistoryLoaded() {
+        historyLoaded = true;
+        historyLoader = null;
     }
 
     @Override
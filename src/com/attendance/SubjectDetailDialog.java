@@ -61,12 +61,18 @@ public class SubjectDetailDialog extends JDialog {
         nameField.setFont(new Font("Segoe UI", Font.BOLD, 16));
 
         JButton renameBtn = createSmallButton("Rename", ACCENT_COLOR, BG_COLOR);
+        if (subject.isFromSection()) {
+            nameField.setEditable(false);
+            renameBtn.setEnabled(false);
+            renameBtn.setToolTipText("This subject's name comes from its course section");
+        }
         renameBtn.addActionListener(e -> {
             String newName = nameField.getText().trim();
             if (!newName.isEmpty() && !newName.equals(subject.getName())) {
                 subject.setName(newName);
-                DatabaseManager.getInstance().updateSubject(
-                        subject.getId(), newName, subject.getClassesPerWeek());
+                int classesPerWeek = subject.getClassesPerWeek();
+                AsyncDb.run(null, () -> DatabaseManager.getInstance().updateSubject(
+                        subject.getId(), newName, classesPerWeek));
                 setTitle("📋 " + newName + " — Attendance Details");
                 changed = true;
             }
@@ -75,7 +81,7 @@ public class SubjectDetailDialog extends JDialog {
         // Summary stats
         JLabel summaryLabel = new JLabel(getSummaryText());
         summaryLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
-        summaryLabel.setForeground(subject.getAttendancePercentage() >= 75 ? GREEN : RED);
+        summaryLabel.setForeground(student.getAttendancePolicy().meets(subject) ? GREEN : RED);
 
         JPanel nameRow = new JPanel(new BorderLayout(8, 0));
         nameRow.setOpaque(false);
@@ -153,14 +159,14 @@ public class SubjectDetailDialog extends JDialog {
 
                     // Toggle
                     subject.addClass(date, !wasPresent);
-                    DatabaseManager.getInstance().saveAttendanceRecord(
+                    DatabaseManager.getInstance().getAttendanceWriteQueue().save(
                             subject.getId(), date, !wasPresent);
 
                     // Refresh table
                     tableModel.setValueAt(!wasPresent ? "✅ Present" : "❌ Absent", row, 2);
                     tableModel.setValueAt(!wasPresent ? "→ Mark Absent" : "→ Mark Present", row, 3);
                     summaryLabel.setText(getSummaryText());
-                    summaryLabel.setForeground(subject.getAttendancePercentage() >= 75 ? GREEN : RED);
+                    summaryLabel.setForeground(student.getAttendancePolicy().meets(subject) ? GREEN : RED);
                     changed = true;
                 }
             }
@@ -171,7 +177,7 @@ public class SubjectDetailDialog extends JDialog {
         tableScroll.getViewport().setBackground(CARD_COLOR);
 
         // ═══ Calendar Heat-Map View ═══
-        CalendarHeatMapPanel calendarPanel = new CalendarHeatMapPanel(subject, student.getHolidayDates());
+        CalendarHeatMapPanel calendarPanel = new CalendarHeatMapPanel(subject, student.getHolidayCalendar());
 
         JPanel calendarWrapper = new JPanel(new BorderLayout());
         calendarWrapper.setBackground(BG_COLOR);
@@ -313,53 +319,32 @@ public class SubjectDetailDialog extends JDialog {
                 }
             }
 
-            // Check if this day matches the subject's weekly schedule
-            // We need the schedule from MainWindow — use DatabaseManager to check
-            java.util.List<String> scheduledDays = getScheduledDaysForSubject(subject.getId());
-            String dayName = date.getDayOfWeek().name();
-            if (!scheduledDays.contains(dayName)) {
-                int choice = JOptionPane.showConfirmDialog(this,
-                        "📌 " + date.getDayOfWeek() + " (" + date + ") is NOT a scheduled day for "
-                                + subject.getName() + ".\nAdd this as an EXTRA CLASS?",
-                        "Extra Class", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
-                if (choice != JOptionPane.YES_OPTION)
-                    return;
-            }
-
-            subject.addClass(date, present);
-            DatabaseManager.getInstance().saveAttendanceRecord(subject.getId(), date, present);
-
-            populateTable();
-            summaryLabel.setText(getSummaryText());
-            summaryLabel.setForeground(subject.getAttendancePercentage() >= 75 ? GREEN : RED);
-            changed = true;
+            // Check if this day matches the subject's weekly schedule (loaded off the EDT)
+            AsyncDb.query(this, () -> DatabaseManager.getInstance().loadScheduledDays(subject.getId()))
+                    .thenAccept(scheduledDays -> {
+                        if (!scheduledDays.contains(date.getDayOfWeek())) {
+                            int choice = JOptionPane.showConfirmDialog(this,
+                                    "📌 " + date.getDayOfWeek() + " (" + date + ") is NOT a scheduled day for "
+                                            + subject.getName() + ".\nAdd this as an EXTRA CLASS?",
+                                    "Extra Class", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+                            if (choice != JOptionPane.YES_OPTION)
+                                return;
+                        }
+
+                        subject.addClass(date, present);
+                        DatabaseManager.getInstance().getAttendanceWriteQueue().save(subject.getId(), date, present);
+
+                        populateTable();
+                        summaryLabel.setText(getSummaryText());
+                        summaryLabel.setForeground(student.getAttendancePolicy().meets(subject) ? GREEN : RED);
+                        changed = true;
+                    });
         } catch (DateTimeParseException ex) {
             JOptionPane.showMessageDialog(this,
                     "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    /**
-     * Get scheduled day names for a subject from DB.
-     */
-    private java.util.List<String> getScheduledDaysForSubject(int subjectId) {
-        java.util.List<String> days = new java.util.ArrayList<>();
-        try (java.sql.Connection conn = java.sql.DriverManager.getConnection(
-                DatabaseConfig.DB_URL, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD);
-                java.sql.PreparedStatement pstmt = conn.prepareStatement(
-                        "SELECT day_of_week FROM weekly_schedule WHERE subject_id = ?")) {
-            pstmt.setInt(1, subjectId);
-            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    days.add(rs.getString("day_of_week"));
-                }
-            }
-        } catch (java.sql.SQLException e) {
-            System.err.println("Error loading schedule days: " + e.getMessage());
-        }
-        return days;
-    }
-
     private void deleteSelectedRecord(JTable table, JLabel summaryLabel) {
         int selectedRow = table.getSelectedRow();
         if (selectedRow < 0) {
@@ -374,20 +359,26 @@ public class SubjectDetailDialog extends JDialog {
         if (confirm == JOptionPane.YES_OPTION) {
             LocalDate date = LocalDate.parse(dateStr);
             subject.removeRecordForDate(date);
-            DatabaseManager.getInstance().deleteAttendanceRecord(subject.getId(), date);
+            DatabaseManager.getInstance().getAttendanceWriteQueue().delete(subject.getId(), date);
 
             populateTable();
             summaryLabel.setText(getSummaryText());
-            summaryLabel.setForeground(subject.getAttendancePercentage() >= 75 ? GREEN : RED);
+            summaryLabel.setForeground(student.getAttendancePolicy().meets(subject) ? GREEN : RED);
             changed = true;
         }
     }
 
     private String getSummaryText() {
-        return String.format("Attended: %d / %d   |   %.1f%%   |   %s",
+        String text = String.format("Attended: %d / %d   |   %.1f%%   |   %s",
                 subject.getClassesAttended(), subject.getClassesConducted(),
                 subject.getAttendancePercentage(),
-                subject.getAttendancePercentage() >= 75 ? "✅ Eligible" : "⚠️ At Risk");
+                student.getAttendancePolicy().meets(subject) ? "✅ Eligible" : "⚠️ At Risk");
+        OpeningBalance balance = subject.getOpeningBalance();
+        if (balance != null) {
+            text += String.format("   |   incl. %d / %d before %s",
+                    balance.getAttended(), balance.getConducted(), balance.getAsOf());
+        }
+        return text;
     }
 
     private JButton createSmallButton(String text, Color bg, Color fg) {
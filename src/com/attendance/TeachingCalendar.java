@@ -0,0 +1,124 @@
+package com.attendance;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Prefix-sum index of teaching days for one student.
+ * For each weekday it keeps cumulative counts of teaching days (not a holiday,
+ * not mid-sem exams), so "classes of subject S between A and B" is at most
+ * seven array differences instead of a day-by-day calendar walk.
+ *
+ * Counts are per weekday rather than per subject, so timetable edits never
+ * invalidate the index — only holiday / mid-sem changes do, which are picked
+ * up lazily through HolidayCalendar's modification counter.
+ */
+public class TeachingCalendar {
+
+    // Ranges longer than this are walked day by day instead of indexed
+    private static final int MAX_INDEXED_DAYS = 10 * 366;
+
+    private final HolidayCalendar holidays;
+
+    private long firstDay; // Epoch day of index 0
+    private int length = 0; // Number of indexed days
+    private int[][] prefix; // prefix[weekday][i] = teaching days on that weekday in [firstDay, firstDay + i)
+    private int builtForModCount = -1;
+
+    public TeachingCalendar(HolidayCalendar holidays) {
+        this.holidays = holidays;
+    }
+
+    // ───── Queries ─────
+
+    /**
+     * Number of teaching days falling on the given weekday in [from, to] (inclusive).
+     */
+    public synchronized int countTeachingDays(LocalDate from, LocalDate to, DayOfWeek day) {
+        long start = from.toEpochDay();
+        long end = to.toEpochDay();
+        if (end < start) {
+            return 0;
+        }
+        if (end - start >= MAX_INDEXED_DAYS) {
+            return walk(from, to, day);
+        }
+        ensureCovers(start, end);
+        int[] counts = prefix[day.getValue() - 1];
+        return counts[(int) (end - firstDay) + 1] - counts[(int) (start - firstDay)];
+    }
+
+    /**
+     * Number of classes of a subject in [from, to] (inclusive), skipping
+     * holidays and mid-sem exams.
+     */
+    public int countClasses(Subject subject, WeeklySchedule schedule, LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            return 0;
+        }
+        int mask = schedule.getDayMask(subject);
+        int count = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((mask & (1 << day.ordinal())) != 0) {
+                count += countTeachingDays(from, to, day);
+            }
+        }
+        return count;
+    }
+
+    // ───── Internals ─────
+
+    /**
+     * (Re)build the index if holidays changed or [start, end] is outside the
+     * indexed range. A rebuild keeps the old range too, so alternating queries
+     * (e.g. leave period, then leave-end to semester-end) share one index.
+     */
+    private void ensureCovers(long start, long end) {
+        boolean stale = builtForModCount != holidays.getModCount();
+        if (!stale && length > 0 && start >= firstDay && end < firstDay + length) {
+            return;
+        }
+        long newFirst = start;
+        long newLast = end;
+        if (length > 0 && (firstDay + length - 1) - Math.min(start, firstDay) < MAX_INDEXED_DAYS
+                && Math.max(end, firstDay + length - 1) - start < MAX_INDEXED_DAYS) {
+            newFirst = Math.min(start, firstDay);
+            newLast = Math.max(end, firstDay + length - 1);
+        }
+        build(newFirst, newLast);
+    }
+
+    private void build(long first, long last) {
+        int n = (int) (last - first + 1);
+        int[][] counts = new int[7][n + 1];
+        int modCount = holidays.getModCount();
+        LocalDate date = LocalDate.ofEpochDay(first);
+        int weekday = date.getDayOfWeek().getValue() - 1;
+        for (int i = 0; i < n; i++) {
+            for (int d = 0; d < 7; d++) {
+                counts[d][i + 1] = counts[d][i];
+            }
+            if (!holidays.isNonTeachingDay(date)) {
+                counts[weekday][i + 1]++;
+            }
+            date = date.plusDays(1);
+            weekday = (weekday + 1) % 7;
+        }
+        prefix = counts;
+        firstDay = first;
+        length = n;
+        builtForModCount = modCount;
+    }
+
+    private int walk(LocalDate from, LocalDate to, DayOfWeek day) {
+        int count = 0;
+        LocalDate cursor = from;
+        while (!cursor.isAfter(to)) {
+            if (cursor.getDayOfWeek() == day && !holidays.isNonTeachingDay(cursor)) {
+                count++;
+            }
+            cursor = cursor.plusDays(1);
+        }
+        return count;
+    }
+}
@@ -121,8 +121,14 @@ public class ThemeManager {
      * Load theme preference from database for a student.
      */
     public static void loadTheme(int studentId) {
-        String theme = DatabaseManager.getInstance().loadTheme(studentId);
-        darkMode = !"light".equalsIgnoreCase(theme);
+        darkMode = isDark(DatabaseManager.getInstance().loadTheme(studentId));
+    }
+
+    /**
+     * Whether a stored theme preference means dark mode (the default).
+     */
+    static boolean isDark(String theme) {
+        return !"light".equalsIgnoreCase(theme);
     }
 
     /**
@@ -2,37 +2,87 @@ package com.attendance;
 
 import java.time.DayOfWeek;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Weekly timetable.
+ * Keeps the ordered per-day subject lists for display, plus a per-subject
+ * weekday bitmask and per-day session counts, so "does S meet on D" and
+ * "weekly classes of S" are bit operations instead of list scans.
+ */
 public class WeeklySchedule {
-    private Map<DayOfWeek, List<Subject>> timetable;
+    private final Map<DayOfWeek, List<Subject>> timetable = new EnumMap<>(DayOfWeek.class);
+    private final Map<Subject, SubjectSlots> slots = new HashMap<>();
+    private int modCount = 0;
 
     public WeeklySchedule() {
-        this.timetable = new HashMap<>();
         for (DayOfWeek day : DayOfWeek.values()) {
             timetable.put(day, new ArrayList<>());
         }
     }
 
+    /**
+     * Add one session of a subject on a weekday. Adding the same subject
+     * twice on a day records two sessions.
+     */
     public void addClass(DayOfWeek day, Subject subject) {
         timetable.get(day).add(subject);
+        SubjectSlots s = slots.computeIfAbsent(subject, k -> new SubjectSlots());
+        s.sessions[day.ordinal()]++;
+        s.dayMask |= 1 << day.ordinal();
+        s.weeklyCount++;
+        modCount++;
     }
 
+    /**
+     * Subjects on a weekday in timetable order (read-only).
+     */
     public List<Subject> getSubjectsOn(DayOfWeek day) {
-        return timetable.get(day);
+        return Collections.unmodifiableList(timetable.get(day));
     }
 
+    public boolean isScheduledOn(Subject subject, DayOfWeek day) {
+        return (getDayMask(subject) & (1 << day.ordinal())) != 0;
+    }
+
+    /**
+     * Weekdays the subject meets on, as bits (bit 0 = Monday … bit 6 = Sunday).
+     */
+    public int getDayMask(Subject subject) {
+        SubjectSlots s = slots.get(subject);
+        return s == null ? 0 : s.dayMask;
+    }
+
+    /**
+     * Number of sessions of the subject on a weekday (0 if it doesn't meet).
+     */
+    public int getSessionsOn(Subject subject, DayOfWeek day) {
+        SubjectSlots s = slots.get(subject);
+        return s == null ? 0 : s.sessions[day.ordinal()];
+    }
+
+    /**
+     * Total sessions per week for the subject.
+     */
     public int getClassesCountFor(Subject subject) {
-        int count = 0;
-        for (List<Subject> daySubjects : timetable.values()) {
-            for (Subject s : daySubjects) {
-                if (s.equals(subject)) {
-                    count++;
-                }
-            }
-        }
-        return count;
+        SubjectSlots s = slots.get(subject);
+        return s == null ? 0 : s.weeklyCount;
+    }
+
+    /**
+     * Bumped on every change, for caches derived from the timetable.
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    private static final class SubjectSlots {
+        final int[] sessions = new int[7]; // Indexed by DayOfWeek.ordinal()
+        int dayMask = 0;
+        int weeklyCount = 0;
     }
 }
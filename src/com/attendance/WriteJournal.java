@@ -0,0 +1,395 @@
+package com.attendance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal of user writes that must survive MySQL being
+ * down or slow, and the app being closed meanwhile: attendance marks,
+ * holiday edits and settings. A write is appended (and fsync'd) before it
+ * is attempted, and marked done once MySQL has committed it or rejected
+ * it for good; whatever is still outstanding at startup is replayed.
+ *
+ * Each record is framed as length, CRC32, body:
+ * - OP records (seq, kind, typed arguments) are forced to disk before
+ *   append() returns
+ * - DONE records (seq) are not forced — losing one only means an
+ *   idempotent write is replayed
+ * - Once nothing is outstanding the file is truncated
+ * - On open, a torn or corrupt tail (a crash mid-append) is cut off
+ *
+ * One process per file: if another process (an API server beside the
+ * desktop app) holds it, this one keeps outstanding writes in memory only.
+ */
+public class WriteJournal {
+
+    /**
+     * What a journaled write does. The arguments are documented per kind;
+     * DatabaseManager.applyJournaled replays them.
+     */
+    public enum Kind {
+        MARK(1, "saving attendance"), // subject, date, present
+        UNMARK(2, "removing attendance"), // subject, date
+        HOLIDAY_ADD(3, "adding holiday"), // student, start, end, description; also clears attendance inside it
+        HOLIDAY_REMOVE(4, "removing holiday"), // student, start
+        HOLIDAYS_REMOVE_BY_DESCRIPTION(5, "removing holidays by description"), // student, description
+        HOLIDAY_UPDATE(6, "updating holiday"), // student, old start, new start, new end, description
+        SHARED_HOLIDAY_EXCLUDE(7, "hiding shared holiday"), // student, calendar, start
+        SEMESTER_SETTINGS(8, "saving semester settings"), // student, start, midsem start, midsem end, end, basis points
+        EMAIL_SETTINGS(9, "saving email settings"), // student, email, frequency
+        THEME(10, "saving theme"); // student, theme
+
+        final int code;
+        final String action; // For error messages: "Error " + action
+
+        Kind(int code, String action) {
+            this.code = code;
+            this.action = action;
+        }
+
+        static Kind of(int code) {
+            for (Kind k : values()) {
+                if (k.code == code) {
+                    return k;
+                }
+            }
+            return null;
+        }
+
+        boolean isAttendance() {
+            return this == MARK || this == UNMARK;
+        }
+    }
+
+    private static final byte OP = 1;
+    private static final byte DONE = 2;
+    private static final int MAX_RECORD_BYTES = 1 << 20; // Anything larger is a corrupt length
+
+    private FileChannel channel; // null = in memory only; guarded by this
+    private FileLock lock;
+    private long nextSeq = 1; // guarded by this
+    private final Map<Long, Entry> outstanding = new LinkedHashMap<>(); // In seq order; guarded by this
+
+    private WriteJournal() {
+    }
+
+    /**
+     * Open (creating if needed) and recover the journal. Never fails: if the
+     * file can't be used, the journal works in memory only.
+     */
+    public static WriteJournal open(Path file) {
+        WriteJournal journal = new WriteJournal();
+        try {
+            Files.createDirectories(file.getParent());
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                channel.close();
+                System.err.println("Write journal " + file + " is in use by another process; "
+                        + "unsaved writes will not survive a restart.");
+                return journal;
+            }
+            journal.channel = channel;
+            journal.lock = lock;
+            journal.recover();
+        } catch (IOException e) {
+            System.err.println("Error opening write journal (in memory only): " + e.getMessage());
+            journal.closeQuietly();
+        }
+        return journal;
+    }
+
+    // ───── Writing ─────
+
+    /**
+     * Record a write before it is attempted. Forced to disk on return.
+     *
+     * @return the journaled entry — pass its seq to markDone once the write is settled
+     */
+    public synchronized Entry append(Kind kind, Object... args) {
+        Entry entry = new Entry(nextSeq++, kind, args);
+        outstanding.put(entry.seq, entry);
+        if (channel != null) {
+            try {
+                write(encode(entry), true);
+            } catch (IOException e) {
+                System.err.println("Error writing to journal (in memory only from now on): " + e.getMessage());
+                closeQuietly();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * A write was committed, or rejected for good. Once nothing is
+     * outstanding the file is emptied.
+     */
+    public synchronized void markDone(long seq) {
+        if (outstanding.remove(seq) == null || channel == null) {
+            return;
+        }
+        try {
+            if (outstanding.isEmpty()) {
+                channel.truncate(0);
+                channel.position(0);
+            } else {
+                ByteBuffer body = ByteBuffer.allocate(9);
+                body.putLong(seq).put(DONE).flip();
+                write(body, false);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to journal (in memory only from now on): " + e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Outstanding entries, oldest first.
+     */
+    public synchronized List<Entry> outstanding() {
+        return new ArrayList<>(outstanding.values());
+    }
+
+    /**
+     * True if a write other than an attendance mark is outstanding.
+     */
+    public synchronized boolean hasOutstandingNonAttendance() {
+        for (Entry e : outstanding.values()) {
+            if (!e.kind.isAttendance()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private void write(ByteBuffer body, boolean force) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer frame = ByteBuffer.allocate(8 + body.remaining());
+        frame.putInt(body.remaining()).putInt((int) crc.getValue()).put(body).flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        lock = null;
+        channel = null;
+    }
+
+    // ───── Recovery ─────
+
+    /**
+     * Read the file back: OP records become outstanding unless a DONE
+     * follows. Reading stops at the first torn or corrupt record, and the
+     * file is cut there so new records follow the last good one.
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        channel.position(0);
+        while (buf.hasRemaining() && channel.read(buf) >= 0) {
+            // Keep reading
+        }
+        buf.flip();
+
+        int good = 0;
+        while (buf.remaining() >= 8) {
+            int start = buf.position();
+            int length = buf.getInt();
+            int checksum = buf.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > buf.remaining()) {
+                break;
+            }
+            ByteBuffer body = buf.slice();
+            body.limit(length);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            buf.position(start + 8 + length);
+            try {
+                long seq = body.getLong();
+                byte type = body.get();
+                if (type == DONE) {
+                    outstanding.remove(seq);
+                } else if (type == OP) {
+                    Entry entry = decode(seq, body);
+                    if (entry != null) {
+                        outstanding.put(seq, entry);
+                    }
+                }
+                nextSeq = Math.max(nextSeq, seq + 1);
+            } catch (RuntimeException e) { // Well-framed but unreadable — skip it
+                System.err.println("Skipping unreadable journal record: " + e);
+            }
+            good = buf.position();
+        }
+        if (good < size) {
+            System.err.println("Discarding " + (size - good) + " bytes of torn or corrupt journal tail");
+            channel.truncate(good);
+            channel.force(false);
+        }
+        channel.position(good);
+        if (!outstanding.isEmpty()) {
+            System.err.println("Replaying " + outstanding.size() + " journaled write(s) from the last session");
+        }
+    }
+
+    // ───── Encoding ─────
+
+    private static final byte NULL_ARG = 0;
+    private static final byte INT_ARG = 1;
+    private static final byte DATE_ARG = 2;
+    private static final byte STRING_ARG = 3;
+    private static final byte BOOLEAN_ARG = 4;
+
+    private static ByteBuffer encode(Entry entry) {
+        List<byte[]> strings = new ArrayList<>();
+        int size = 8 + 1 + 1 + 1;
+        for (Object arg : entry.args) {
+            size += 1;
+            if (arg instanceof Integer) {
+                size += 4;
+            } else if (arg instanceof LocalDate) {
+                size += 8;
+            } else if (arg instanceof String) {
+                byte[] bytes = ((String) arg).getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                size += 4 + bytes.length;
+            } else if (arg instanceof Boolean) {
+                size += 1;
+            } else if (arg != null) {
+                throw new IllegalArgumentException("Can't journal a " + arg.getClass().getSimpleName());
+            }
+        }
+        ByteBuffer body = ByteBuffer.allocate(size);
+        body.putLong(entry.seq).put(OP).put((byte) entry.kind.code).put((byte) entry.args.length);
+        int s = 0;
+        for (Object arg : entry.args) {
+            if (arg instanceof Integer) {
+                body.put(INT_ARG).putInt((Integer) arg);
+            } else if (arg instanceof LocalDate) {
+                body.put(DATE_ARG).putLong(((LocalDate) arg).toEpochDay());
+            } else if (arg instanceof String) {
+                byte[] bytes = strings.get(s++);
+                body.put(STRING_ARG).putInt(bytes.length).put(bytes);
+            } else if (arg instanceof Boolean) {
+                body.put(BOOLEAN_ARG).put((byte) ((Boolean) arg ? 1 : 0));
+            } else {
+                body.put(NULL_ARG);
+            }
+        }
+        body.flip();
+        return body;
+    }
+
+    private static Entry decode(long seq, ByteBuffer body) {
+        Kind kind = Kind.of(body.get());
+        if (kind == null) {
+            return null; // Written by a newer version
+        }
+        Object[] args = new Object[body.get()];
+        for (int i = 0; i < args.length; i++) {
+            byte tag = body.get();
+            switch (tag) {
+                case INT_ARG:
+                    args[i] = body.getInt();
+                    break;
+                case DATE_ARG:
+                    args[i] = LocalDate.ofEpochDay(body.getLong());
+                    break;
+                case STRING_ARG:
+                    byte[] bytes = new byte[body.getInt()];
+                    body.get(bytes);
+                    args[i] = new String(bytes, StandardCharsets.UTF_8);
+                    break;
+                case BOOLEAN_ARG:
+                    args[i] = body.get() != 0;
+                    break;
+                case NULL_ARG:
+                    args[i] = null;
+                    break;
+                default:
+                    throw new IllegalStateException("bad argument tag " + tag);
+            }
+        }
+        return new Entry(seq, kind, args);
+    }
+
+    // ───── Entries ─────
+
+    /**
+     * One journaled write.
+     */
+    public static final class Entry {
+        final long seq;
+        final Kind kind;
+        private final Object[] args;
+
+        Entry(long seq, Kind kind, Object[] args) {
+            this.seq = seq;
+            this.kind = kind;
+            this.args = args.clone();
+        }
+
+        int intArg(int i) {
+            return (Integer) args[i];
+        }
+
+        LocalDate dateArg(int i) {
+            return (LocalDate) args[i];
+        }
+
+        String stringArg(int i) {
+            return (String) args[i];
+        }
+
+        Boolean booleanArg(int i) {
+            return (Boolean) args[i];
+        }
+
+        @Override
+        public String toString() {
+            return "#" + seq + " " + kind + Arrays.toString(args);
+        }
+    }
+}